@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.crds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying and comparing a large custom resource, as done for every event, with the structural implementations and
+ * with the JSON string round trip they replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DeepCopyBenchmark {
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Param({"10", "50"})
+  int components;
+
+  CoreMediaContentCloud cmcc;
+  CoreMediaContentCloud other;
+
+  @Setup
+  public void setup() {
+    cmcc = buildCmcc(components);
+    other = buildCmcc(components);
+  }
+
+  static CoreMediaContentCloud buildCmcc(int components) {
+    CoreMediaContentCloudSpec spec = new CoreMediaContentCloudSpec();
+    spec.setVersion("1");
+    spec.setDefaults(new ComponentDefaults());
+
+    List<ComponentSpec> componentSpecs = new ArrayList<>();
+    for (int i = 0; i < components; i++) {
+      ComponentSpec cs = new ComponentSpec();
+      cs.setType("cae");
+      cs.setKind("live");
+      cs.setName("cae-" + i);
+      for (int e = 0; e < 20; e++) {
+        cs.getEnv().add(new EnvVar("VAR_" + e, "value-" + e, null));
+        cs.getExtra().put("extra." + e, "value-" + e);
+      }
+      componentSpecs.add(cs);
+    }
+    spec.setComponents(componentSpecs);
+
+    Set<SiteMapping> siteMappings = new HashSet<>();
+    for (int i = 0; i < components; i++) {
+      SiteMapping siteMapping = new SiteMapping();
+      siteMapping.setHostname("site-" + i);
+      siteMapping.setPrimarySegment("site-" + i);
+      siteMappings.add(siteMapping);
+    }
+    spec.setSiteMappings(siteMappings);
+
+    CoreMediaContentCloudStatus status = new CoreMediaContentCloudStatus();
+    for (int i = 0; i < components; i++) {
+      status.getFlags().put("generation-cae-" + i, Integer.toString(i));
+    }
+
+    CoreMediaContentCloud cmcc = new CoreMediaContentCloud(spec, status);
+    cmcc.setMetadata(new ObjectMetaBuilder().withName("cmcc").withNamespace("default").build());
+    return cmcc;
+  }
+
+  @Benchmark
+  public CoreMediaContentCloud copyJsonString() throws Exception {
+    return objectMapper.readValue(objectMapper.writeValueAsString(cmcc), CoreMediaContentCloud.class);
+  }
+
+  @Benchmark
+  public CoreMediaContentCloud copyTokenBuffer() {
+    return Utils.deepClone(cmcc, CoreMediaContentCloud.class);
+  }
+
+  @Benchmark
+  public CoreMediaContentCloud copyStructural() {
+    return new CoreMediaContentCloud(cmcc);
+  }
+
+  @Benchmark
+  public boolean statusEqualsJsonString() throws Exception {
+    return objectMapper.writeValueAsString(cmcc.getStatus()).equals(objectMapper.writeValueAsString(other.getStatus()));
+  }
+
+  @Benchmark
+  public boolean statusEqualsTree() {
+    return Utils.deepEquals(cmcc.getStatus(), other.getStatus());
+  }
+
+  @Benchmark
+  public boolean statusEqualsStructural() {
+    return Objects.equals(cmcc.getStatus(), other.getStatus());
+  }
+}
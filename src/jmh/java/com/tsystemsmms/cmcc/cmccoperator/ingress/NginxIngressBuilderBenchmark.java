@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.ingress;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.IngressTls;
+import com.tsystemsmms.cmcc.cmccoperator.targetstate.StubbedOperator;
+import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the Ingress for one site mapping with the nginx ingress builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NginxIngressBuilderBenchmark {
+  @Param({"5", "50"})
+  int paths;
+
+  StubbedOperator operator;
+  TargetState targetState;
+  IngressTls tls;
+
+  @Setup
+  public void setup() {
+    operator = new StubbedOperator();
+    targetState = operator.buildTargetState(StubbedOperator.cmcc(1, 0, 1, false, null));
+    tls = new IngressTls();
+    tls.setSecretName("tls");
+  }
+
+  @TearDown
+  public void tearDown() {
+    operator.close();
+  }
+
+  @Benchmark
+  public Collection<? extends HasMetadata> build() {
+    IngressBuilder builder = new NginxIngressBuilderFactory().builder(targetState, "cae-live-site", "site.127.0.0.1.nip.io", tls);
+    for (int i = 0; i < paths; i++) {
+      builder.pathPrefix("/prefix-" + i, "cae-live");
+      builder.pathPattern("/pattern-" + i + "/(.*)", "cae-live");
+    }
+    return builder
+            .responseTimeout(60)
+            .uploadSize(10)
+            .rewrite("/blueprint/servlet/$1")
+            .build();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building all resources for a custom resource, as done for every reconciliation, with the DefaultTargetState and the
+ * VersioningTargetState.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BuildResourcesBenchmark {
+  @Param({"1", "200"})
+  int siteMappings;
+
+  @Param({"0", "4", "16"})
+  int rls;
+
+  @Param({"1", "4"})
+  int caesPerRls;
+
+  @Param({"false", "true"})
+  boolean jsonLogging;
+
+  StubbedOperator operator;
+  CoreMediaContentCloud unversioned;
+  CoreMediaContentCloud versioned;
+
+  @Setup
+  public void setup() {
+    operator = new StubbedOperator();
+    unversioned = StubbedOperator.cmcc(siteMappings, rls, caesPerRls, jsonLogging, null);
+    versioned = StubbedOperator.cmcc(siteMappings, rls, caesPerRls, jsonLogging, "1");
+  }
+
+  @TearDown
+  public void tearDown() {
+    operator.close();
+  }
+
+  @Benchmark
+  public List<HasMetadata> defaultTargetState() {
+    return operator.buildTargetState(unversioned).buildResources();
+  }
+
+  @Benchmark
+  public List<HasMetadata> versioningTargetState() {
+    return operator.buildTargetState(versioned).buildResources();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import com.tsystemsmms.cmcc.cmccoperator.ComponentBeanFactories;
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
+import com.tsystemsmms.cmcc.cmccoperator.crds.*;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CrdCustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.ingress.*;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
+import com.tsystemsmms.cmcc.cmccoperator.resource.OwnedResourceCache;
+import com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager;
+import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.IntOrString;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * The operator wired up against an empty in-memory cluster, so benchmarks measure building resources, and not the API
+ * server. The Kubernetes client is a stub that knows no resources, and the resource cache is always empty.
+ */
+public class StubbedOperator implements AutoCloseable {
+  public static final String NAMESPACE = "benchmark";
+
+  private final AnnotationConfigApplicationContext context;
+  private final KubernetesClient kubernetesClient;
+  private final TargetStateFactory targetStateFactory;
+
+  public StubbedOperator() {
+    kubernetesClient = mock(KubernetesClient.class, RETURNS_DEEP_STUBS);
+    when(kubernetesClient.secrets().inNamespace(anyString()).withName(anyString()).get()).thenReturn(null);
+    when(kubernetesClient.configMaps().inNamespace(anyString()).withName(anyString()).get()).thenReturn(null);
+
+    OwnedResourceCache resourceCache = new OwnedResourceCache(kubernetesClient, false) {
+      @Override
+      public <R extends HasMetadata> Optional<R> get(Class<R> kind, String namespace, String name) {
+        return Optional.empty();
+      }
+
+      @Override
+      public <R extends HasMetadata> List<R> list(Class<R> kind, String namespace, Map<String, String> labels) {
+        return Collections.emptyList();
+      }
+    };
+
+    IngressBuilderFactory ingressBuilderFactory = new NginxIngressBuilderFactory();
+    Map<String, UrlMappingBuilderFactory> urlMappingBuilderFactories = Stream.of(
+                    new BlueprintUrlMappingBuilderFactory(ingressBuilderFactory),
+                    new HeadlessUrlMappingBuilderFactory(ingressBuilderFactory),
+                    new OnlyLangUrlMappingBuilderFactory(ingressBuilderFactory))
+            .collect(Collectors.toMap(UrlMappingBuilderFactory::getName, Function.identity()));
+
+    context = new AnnotationConfigApplicationContext(ComponentBeanFactories.class);
+    targetStateFactory = new DefaultTargetStateFactory(context,
+            kubernetesClient,
+            new DefaultResourceNamingProviderFactory(),
+            new ResourceReconcilerManager(kubernetesClient, resourceCache),
+            urlMappingBuilderFactories,
+            new YamlMapper(),
+            ReconcileMetrics.unexported(),
+            PodTaskRunner.withDefaults());
+  }
+
+  /**
+   * Build a target state for a copy of the custom resource, as the reconciler does for every event.
+   *
+   * @param cmcc custom resource
+   * @return target state
+   */
+  public TargetState buildTargetState(CoreMediaContentCloud cmcc) {
+    return targetStateFactory.buildTargetState(new CrdCustomResource(new CoreMediaContentCloud(cmcc)));
+  }
+
+  /**
+   * Create a synthetic custom resource, with the default management and delivery components.
+   *
+   * @param siteMappings number of site mappings
+   * @param rls          number of replication live servers
+   * @param caesPerRls   number of live CAEs per replication live server, at least one live CAE is created
+   * @param jsonLogging  enable JSON logging
+   * @param version      version, or null to use the DefaultTargetState
+   * @return custom resource
+   */
+  public static CoreMediaContentCloud cmcc(int siteMappings, int rls, int caesPerRls, boolean jsonLogging, String version) {
+    CoreMediaContentCloudSpec spec = new CoreMediaContentCloudSpec();
+    spec.setVersion(version);
+    ComponentDefaults defaults = new ComponentDefaults();
+    defaults.setIngressDomain("127.0.0.1.nip.io");
+    spec.setDefaults(defaults);
+
+    Set<SiteMapping> mappings = new HashSet<>();
+    for (int i = 0; i < siteMappings; i++) {
+      SiteMapping siteMapping = new SiteMapping();
+      siteMapping.setHostname("site-" + i);
+      siteMapping.setPrimarySegment("site-" + i);
+      mappings.add(siteMapping);
+    }
+    spec.setSiteMappings(mappings);
+
+    WithOptions with = spec.getWith();
+    with.setDatabases(true);
+    with.setJsonLogging(jsonLogging);
+    with.getDelivery().setRls(new IntOrString(rls));
+    // minCae and maxCae are totals; without replication live servers, the CAEs use the master live server
+    int caes = Math.max(1, rls * caesPerRls);
+    with.getDelivery().setMinCae(new IntOrString(caes));
+    with.getDelivery().setMaxCae(new IntOrString(caes));
+
+    CoreMediaContentCloudStatus status = new CoreMediaContentCloudStatus();
+    status.setMilestone(Milestone.Ready);
+    if (version != null) {
+      status.setCurrentVersion(version);
+    }
+
+    CoreMediaContentCloud cmcc = new CoreMediaContentCloud(spec, status);
+    cmcc.setMetadata(new ObjectMetaBuilder().withName("cmcc").withNamespace(NAMESPACE).withUid("cmcc").build());
+    return cmcc;
+  }
+
+  @Override
+  public void close() {
+    context.close();
+    kubernetesClient.close();
+  }
+}
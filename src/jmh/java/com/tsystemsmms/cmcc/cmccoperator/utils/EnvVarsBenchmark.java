@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.utils;
+
+import io.fabric8.kubernetes.api.model.EnvVar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning properties into env vars, and env vars into the sorted list for a container, as done for every container of
+ * every component. With 500 vars, {@link #caeContainerEnv()} corresponds to a CAE with several hundred Spring Boot
+ * properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EnvVarsBenchmark {
+  @Param({"10", "100", "500"})
+  int vars;
+
+  EnvVarSet envVarSet;
+  SpringProperties springProperties;
+
+  @Setup
+  public void setup() {
+    envVarSet = new EnvVarSet();
+    springProperties = SpringProperties.builder();
+    for (int i = 0; i < vars; i++) {
+      envVarSet.add(new EnvVar("VAR_" + i, "value-" + i, null));
+      springProperties.property("some.property-" + i + ".name[0]", "value-" + i);
+    }
+  }
+
+  @Benchmark
+  public List<EnvVar> envVarSetToList() {
+    return envVarSet.toList();
+  }
+
+  @Benchmark
+  public List<EnvVar> springPropertiesToEnvVars() {
+    return springProperties.toEnvVars();
+  }
+
+  /**
+   * The env of a Spring Boot component: the memoized defaults are copied, the properties are added, and the sorted list
+   * is built for the container.
+   */
+  @Benchmark
+  public List<EnvVar> caeContainerEnv() {
+    EnvVarSet env = new EnvVarSet(envVarSet);
+    env.addAll(springProperties.toEnvVars());
+    return env.toList();
+  }
+}
@@ -10,23 +10,44 @@
 
 package com.tsystemsmms.cmcc.cmccoperator;
 
+import com.tsystemsmms.cmcc.cmccoperator.components.PodHttpClient;
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.ingress.*;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ApiCallInterceptor;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.InstrumentedHttpClientFactory;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.*;
+import com.tsystemsmms.cmcc.cmccoperator.resource.OwnedResourceCache;
+import com.tsystemsmms.cmcc.cmccoperator.resource.ReconcilePlanEndpoint;
 import com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager;
+import com.tsystemsmms.cmcc.cmccoperator.resource.ServerSideApplier;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.ReconcileScheduler;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.ShardManager;
 import com.tsystemsmms.cmcc.cmccoperator.utils.NamespaceFilter;
+import com.tsystemsmms.cmcc.cmccoperator.utils.NamespaceWatcher;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.utils.HttpClientUtils;
+import io.javaoperatorsdk.operator.Operator;
 import io.javaoperatorsdk.operator.springboot.starter.OperatorConfigurationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.javaoperatorsdk.operator.springboot.starter.ReconcilerProperties;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -39,18 +60,25 @@ public class CMCCOperatorApplication {
           @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") KubernetesClient kubernetesClient,
           TargetStateFactory targetStateFactory,
           NamespaceFilter<HasMetadata> namespaceFilter,
+          OwnedResourceCache ownedResourceCache,
+          ReconcileMetrics reconcileMetrics,
+          ReconcileScheduler reconcileScheduler,
+          ShardManager shardManager,
+          DeletedResourcePruner deletedResourcePruner,
+          ObjectProvider<NamespaceWatcher> namespaceWatcher,
           OperatorConfigurationProperties configuration) {
 
-    if (!NamespaceFilter.getNamespaceIncludes().isEmpty()) {
-      var props = new ReconcilerProperties();
-      props.setNamespaces(NamespaceFilter.getNamespaceIncludes());
-      configuration.setReconcilers(Map.of(CoreMediaContentCloudReconciler.class.getSimpleName(), props));
-    }
+    scopeReconciler(configuration, namespaceWatcher);
 
     return new CoreMediaContentCloudReconciler(
             kubernetesClient,
             targetStateFactory,
-            namespaceFilter);
+            namespaceFilter,
+            ownedResourceCache,
+            reconcileMetrics,
+            reconcileScheduler,
+            shardManager,
+            deletedResourcePruner);
   }
 
   @Bean
@@ -59,12 +87,110 @@ public class CMCCOperatorApplication {
           KubernetesClient kubernetesClient,
           TargetStateFactory targetStateFactory,
           YamlMapper yamlMapper,
-          NamespaceFilter<HasMetadata> namespaceFilter) {
+          NamespaceFilter<HasMetadata> namespaceFilter,
+          OwnedResourceCache ownedResourceCache,
+          ReconcileMetrics reconcileMetrics,
+          ReconcileScheduler reconcileScheduler,
+          ShardManager shardManager,
+          DeletedResourcePruner deletedResourcePruner,
+          ObjectProvider<NamespaceWatcher> namespaceWatcher,
+          OperatorConfigurationProperties configuration) {
+
+    scopeReconciler(configuration, namespaceWatcher);
+
     return new CmccConfigMapReconciler(
             kubernetesClient,
             targetStateFactory,
             yamlMapper,
-            namespaceFilter);
+            namespaceFilter,
+            ownedResourceCache,
+            reconcileMetrics,
+            reconcileScheduler,
+            shardManager,
+            deletedResourcePruner);
+  }
+
+  @Bean
+  public ReconcileScheduler reconcileScheduler(MeterRegistry meterRegistry,
+                                               @Value("${cmcc.scheduler.maxConcurrent:" + ReconcileScheduler.DEFAULT_MAX_CONCURRENT + "}") int maxConcurrent,
+                                               @Value("${cmcc.scheduler.maxPerNamespace:" + ReconcileScheduler.DEFAULT_MAX_PER_NAMESPACE + "}") int maxPerNamespace,
+                                               @Value("${cmcc.scheduler.reservedForPriority:" + ReconcileScheduler.DEFAULT_RESERVED_FOR_PRIORITY + "}") int reservedForPriority,
+                                               @Value("${cmcc.scheduler.retryDelay:" + ReconcileScheduler.DEFAULT_RETRY_DELAY + "}") Duration retryDelay,
+                                               @Value("${cmcc.scheduler.maxDeferral:" + ReconcileScheduler.DEFAULT_MAX_DEFERRAL + "}") Duration maxDeferral) {
+    return new ReconcileScheduler(maxConcurrent, maxPerNamespace, reservedForPriority, retryDelay, maxDeferral, meterRegistry);
+  }
+
+  @Bean
+  public DeletedResourcePruner deletedResourcePruner(ReconcileMetrics reconcileMetrics,
+                                                     ReconcileScheduler reconcileScheduler,
+                                                     ResourceReconcilerManager resourceReconcilerManager,
+                                                     @Value("${cmcc.pruneInterval:" + DeletedResourcePruner.DEFAULT_INTERVAL + "}") Duration interval) {
+    DeletedResourcePruner deletedResourcePruner = new DeletedResourcePruner(interval, reconcileMetrics, reconcileScheduler, resourceReconcilerManager);
+    deletedResourcePruner.start();
+    return deletedResourcePruner;
+  }
+
+  /**
+   * Limit the informers of the reconcilers to the namespaces in scope. Both reconcilers use the same controller name,
+   * so this applies to whichever of them is enabled.
+   */
+  private static void scopeReconciler(OperatorConfigurationProperties configuration, ObjectProvider<NamespaceWatcher> namespaceWatcher) {
+    NamespaceWatcher watcher = namespaceWatcher.getIfAvailable();
+    Set<String> namespaces;
+    if (watcher != null) {
+      namespaces = watcher.getControllerNamespaces();
+    } else if (!NamespaceFilter.getNamespaceIncludes().isEmpty()) {
+      namespaces = NamespaceFilter.getNamespaceIncludes();
+    } else {
+      return;
+    }
+    var props = new ReconcilerProperties();
+    props.setNamespaces(namespaces);
+    configuration.setReconcilers(Map.of(CoreMediaContentCloudReconciler.class.getSimpleName(), props));
+  }
+
+  @Bean
+  @ConditionalOnExpression("'${cmcc.scope.namespace.selector:}' != '' or ${cmcc.sharding.enabled:false}")
+  public NamespaceWatcher namespaceWatcher(@SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") KubernetesClient kubernetesClient,
+                                           NamespaceFilter<HasMetadata> namespaceFilter,
+                                           ShardManager shardManager,
+                                           ObjectProvider<Operator> operator) {
+    NamespaceWatcher namespaceWatcher = new NamespaceWatcher(kubernetesClient, operator, CoreMediaContentCloudReconciler.class.getSimpleName(), shardManager);
+    namespaceWatcher.start();
+    return namespaceWatcher;
+  }
+
+  @Bean
+  public ShardManager shardManager(@SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") KubernetesClient kubernetesClient,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${cmcc.sharding.enabled:false}") boolean enabled,
+                                   @Value("${cmcc.sharding.namespace:}") String namespace,
+                                   @Value("${cmcc.sharding.identity:${HOSTNAME:}}") String identity,
+                                   @Value("${cmcc.sharding.group:" + ShardManager.DEFAULT_GROUP + "}") String group,
+                                   @Value("${cmcc.sharding.leaseDuration:" + ShardManager.DEFAULT_LEASE_DURATION + "}") Duration leaseDuration,
+                                   @Value("${cmcc.sharding.renewInterval:" + ShardManager.DEFAULT_RENEW_INTERVAL + "}") Duration renewInterval) {
+    if (!enabled) {
+      return ShardManager.disabled();
+    }
+    if (identity.isBlank()) {
+      throw new IllegalArgumentException("cmcc.sharding.identity must be set to a name unique to this replica, for example the name of the pod");
+    }
+    ShardManager shardManager = new ShardManager(kubernetesClient,
+            namespace.isBlank() ? kubernetesClient.getNamespace() : namespace,
+            identity, group, leaseDuration, renewInterval, meterRegistry);
+    shardManager.start();
+    return shardManager;
+  }
+
+  @Bean
+  public ReconcileMetrics reconcileMetrics(MeterRegistry meterRegistry) {
+    return new ReconcileMetrics(meterRegistry);
+  }
+
+  @Bean
+  public HttpClient.Factory httpClientFactory(ReconcileMetrics reconcileMetrics) {
+    return new InstrumentedHttpClientFactory(HttpClientUtils.getHttpClientFactory(),
+            new ApiCallInterceptor(reconcileMetrics.getApiCallAccounting()));
   }
 
   @Bean
@@ -73,8 +199,26 @@ public class CMCCOperatorApplication {
   }
 
   @Bean
-  public ResourceReconcilerManager resourceReconciler(@SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") KubernetesClient kubernetesClient) {
-    return new ResourceReconcilerManager(kubernetesClient);
+  public OwnedResourceCache ownedResourceCache(@SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") KubernetesClient kubernetesClient,
+                                               @Value("${cmcc.useInformerCache:true}") boolean useInformerCache) {
+    return new OwnedResourceCache(kubernetesClient, useInformerCache);
+  }
+
+  @Bean
+  public ResourceReconcilerManager resourceReconciler(@SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") KubernetesClient kubernetesClient,
+                                                      OwnedResourceCache ownedResourceCache,
+                                                      @Value("${cmcc.serverSideApply.enabled:false}") boolean serverSideApply,
+                                                      @Value("${cmcc.serverSideApply.fieldManager:" + ServerSideApplier.DEFAULT_FIELD_MANAGER + "}") String fieldManager,
+                                                      @Value("${cmcc.serverSideApply.forceConflicts:false}") boolean forceConflicts,
+                                                      @Value("${cmcc.apply.parallelism:" + ResourceReconcilerManager.DEFAULT_PARALLELISM + "}") int parallelism) {
+    return new ResourceReconcilerManager(kubernetesClient, ownedResourceCache,
+            serverSideApply ? new ServerSideApplier(kubernetesClient, ownedResourceCache, fieldManager, forceConflicts) : null,
+            parallelism);
+  }
+
+  @Bean
+  public ReconcilePlanEndpoint reconcilePlanEndpoint(ResourceReconcilerManager resourceReconcilerManager) {
+    return new ReconcilePlanEndpoint(resourceReconcilerManager);
   }
 
   @Bean
@@ -103,14 +247,54 @@ public class CMCCOperatorApplication {
                                                ResourceNamingProviderFactory resourceNamingProviderFactory,
                                                ResourceReconcilerManager resourceReconcilerManager,
                                                List<UrlMappingBuilderFactory> urlMappingBuilderFactories,
-                                               YamlMapper yamlMapper) {
+                                               YamlMapper yamlMapper,
+                                               ReconcileMetrics reconcileMetrics,
+                                               PodTaskRunner podTaskRunner,
+                                               DeletedResourcePruner deletedResourcePruner,
+                                               @Value("${cmcc.verifyPodTemplates:off}") String verifyPodTemplates) {
+    var urlMappingBuilderFactoriesByName = urlMappingBuilderFactories.stream().collect(Collectors.toMap(UrlMappingBuilderFactory::getName, Function.identity()));
+    var targetStateFactory = new DefaultTargetStateFactory(beanFactory,
+            kubernetesClient,
+            resourceNamingProviderFactory,
+            resourceReconcilerManager,
+            urlMappingBuilderFactoriesByName,
+            yamlMapper,
+            reconcileMetrics,
+            podTaskRunner);
 
-    return new DefaultTargetStateFactory(beanFactory,
+    var mode = VerifyingTargetStateFactory.Mode.of(verifyPodTemplates);
+    if (mode == VerifyingTargetStateFactory.Mode.OFF) {
+      return targetStateFactory;
+    }
+    // the builds for the verification are not recorded in the exported metrics
+    var verificationFactory = new DefaultTargetStateFactory(beanFactory,
             kubernetesClient,
             resourceNamingProviderFactory,
             resourceReconcilerManager,
-            urlMappingBuilderFactories.stream().collect(Collectors.toMap(UrlMappingBuilderFactory::getName, Function.identity())),
-            yamlMapper);
+            urlMappingBuilderFactoriesByName,
+            yamlMapper,
+            ReconcileMetrics.unexported(),
+            podTaskRunner);
+    var verifyingTargetStateFactory = new VerifyingTargetStateFactory(targetStateFactory, verificationFactory, mode, reconcileMetrics);
+    deletedResourcePruner.addState(verifyingTargetStateFactory);
+    return verifyingTargetStateFactory;
+  }
+
+  @Bean
+  @ConditionalOnProperty(value = "cmcc.podHttp.enabled", havingValue = "true")
+  public PodHttpClient podHttpClient(@Value("${cmcc.podHttp.connectTimeout:" + PodHttpClient.DEFAULT_CONNECT_TIMEOUT + "}") Duration connectTimeout,
+                                     @Value("${cmcc.podHttp.requestTimeout:" + PodHttpClient.DEFAULT_REQUEST_TIMEOUT + "}") Duration requestTimeout) {
+    return new PodHttpClient(connectTimeout, requestTimeout);
+  }
+
+  @Bean
+  public PodTaskRunner podTaskRunner(@Value("${cmcc.podTasks.threads:" + PodTaskRunner.DEFAULT_THREADS + "}") int threads,
+                                     @Value("${cmcc.podTasks.commandTimeout:" + PodTaskRunner.DEFAULT_COMMAND_TIMEOUT + "}") Duration commandTimeout,
+                                     @Value("${cmcc.podTasks.deadline:" + PodTaskRunner.DEFAULT_DEADLINE + "}") Duration deadline,
+                                     @Value("${cmcc.podTasks.maxAttempts:" + PodTaskRunner.DEFAULT_MAX_ATTEMPTS + "}") int maxAttempts,
+                                     @Value("${cmcc.podTasks.retryDelay:" + PodTaskRunner.DEFAULT_RETRY_DELAY + "}") Duration retryDelay,
+                                     @Value("${cmcc.podTasks.pollInterval:" + PodTaskRunner.DEFAULT_POLL_INTERVAL + "}") Duration pollInterval) {
+    return new PodTaskRunner(threads, commandTimeout, deadline, maxAttempts, retryDelay, pollInterval);
   }
 
   @Bean
@@ -10,31 +10,28 @@
 
 package com.tsystemsmms.cmcc.cmccoperator;
 
-import com.tsystemsmms.cmcc.cmccoperator.components.job.JobComponent;
-import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
 import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudStatus;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.ConfigMapCustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.ConfigMapParseCache;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
+import com.tsystemsmms.cmcc.cmccoperator.resource.OwnedResourceCache;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.ReconcileScheduler;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.ShardManager;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetStateFactory;
 import com.tsystemsmms.cmcc.cmccoperator.utils.NamespaceFilter;
-import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.HasMetadata;
-import io.fabric8.kubernetes.api.model.apps.StatefulSet;
-import io.fabric8.kubernetes.api.model.batch.v1.Job;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.javaoperatorsdk.operator.api.config.informer.Informer;
-import io.javaoperatorsdk.operator.api.config.informer.InformerEventSourceConfiguration;
 import io.javaoperatorsdk.operator.api.reconciler.*;
 import io.javaoperatorsdk.operator.processing.event.source.EventSource;
-import io.javaoperatorsdk.operator.processing.event.source.informer.InformerEventSource;
-import io.javaoperatorsdk.operator.processing.event.source.informer.Mappers;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
-
-import static com.tsystemsmms.cmcc.cmccoperator.CoreMediaContentCloudReconciler.OPERATOR_SELECTOR_LABELS;
+import java.util.Optional;
 
 @ControllerConfiguration(name = "CoreMediaContentCloudReconciler",
         // filter needed for excludes, includes are already handled in CMCCOperatorApplication
@@ -48,22 +45,65 @@ public class CmccConfigMapReconciler implements Reconciler<ConfigMap> {
     private final TargetStateFactory targetStateFactory;
     private final YamlMapper yamlMapper;
     private final NamespaceFilter<HasMetadata> namespaceFilter;
+    private final OwnedResourceCache resourceCache;
+    private final ReconcileMetrics reconcileMetrics;
+    private final ReconcileScheduler reconcileScheduler;
+    private final ShardManager shardManager;
+    private final DeletedResourcePruner deletedResourcePruner;
+    private final ConfigMapParseCache parseCache;
 
-    public CmccConfigMapReconciler(KubernetesClient kubernetesClient, TargetStateFactory targetStateFactory, YamlMapper yamlMapper, NamespaceFilter<HasMetadata> namespaceFilter) {
+    public CmccConfigMapReconciler(KubernetesClient kubernetesClient, TargetStateFactory targetStateFactory, YamlMapper yamlMapper, NamespaceFilter<HasMetadata> namespaceFilter, OwnedResourceCache resourceCache, ReconcileMetrics reconcileMetrics, ReconcileScheduler reconcileScheduler, ShardManager shardManager, DeletedResourcePruner deletedResourcePruner) {
         this.kubernetesClient = kubernetesClient;
         this.targetStateFactory = targetStateFactory;
         this.yamlMapper = yamlMapper;
         this.namespaceFilter = namespaceFilter;
+        this.resourceCache = resourceCache;
+        this.reconcileMetrics = reconcileMetrics;
+        this.reconcileScheduler = reconcileScheduler;
+        this.shardManager = shardManager;
+        this.deletedResourcePruner = deletedResourcePruner;
+        this.parseCache = new ConfigMapParseCache(yamlMapper);
         log.info("Using ConfigMap with label {} for configuration", SELECTOR_LABEL);
     }
 
     @Override
     public UpdateControl<ConfigMap> reconcile(ConfigMap cm, Context context) {
-        ConfigMapCustomResource cmcc = new ConfigMapCustomResource(cm, yamlMapper);
+        if (!shardManager.isResponsibleFor(cm.getMetadata().getNamespace())) {
+            if (!shardManager.hasJoined()) {
+                // we do not know the other replicas yet, so we cannot tell who is responsible
+                return UpdateControl.<ConfigMap>noUpdate().rescheduleAfter(shardManager.getRenewInterval().toMillis());
+            }
+            // another replica of the operator reconciles this ConfigMap
+            return UpdateControl.noUpdate();
+        }
+
+        ConfigMapCustomResource cmcc = new ConfigMapCustomResource(cm, parseCache);
+        Optional<ReconcileScheduler.Permit> permit = reconcileScheduler.tryAcquire(cm.getMetadata().getNamespace(), cm.getMetadata().getName(), cmcc.getStatus().getMilestone());
+        if (permit.isEmpty()) {
+            // other custom resources are being reconciled, try again later instead of blocking this thread
+            return UpdateControl.<ConfigMap>noUpdate().rescheduleAfter(reconcileScheduler.getRetryDelay().toMillis());
+        }
+
+        ReconcileMetrics.Reconciliation reconciliation = reconcileMetrics.startReconcile(cm.getMetadata().getNamespace(), cm.getMetadata().getName());
+        RuntimeException error = null;
+        try (ReconcileScheduler.Permit ignored = permit.get()) {
+            return reconcileConfigMap(cm, cmcc);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            reconciliation.stop(error);
+        }
+    }
+
+    private UpdateControl<ConfigMap> reconcileConfigMap(ConfigMap cm, ConfigMapCustomResource cmcc) {
         CoreMediaContentCloudStatus status = cmcc.getStatus();
 
         TargetState targetState = targetStateFactory.buildTargetState(cmcc);
         targetState.reconcile();
+        if (targetState.isDryRun()) {
+            return UpdateControl.noUpdate();
+        }
 
         status.setError("");
         status.setErrorMessage("");
@@ -71,39 +111,31 @@ public class CmccConfigMapReconciler implements Reconciler<ConfigMap> {
             cmcc.getSpec().setJob("");
         }
         cmcc.setStatus(status);
-        cmcc.updateResource();
-        return UpdateControl.patchResource(cm);
+        if (!cmcc.updateResourceIfChanged()) {
+            // writing the same spec and status again would only cause another event
+            return CoreMediaContentCloudReconciler.rescheduleIfRequested(targetState, UpdateControl.noUpdate());
+        }
+        return CoreMediaContentCloudReconciler.rescheduleIfRequested(targetState, UpdateControl.patchResource(cm));
     }
 
     @Override
     public ErrorStatusUpdateControl<ConfigMap> updateErrorStatus(ConfigMap cm, Context<ConfigMap> context, Exception e) {
-        ConfigMapCustomResource cmcc = new ConfigMapCustomResource(cm, yamlMapper);
+        ConfigMapCustomResource cmcc = new ConfigMapCustomResource(cm, parseCache);
         CoreMediaContentCloudStatus status = cmcc.getStatus();
 
         status.setErrorMessage(e.getMessage());
         status.setError("error");
         cmcc.setStatus(status);
-        cmcc.updateResource();
+        if (!cmcc.updateResourceIfChanged()) {
+            return ErrorStatusUpdateControl.noStatusUpdate();
+        }
         return ErrorStatusUpdateControl.patchStatus(cm);
     }
 
     @Override
     public List<EventSource<?, ConfigMap>> prepareEventSources(EventSourceContext<ConfigMap> context) {
-        return List.of(
-                new InformerEventSource<>(
-                        InformerEventSourceConfiguration.from(Job.class, CoreMediaContentCloud.class)
-                                .withGenericFilter(namespaceFilter)
-                                .withLabelSelector(Utils.selectorFromLabels(JobComponent.getJobLabels()))
-                                .withSecondaryToPrimaryMapper(Mappers.fromOwnerReferences(CoreMediaContentCloud.class))
-                                .build(),
-                        context),
-                new InformerEventSource<>(
-                        InformerEventSourceConfiguration.from(StatefulSet.class, CoreMediaContentCloud.class)
-                                .withGenericFilter(namespaceFilter)
-                                .withLabelSelector(Utils.selectorFromLabels(OPERATOR_SELECTOR_LABELS))
-                                .withSecondaryToPrimaryMapper(Mappers.fromOwnerReferences(CoreMediaContentCloud.class))
-                                .build(),
-                        context)
-        );
+        var eventSources = resourceCache.prepareEventSources(context, ConfigMap.class, namespaceFilter);
+        deletedResourcePruner.watch(context.getPrimaryCache());
+        return eventSources;
     }
 }
@@ -10,27 +10,25 @@
 
 package com.tsystemsmms.cmcc.cmccoperator;
 
-import com.tsystemsmms.cmcc.cmccoperator.components.job.JobComponent;
 import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
 import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudStatus;
 import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.CrdCustomResource;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
+import com.tsystemsmms.cmcc.cmccoperator.resource.OwnedResourceCache;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.ReconcileScheduler;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.ShardManager;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetStateFactory;
 import com.tsystemsmms.cmcc.cmccoperator.utils.NamespaceFilter;
-import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import io.fabric8.kubernetes.api.model.HasMetadata;
-import io.fabric8.kubernetes.api.model.apps.StatefulSet;
-import io.fabric8.kubernetes.api.model.batch.v1.Job;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.javaoperatorsdk.operator.api.config.informer.Informer;
-import io.javaoperatorsdk.operator.api.config.informer.InformerEventSourceConfiguration;
 import io.javaoperatorsdk.operator.api.reconciler.*;
 import io.javaoperatorsdk.operator.processing.event.source.EventSource;
 import io.javaoperatorsdk.operator.processing.event.source.filter.OnUpdateFilter;
-import io.javaoperatorsdk.operator.processing.event.source.informer.InformerEventSource;
-import io.javaoperatorsdk.operator.processing.event.source.informer.Mappers;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
@@ -48,11 +46,23 @@ public class CoreMediaContentCloudReconciler implements Reconciler<CoreMediaCont
   private final KubernetesClient kubernetesClient;
   private final TargetStateFactory targetStateFactory;
   private final NamespaceFilter<HasMetadata> namespaceFilter;
-
-  public CoreMediaContentCloudReconciler(KubernetesClient kubernetesClient, TargetStateFactory targetStateFactory, NamespaceFilter<HasMetadata> namespaceFilter) {
+  private final OwnedResourceCache resourceCache;
+  private final ReconcileMetrics reconcileMetrics;
+  private final ReconcileScheduler reconcileScheduler;
+  private final ShardManager shardManager;
+  private final DeletedResourcePruner deletedResourcePruner;
+  private final ResourceVersionWatermark resourceVersionWatermark = new ResourceVersionWatermark();
+
+  public CoreMediaContentCloudReconciler(KubernetesClient kubernetesClient, TargetStateFactory targetStateFactory, NamespaceFilter<HasMetadata> namespaceFilter, OwnedResourceCache resourceCache, ReconcileMetrics reconcileMetrics, ReconcileScheduler reconcileScheduler, ShardManager shardManager, DeletedResourcePruner deletedResourcePruner) {
     this.kubernetesClient = kubernetesClient;
     this.targetStateFactory = targetStateFactory;
     this.namespaceFilter = namespaceFilter;
+    this.resourceCache = resourceCache;
+    this.reconcileMetrics = reconcileMetrics;
+    this.reconcileScheduler = reconcileScheduler;
+    this.shardManager = shardManager;
+    this.deletedResourcePruner = deletedResourcePruner;
+    deletedResourcePruner.addState(resourceVersionWatermark);
     var namespaceLogMsg = NamespaceFilter.getLogMessage();
     log.info("Using custom resource {} for configuration{}{}", CoreMediaContentCloud.class.getSimpleName(),
             namespaceLogMsg.isEmpty() ? "" : ", ", namespaceLogMsg);
@@ -61,28 +71,57 @@ public class CoreMediaContentCloudReconciler implements Reconciler<CoreMediaCont
   @Override
   public UpdateControl<CoreMediaContentCloud> reconcile(CoreMediaContentCloud cmcc, Context context) {
 
+    if (!shardManager.isResponsibleFor(cmcc.getMetadata().getNamespace())) {
+      if (!shardManager.hasJoined()) {
+        // we do not know the other replicas yet, so we cannot tell who is responsible
+        return UpdateControl.<CoreMediaContentCloud>noUpdate().rescheduleAfter(shardManager.getRenewInterval().toMillis());
+      }
+      // another replica of the operator reconciles this custom resource
+      return UpdateControl.noUpdate();
+    }
+
     if (context.isNextReconciliationImminent()) {
       // there is already another event, skip here and go for the next one!
       return UpdateControl.noUpdate();
     }
 
-    var latestCmccFromKube = kubernetesClient.resource(cmcc).get();
-    if (latestCmccFromKube != null && !Utils.deepEquals(latestCmccFromKube.getStatus(), cmcc.getStatus())) {
-      // compare with current state from cluster: When already changed again, we are far too late with this event: skip it
-      // this can happen when the OP needs a long time to reconcile. In the meantime events pile up that get more and more outdated.
-      // Finally, when they are handled then they represent an old state that would harm as i.e. the milestone would be flapping backwards
-      // There seems to be no other way to recognize this than comparing with current kube state
-      log.trace("Skipping outdated event as status has already changed again:\nLatest: {}\nFrom Event: {}",
-              latestCmccFromKube.getStatus(),
-              cmcc.getStatus());
+    if (!resourceVersionWatermark.advance(cmcc)) {
+      // a newer version has already been reconciled, so the status of this one is outdated
+      log.trace("[{}/{}] Skipping outdated version, generation {}, resourceVersion {}", cmcc.getMetadata().getNamespace(), cmcc.getMetadata().getName(),
+              cmcc.getMetadata().getGeneration(), cmcc.getMetadata().getResourceVersion());
+      reconcileMetrics.recordStaleEvent();
       return UpdateControl.noUpdate();
     }
 
-    CustomResource deepCopy = new CrdCustomResource(Utils.deepClone(cmcc, CoreMediaContentCloud.class));
+    Milestone milestone = cmcc.getStatus() == null ? null : cmcc.getStatus().getMilestone();
+    Optional<ReconcileScheduler.Permit> permit = reconcileScheduler.tryAcquire(cmcc.getMetadata().getNamespace(), cmcc.getMetadata().getName(), milestone);
+    if (permit.isEmpty()) {
+      // other custom resources are being reconciled, try again later instead of blocking this thread
+      return UpdateControl.<CoreMediaContentCloud>noUpdate().rescheduleAfter(reconcileScheduler.getRetryDelay().toMillis());
+    }
+
+    ReconcileMetrics.Reconciliation reconciliation = reconcileMetrics.startReconcile(cmcc.getMetadata().getNamespace(), cmcc.getMetadata().getName());
+    RuntimeException error = null;
+    try (ReconcileScheduler.Permit ignored = permit.get()) {
+      return reconcileCurrentEvent(cmcc);
+    } catch (RuntimeException e) {
+      error = e;
+      throw e;
+    } finally {
+      reconciliation.stop(error);
+    }
+  }
+
+  private UpdateControl<CoreMediaContentCloud> reconcileCurrentEvent(CoreMediaContentCloud cmcc) {
+    CustomResource deepCopy = new CrdCustomResource(new CoreMediaContentCloud(cmcc));
     CoreMediaContentCloudStatus status = deepCopy.getStatus();
 
     TargetState targetState = targetStateFactory.buildTargetState(deepCopy);
     targetState.reconcile();
+    if (targetState.isDryRun()) {
+      // nothing has been changed in the cluster, so the status must not change either
+      return UpdateControl.noUpdate();
+    }
 
     status.setError("");
     status.setErrorMessage("");
@@ -103,7 +142,7 @@ public class CoreMediaContentCloudReconciler implements Reconciler<CoreMediaCont
       cmcc.getSpec().setScaling(deepCopy.getSpec().getScaling());
       specChanged = true;
     }
-    if (!Utils.deepEquals(status, cmcc.getStatus())) {
+    if (!Objects.equals(status, cmcc.getStatus())) {
       statusChanged = true;
     }
 
@@ -119,10 +158,20 @@ public class CoreMediaContentCloudReconciler implements Reconciler<CoreMediaCont
       if (!statusChanged) result = UpdateControl.patchResource(cmcc); // status did not? spec only
       if (!specChanged) result = UpdateControl.patchStatus(cmcc); // spec did not? status only
 
-      return result;
+      return rescheduleIfRequested(targetState, result);
     }
 
-    return UpdateControl.noUpdate();
+    return rescheduleIfRequested(targetState, UpdateControl.noUpdate());
+  }
+
+  /**
+   * While components wait for operations in pods or for a restart to be rolled out, come back to pick up the outcome
+   * instead of waiting for it.
+   */
+  static <T extends HasMetadata> UpdateControl<T> rescheduleIfRequested(TargetState targetState, UpdateControl<T> control) {
+    return targetState.getRescheduleDelay()
+            .map(delay -> control.rescheduleAfter(delay.toMillis()))
+            .orElse(control);
   }
 
   @Override
@@ -136,22 +185,9 @@ public class CoreMediaContentCloudReconciler implements Reconciler<CoreMediaCont
 
   @Override
   public List<EventSource<?, CoreMediaContentCloud>> prepareEventSources(EventSourceContext<CoreMediaContentCloud> context) {
-    return List.of(
-        new InformerEventSource<>(
-            InformerEventSourceConfiguration.from(Job.class, CoreMediaContentCloud.class)
-              .withGenericFilter(namespaceFilter)
-              .withLabelSelector(Utils.selectorFromLabels(JobComponent.getJobLabels()))
-              .withSecondaryToPrimaryMapper(Mappers.fromOwnerReferences(CoreMediaContentCloud.class))
-              .build(),
-            context),
-        new InformerEventSource<>(
-            InformerEventSourceConfiguration.from(StatefulSet.class, CoreMediaContentCloud.class)
-              .withGenericFilter(namespaceFilter)
-              .withLabelSelector(Utils.selectorFromLabels(OPERATOR_SELECTOR_LABELS))
-              .withSecondaryToPrimaryMapper(Mappers.fromOwnerReferences(CoreMediaContentCloud.class))
-              .build(),
-            context)
-    );
+    var eventSources = resourceCache.prepareEventSources(context, CoreMediaContentCloud.class, namespaceFilter);
+    deletedResourcePruner.watch(context.getPrimaryCache());
+    return eventSources;
   }
 
   static class OnUpdateGenerationAndStatusAwareFilter implements OnUpdateFilter<HasMetadata> {
@@ -167,11 +203,21 @@ public class CoreMediaContentCloudReconciler implements Reconciler<CoreMediaCont
         return true;
       }
 
+      // switching a dry run on or off does not change the generation
+      if (!Objects.equals(getDryRunAnnotation(oldResource), getDryRunAnnotation(newResource))) {
+        return true;
+      }
+
       if (oldResource instanceof CoreMediaContentCloud cmcc && newResource instanceof CoreMediaContentCloud newCmcc) {
-        return !Utils.deepEquals(cmcc.getStatus(), newCmcc.getStatus());
+        return !Objects.equals(cmcc.getStatus(), newCmcc.getStatus());
       }
 
       return false;
     }
+
+    private static String getDryRunAnnotation(HasMetadata resource) {
+      var annotations = resource.getMetadata().getAnnotations();
+      return annotations == null ? null : annotations.get(TargetState.DRY_RUN_ANNOTATION);
+    }
   }
 }
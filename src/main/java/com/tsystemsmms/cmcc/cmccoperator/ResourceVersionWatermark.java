@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which version of each custom resource has been reconciled, to recognize outdated ones, for example when
+ * the informer has relisted from an API server that lags behind: its status is older than the one written by a previous
+ * reconciliation, and acting on it would move the milestone backwards.
+ * <p>
+ * The resourceVersion is opaque and cannot be used to order versions. Instead, a custom resource is outdated if its
+ * metadata.generation is lower than the one already reconciled, or if it has the same generation and its status is one
+ * that has already been superseded by a later status. Statuses are compared by their hash codes.
+ */
+class ResourceVersionWatermark implements DeletedResourcePruner.PerResourceState {
+  static final int SUPERSEDED_STATUSES = 16;
+
+  private final Map<ResourceID, Watermark> watermarks = new ConcurrentHashMap<>();
+
+  /**
+   * Raise the watermark to the version of the custom resource about to be reconciled.
+   *
+   * @param cmcc the custom resource
+   * @return false if a newer version of the custom resource has already been reconciled
+   */
+  boolean advance(CoreMediaContentCloud cmcc) {
+    long generation = Objects.requireNonNullElse(cmcc.getMetadata().getGeneration(), 0L);
+    int status = Objects.hashCode(cmcc.getStatus());
+    boolean[] current = {true};
+
+    watermarks.compute(ResourceID.fromResource(cmcc), (id, watermark) -> {
+      if (watermark == null || generation > watermark.generation)
+        return new Watermark(generation, status);
+      if (generation < watermark.generation || watermark.superseded.contains(status)) {
+        current[0] = false;
+        return watermark;
+      }
+      watermark.advance(status);
+      return watermark;
+    });
+    return current[0];
+  }
+
+  @Override
+  public void retainExisting(DeletedResourcePruner.ExistingResources existing) {
+    watermarks.keySet().removeIf(id -> !existing.contains(id.getNamespace().orElse(null), id.getName()));
+  }
+
+  private static class Watermark {
+    private final long generation;
+    private final Deque<Integer> superseded = new ArrayDeque<>();
+    private int status;
+
+    Watermark(long generation, int status) {
+      this.generation = generation;
+      this.status = status;
+    }
+
+    void advance(int status) {
+      if (status == this.status)
+        return;
+      superseded.addLast(this.status);
+      if (superseded.size() > SUPERSEDED_STATUSES)
+        superseded.removeFirst();
+      this.status = status;
+    }
+  }
+}
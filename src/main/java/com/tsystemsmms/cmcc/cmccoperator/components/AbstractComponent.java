@@ -10,8 +10,11 @@
 
 package com.tsystemsmms.cmcc.cmccoperator.components;
 
+import com.tsystemsmms.cmcc.cmccoperator.components.generic.MySQLComponent;
+import com.tsystemsmms.cmcc.cmccoperator.components.generic.SolrComponent;
 import com.tsystemsmms.cmcc.cmccoperator.crds.*;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.targetstate.CustomResourceConfigError;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.VersioningTargetState;
 import com.tsystemsmms.cmcc.cmccoperator.utils.EnvVarSet;
@@ -28,13 +31,20 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.tsystemsmms.cmcc.cmccoperator.crds.Milestone.Ready;
 import static com.tsystemsmms.cmcc.cmccoperator.crds.Milestone.compareTo;
@@ -63,6 +73,14 @@ public abstract class AbstractComponent implements Component {
   @Getter
   final Map<String, String> schemas = new HashMap<>();
 
+  /**
+   * Sends web requests to the pods directly, if cmcc.podHttp.enabled is set. If not set, or if the pods cannot be
+   * reached, web requests are run with curl in the pod.
+   */
+  @Setter
+  @Autowired(required = false)
+  PodHttpClient podHttpClient;
+
   public AbstractComponent(KubernetesClient kubernetesClient, TargetState targetState, ComponentSpec componentSpec, String imageRepository) {
     this.kubernetesClient = kubernetesClient;
     this.targetState = targetState;
@@ -99,10 +117,35 @@ public abstract class AbstractComponent implements Component {
     }
     componentSpec.update(newCs);
     schemas.putAll(componentSpec.getSchemas());
+    targetState.getReconcileMemo().invalidate(this);
 
     return this;
   }
 
+  /**
+   * Returns the value from the memo of this reconciliation, computing it if necessary.
+   *
+   * @param name     name of the value
+   * @param supplier computes the value
+   * @param <T>      type of the value
+   * @return the value
+   */
+  protected <T> T memoize(String name, Supplier<T> supplier) {
+    List<Object> key = new ArrayList<>(getMemoKey());
+    key.add(0, name);
+    return targetState.getReconcileMemo().get(this, key, supplier);
+  }
+
+  /**
+   * Returns the state of this component, besides its spec and the status of the custom resource, that memoized values
+   * depend on.
+   *
+   * @return additional key for memoized values
+   */
+  protected List<Object> getMemoKey() {
+    return Collections.singletonList(imageRepository);
+  }
+
   /**
    * Returns the custom resource this component is defined in,
    *
@@ -156,6 +199,10 @@ public abstract class AbstractComponent implements Component {
    * @return the name of the image for the main container for the main pod
    */
   public String getImage() {
+    return memoize("image", this::buildImage);
+  }
+
+  private String buildImage() {
     ImageSpec componentDefault = getDefaultImage();
     ImageSpec defaultImage = Objects.requireNonNullElse(getDefaults().getImage(), new ImageSpec());
     ImageSpec csImage = Objects.requireNonNullElse(componentSpec.getImage(), new ImageSpec());
@@ -215,13 +262,15 @@ public abstract class AbstractComponent implements Component {
    * @return list of labels
    */
   public Map<String, String> getSelectorLabels() {
-    HashMap<String, String> labels = getTargetState().getSelectorLabels();
-    labels.put("cmcc.tsystemsmms.com/name", getTargetState().getResourceNameFor(this));
-    labels.put("cmcc.tsystemsmms.com/type", getComponentSpec().getType());
-    if (!isEmpty(getComponentSpec().getKind())) {
-      labels.put("cmcc.tsystemsmms.com/kind", getComponentSpec().getKind());
-    }
-    return labels;
+    return new HashMap<>(memoize("selectorLabels", () -> {
+      HashMap<String, String> labels = getTargetState().getSelectorLabels();
+      labels.put("cmcc.tsystemsmms.com/name", getTargetState().getResourceNameFor(this));
+      labels.put("cmcc.tsystemsmms.com/type", getComponentSpec().getType());
+      if (!isEmpty(getComponentSpec().getKind())) {
+        labels.put("cmcc.tsystemsmms.com/kind", getComponentSpec().getKind());
+      }
+      return labels;
+    }));
   }
 
   /**
@@ -230,9 +279,11 @@ public abstract class AbstractComponent implements Component {
    * @return list of labels
    */
   public Map<String, String> getSelectorLabelsWithVersion() {
-    HashMap<String, String> labels = getTargetState().getSelectorLabelsWithVersion();
-    labels.putAll(getSelectorLabels());
-    return labels;
+    return new HashMap<>(memoize("selectorLabelsWithVersion", () -> {
+      HashMap<String, String> labels = getTargetState().getSelectorLabelsWithVersion();
+      labels.putAll(getSelectorLabels());
+      return labels;
+    }));
   }
 
   /**
@@ -317,7 +368,7 @@ public abstract class AbstractComponent implements Component {
    * @return the created StatefulSet.
    */
   public StatefulSet buildStatefulSet(int replicas, int partition) {
-    EnvVarSet env = getEnvVars();
+    EnvVarSet env = getMemoizedEnvVars();
     env.addAll(getComponentSpec().getEnv());
     return buildStatefulSet(replicas, env, partition);
   }
@@ -429,7 +480,7 @@ public abstract class AbstractComponent implements Component {
   }
 
   public List<Container> buildContainers() {
-    EnvVarSet env = getEnvVars();
+    EnvVarSet env = getMemoizedEnvVars();
     env.addAll(getComponentSpec().getEnv());
     return buildContainers(env);
   }
@@ -506,6 +557,15 @@ public abstract class AbstractComponent implements Component {
     return env;
   }
 
+  /**
+   * Returns a copy of the env vars from {@link #getEnvVars()}, computing them only once per reconciliation.
+   *
+   * @return env vars
+   */
+  public EnvVarSet getMemoizedEnvVars() {
+    return new EnvVarSet(memoize("envVars", this::getEnvVars));
+  }
+
   public List<Container> getInitContainers() {
     return new LinkedList<>();
   }
@@ -608,7 +668,7 @@ public abstract class AbstractComponent implements Component {
    * @return security context
    */
   public SecurityContext getSecurityContext() {
-    return Utils.mergeObjects(SecurityContext.class,
+    return getTargetState().getObjectMerger().merge(SecurityContext.class,
             new SecurityContextBuilder()
                     .withReadOnlyRootFilesystem(true)
                     .build(),
@@ -623,7 +683,7 @@ public abstract class AbstractComponent implements Component {
    */
   @SneakyThrows
   public PodSecurityContext getPodSecurityContext() {
-    return Utils.mergeObjects(PodSecurityContext.class,
+    return getTargetState().getObjectMerger().merge(PodSecurityContext.class,
             new PodSecurityContextBuilder()
                     .withRunAsUser(getUserId())
                     .withRunAsGroup(getUserId())
@@ -656,15 +716,12 @@ public abstract class AbstractComponent implements Component {
   }
 
   protected ComponentState getStatefulSetState(String name) {
-    var stsResource = kubernetesClient.apps().statefulSets().inNamespace(getCmcc().getMetadata().getNamespace()).withName(name);
-
-    // isReady also implies get(), ergo: check get() first
-    var sts = stsResource.get();
+    var sts = getTargetState().getClusterSnapshot().getStatefulSet(name).orElse(null);
     if (sts == null) {
       return ComponentState.NotApplicable;
     }
 
-    if (!Readiness.getInstance().isReady(sts)) { // similar to stsResource.isReady() but saves a REST call
+    if (!Readiness.getInstance().isReady(sts)) {
       return ComponentState.WaitingForReadiness;
     }
 
@@ -712,6 +769,24 @@ public abstract class AbstractComponent implements Component {
     // default component does not reference any resources.
   }
 
+  /**
+   * The client secrets for the databases and Solr are built from the service names of the respective components.
+   */
+  @Override
+  public ComponentDependencies getDependencies() {
+    ComponentDependencies dependencies = ComponentDependencies.NONE;
+    if (this instanceof HasJdbcClient) {
+      dependencies = dependencies.withComponents(MySQLComponent.MYSQL);
+    }
+    if (this instanceof HasMongoDBClient) {
+      dependencies = dependencies.withComponents("mongodb");
+    }
+    if (this instanceof HasSolrClient) {
+      dependencies = dependencies.withComponents(SolrComponent.SOLR);
+    }
+    return dependencies;
+  }
+
   /**
    * Set default values for schemas. The defaults are set if schemas does not contain an entry for the respective key.
    *
@@ -761,53 +836,196 @@ public abstract class AbstractComponent implements Component {
     return compareTo(getCmcc().getStatus().getMilestone(), getComponentSpec().getMilestone()) >= 0;
   }
 
-  protected ExecutionResult executeWebRequest(PodResource pod, String url) {
+  protected CompletableFuture<ExecutionResult> executeWebRequest(PodResource pod, String url) {
     return this.executeWebRequest(pod, url, true);
   }
 
-  protected ExecutionResult executeWebRequest(PodResource pod, String url, boolean failOnError) {
+  protected CompletableFuture<ExecutionResult> executeWebRequest(PodResource pod, String url, boolean failOnError) {
     return this.executeWebRequest(pod, url, null, failOnError);
   }
 
-  protected ExecutionResult executeWebRequest(PodResource pod, String url, String authCredentials, boolean failOnError) {
-    return this.executeCommand(pod,   // -s = silent | -f = fail on error -> exit code
-            Utils.format("curl {} -s {} '{}'", authCredentials != null ? "-u " + authCredentials : "", failOnError ? "-f" : "" , url));
+  /**
+   * Send a web request to the pod. Like executeCommand(), this is meant to be called from a pod task, see
+   * runPodTaskAsync().
+   *
+   * @return the result, once the request has completed
+   */
+  protected CompletableFuture<ExecutionResult> executeWebRequest(PodResource pod, String url, String authCredentials, boolean failOnError) {
+    // -s = silent | -f = fail on error -> exit code
+    String curl = Utils.format("curl {} -s {} '{}'", authCredentials != null ? "-u " + authCredentials : "", failOnError ? "-f" : "" , url);
+    return executeDirectWebRequest(pod, "GET", url, authCredentials, null, null, failOnError)
+            .thenCompose(direct -> direct.map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> getTargetState().getPodTaskRunner().supplyAsync(() -> executeCommand(pod, curl))));
+  }
+
+  protected CompletableFuture<ExecutionResult> executePostWebRequest(PodResource pod, String url, String header, String data, boolean failOnError) {
+    // -s = silent | -f = fail on error -> exit code
+    String curl = Utils.format("curl -X POST -s {} {} {} '{}'",
+            failOnError ? "-f" : "" ,
+            header != null ? "--header '" + header  + "'" : "",
+            data != null ? "--data '" + data + "'"  : "",
+            url);
+    return executeDirectWebRequest(pod, "POST", url, null, header, data, failOnError)
+            .thenCompose(direct -> direct.map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> getTargetState().getPodTaskRunner().supplyAsync(() -> executeCommand(pod, curl))));
+  }
+
+  /**
+   * Send a web request to the pod directly, with the same result as curl in the pod would have: with failOnError, an
+   * HTTP error status results in exit code 22, a timeout in exit code 28.
+   * <p>
+   * The IP is taken from the pod as listed by getPods(), so no additional request to the API server is needed. Pods
+   * that have been looked up by name only are addressed with curl.
+   *
+   * @return the result, or empty if the request has to be run with curl in the pod
+   */
+  private CompletableFuture<Optional<ExecutionResult>> executeDirectWebRequest(PodResource pod, String method, String url, String authCredentials, String header, String data, boolean failOnError) {
+    if (header != null && !PodHttpClient.isValidHeader(header)) {
+      throw new CustomResourceConfigError("Component \"" + getSpecName() + "\": header \"" + header + "\" for " + url + " is not in the form \"Name: value\"");
+    }
+    if (podHttpClient == null) {
+      return CompletableFuture.completedFuture(Optional.empty());
+    }
+    if (authCredentials != null && authCredentials.contains("$")) {
+      authCredentials = resolveWebRequestCredentials(authCredentials);
+      if (authCredentials == null) {
+        return CompletableFuture.completedFuture(Optional.empty());
+      }
+    }
+    Pod p = pod.item();
+    String podIp = p == null || p.getStatus() == null ? null : p.getStatus().getPodIP();
+    if (podIp == null || podIp.isEmpty()) {
+      return CompletableFuture.completedFuture(Optional.empty());
+    }
+
+    return podHttpClient.send(podIp, method, url, authCredentials, header, data)
+            .handle((response, e) -> {
+              if (e == null) {
+                log.debug("[{}] {} {} on pod {}: {}", getTargetState().getContextForLogging(), method, url, p.getMetadata().getName(), response.status());
+                int exitCode = failOnError && response.status() >= 400 ? 22 : 0;
+                return Optional.of(new ExecutionResult(pod, null, response.body(), exitCode == 0 ? "" : "HTTP status " + response.status(), exitCode));
+              }
+              Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+              if (PodHttpClient.isUnreachable(cause)) {
+                log.debug("[{}] Unable to reach pod {} at {}, using exec instead: {}", getTargetState().getContextForLogging(), p.getMetadata().getName(), podIp, cause.toString());
+                return Optional.empty();
+              }
+              return Optional.of(new ExecutionResult(pod, null, null, cause.toString(), cause instanceof HttpTimeoutException ? 28 : 7));
+            });
   }
 
-  protected ExecutionResult executePostWebRequest(PodResource pod, String url, String header, String data, boolean failOnError) {
-    return this.executeCommand(pod,   // -s = silent | -f = fail on error -> exit code
-            Utils.format("curl -X POST -s {} {} {} '{}'",
-                    failOnError ? "-f" : "" ,
-                    header != null ? "--header '" + header  + "'" : "",
-                    data != null ? "--data '" + data + "'"  : "",
-                    url));
+  /**
+   * Credentials for web requests may reference environment variables of the pod, which the shell in the pod expands
+   * for curl. To send the request directly, a component can resolve them itself.
+   *
+   * @param authCredentials credentials referencing environment variables
+   * @return the resolved credentials, or null to run the request with curl in the pod
+   */
+  protected String resolveWebRequestCredentials(String authCredentials) {
+    return null;
   }
 
   protected ExecutionResult executeCommand(PodResource pod, String command) {
+    return getTargetState().getReconcileMetrics().timePodCommand(getCmcc(), getComponentSpec().getType(),
+            () -> executeCommandInPod(pod, command));
+  }
+
+  private ExecutionResult executeCommandInPod(PodResource pod, String command) {
     SimpleExecListener listener = new SimpleExecListener();
     ByteArrayOutputStream out = new ByteArrayOutputStream();
     ByteArrayOutputStream err = new ByteArrayOutputStream();
+    Duration timeout = getTargetState().getPodTaskRunner().getCommandTimeout();
 
     var watch = pod.writingOutput(out)
             .writingError(err)
             .usingListener(listener)
             .exec("sh", "-c", command);
 
-    listener.awaitUninterruptable();
+    boolean finished = listener.await(timeout);
+    watch.close();
 
     String stdout = out.toString(StandardCharsets.UTF_8);
     String stderr = err.toString(StandardCharsets.UTF_8).trim();
 
-    log.info("[{}] Command finished on pod {}", getTargetState().getContextForLogging(), pod.get().getMetadata().getName());
+    if (!finished) {
+      log.warn("[{}] Command on pod {} did not finish within {}", getTargetState().getContextForLogging(), getPodName(pod), timeout);
+      return new ExecutionResult(pod, watch, stdout, "Command did not finish within " + timeout, -1);
+    }
+
+    log.info("[{}] Command finished on pod {}", getTargetState().getContextForLogging(), getPodName(pod));
     log.trace("[{}] Process out:\n{}", getTargetState().getContextForLogging(), stdout);
     if (!stderr.isEmpty()) {
         log.debug("[{}] Process err:\n{}", getTargetState().getContextForLogging(), stderr);
     }
-    watch.close();
 
     return new ExecutionResult(pod, watch, stdout, stderr, watch.exitCode().getNow(null));
   }
 
+  /**
+   * Returns the pods of this component.
+   *
+   * @return the pods
+   */
+  protected List<PodResource> getPods() {
+    var pods = getTargetState().getKubernetesClient().pods().inNamespace(getNamespace());
+    // keep the listed pods, so that their names and IPs can be used without reading them again
+    return pods.withLabels(getSelectorLabels())
+            .list()
+            .getItems().stream()
+            .map(pods::resource)
+            .toList();
+  }
+
+  /**
+   * Returns the name of the pod, without reading it again if it has been listed by getPods().
+   *
+   * @param pod the pod
+   * @return the name
+   */
+  protected static String getPodName(PodResource pod) {
+    Pod p = pod.item();
+    return p != null ? p.getMetadata().getName() : pod.get().getMetadata().getName();
+  }
+
+  /**
+   * Run an action in the pods of this component in the background, see PodTaskRunner. The first call starts the task,
+   * later calls return its outcome. While the task is running, the reconciliation is rescheduled, so the outcome is
+   * picked up by one of the next reconciliations. In a dry run, the task is not started.
+   *
+   * @param name   name of the task, unique within this component
+   * @param pods   the pods to run the action on
+   * @param action the action, run for each pod in parallel; fails by throwing an exception
+   * @return the outcome of the task
+   */
+  protected PodTaskRunner.Outcome runPodTask(String name, Supplier<? extends Collection<PodResource>> pods, Consumer<PodResource> action) {
+    return runPodTaskAsync(name, pods, pod -> {
+      action.accept(pod);
+      return CompletableFuture.completedFuture(null);
+    });
+  }
+
+  /**
+   * Like runPodTask(), for actions that complete asynchronously, like executeWebRequest(). No thread waits for the
+   * response while the request is in flight.
+   *
+   * @param name   name of the task, unique within this component
+   * @param pods   the pods to run the action on
+   * @param action the action, started for each pod in parallel; fails by completing the future exceptionally
+   * @return the outcome of the task
+   */
+  protected PodTaskRunner.Outcome runPodTaskAsync(String name, Supplier<? extends Collection<PodResource>> pods, Function<PodResource, CompletableFuture<Void>> action) {
+    if (getTargetState().isDryRun()) {
+      log.info("[{}] Dry run, not running {} in pods", getTargetState().getContextForLogging(), name);
+      return PodTaskRunner.Outcome.RUNNING;
+    }
+    String key = String.join("/", getNamespace(), getCmcc().getMetadata().getName(), getTargetState().getResourceNameFor(this), name);
+    var outcome = getTargetState().getPodTaskRunner().runAsync(key, pods, action);
+    if (outcome.isRunning()) {
+      getTargetState().setPodTaskPending();
+    }
+    return outcome;
+  }
+
   @AllArgsConstructor
   @SuppressWarnings("java:S1104")
   public static class ExecutionResult {
@@ -820,7 +1038,7 @@ public abstract class AbstractComponent implements Component {
 
   private Affinity handleLabelReferences(Affinity affinity) {
     if (affinity != null) {
-      affinity = Utils.deepClone(affinity, Affinity.class);
+      affinity = new AffinityBuilder(affinity).build();
       handleLabelReferences(affinity.getPodAffinity());
       handleLabelReferences(affinity.getPodAntiAffinity());
       handleLabelReferences(affinity.getNodeAffinity());
@@ -153,6 +153,16 @@ public interface Component {
    */
   void requestRequiredResources();
 
+  /**
+   * What the resources requested in requestRequiredResources() depend on, besides the spec of this component. The
+   * target state only lets a component request its resources again when its spec or one of these has changed.
+   *
+   * @return the dependencies
+   */
+  default ComponentDependencies getDependencies() {
+    return ComponentDependencies.NONE;
+  }
+
   /**
    * Update the component spec. Re-computes any derived values. type, kind and name are immutable and cannot be changed.
    *
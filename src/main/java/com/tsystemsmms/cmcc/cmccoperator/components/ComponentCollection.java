@@ -28,6 +28,8 @@ import java.util.stream.Stream;
  */
 public class ComponentCollection {
   private final HashMap<ComponentReference, Component> components = new HashMap<>();
+  private final HashMap<ComponentReference, ComponentSpec> appliedSpecs = new HashMap<>();
+  private final Set<Component> changed = new LinkedHashSet<>();
   private final BeanFactory beanFactory;
   private final KubernetesClient kubernetesClient;
   private final TargetState targetState;
@@ -39,13 +41,15 @@ public class ComponentCollection {
   }
 
   /**
-   * Adds a component by spec. Returns the generated component to allow further customization.
+   * Adds a component by spec. Returns the generated component to allow further customization. If the component
+   * exists and the same spec has been applied to it before, the component is left alone.
    *
    * @param componentSpec specifying the component to add
    * @return the created/updated component
    */
   public Component add(ComponentSpec componentSpec) {
     ComponentReference cr = new ComponentReference(componentSpec);
+    ComponentSpec applied = new ComponentSpec(componentSpec);
     Component c = components.get(cr);
     if (c == null) {
       c = createComponentByComponentSpec(componentSpec);
@@ -53,12 +57,52 @@ public class ComponentCollection {
         c.getComponentSpec().setMilestone(Milestone.DeliveryServicesReady);
       }
       components.put(cr, c);
+    } else if (applied.equals(appliedSpecs.get(cr))) {
+      return c;
     } else {
       c.updateComponentSpec(componentSpec);
     }
+    appliedSpecs.put(cr, applied);
+    changed.add(c);
     return c;
   }
 
+  /**
+   * Returns the components that have been created or updated since the last call, and starts over.
+   *
+   * @return the changed components
+   */
+  public List<Component> takeChanged() {
+    List<Component> result = new ArrayList<>(changed);
+    changed.clear();
+    return result;
+  }
+
+  /**
+   * Returns the changed components and all components depending on them, directly or through other components. If the
+   * milestone has changed, the components depending on it and their dependents are included as well.
+   *
+   * @param changed          components that have been created or updated
+   * @param milestoneChanged true if the milestone has changed
+   * @return the components whose required resources may have changed
+   */
+  public Set<Component> withDependents(Collection<Component> changed, boolean milestoneChanged) {
+    Set<Component> affected = new LinkedHashSet<>(changed);
+    if (milestoneChanged) {
+      components.values().stream().filter(c -> c.getDependencies().milestone()).forEach(affected::add);
+    }
+    Deque<Component> pending = new ArrayDeque<>(affected);
+    while (!pending.isEmpty()) {
+      String type = pending.remove().getComponentSpec().getType();
+      for (Component component : components.values()) {
+        if (component.getDependencies().components().contains(type) && affected.add(component)) {
+          pending.add(component);
+        }
+      }
+    }
+    return affected;
+  }
+
   /**
    * Add components for all the specs.
    *
@@ -81,7 +125,14 @@ public class ComponentCollection {
   }
 
   public void removeOfTypeAndKind(String type, String kind) {
-    components.entrySet().removeIf(e -> e.getValue().getComponentSpec().getType().equals(type) && e.getValue().getComponentSpec().getKind().equals(kind));
+    components.entrySet().removeIf(e -> {
+      if (e.getValue().getComponentSpec().getType().equals(type) && e.getValue().getComponentSpec().getKind().equals(kind)) {
+        appliedSpecs.remove(e.getKey());
+        changed.remove(e.getValue());
+        return true;
+      }
+      return false;
+    });
   }
 
   /**
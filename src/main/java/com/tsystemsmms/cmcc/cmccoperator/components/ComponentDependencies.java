@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.components;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What the resources a component requests in requestRequiredResources() depend on, besides its own spec.
+ *
+ * @param milestone  true if the requested resources depend on the milestone
+ * @param components types of the components the requested resources depend on, for example on their service names
+ */
+public record ComponentDependencies(boolean milestone, Set<String> components) {
+  public static final ComponentDependencies NONE = new ComponentDependencies(false, Set.of());
+
+  public ComponentDependencies {
+    components = Set.copyOf(components);
+  }
+
+  /**
+   * Returns these dependencies, plus the milestone.
+   *
+   * @return the dependencies
+   */
+  public ComponentDependencies withMilestone() {
+    return new ComponentDependencies(true, components);
+  }
+
+  /**
+   * Returns these dependencies, plus the components of the given types.
+   *
+   * @param types component types
+   * @return the dependencies
+   */
+  public ComponentDependencies withComponents(String... types) {
+    Set<String> all = new HashSet<>(components);
+    all.addAll(List.of(types));
+    return new ComponentDependencies(milestone, all);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.components;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends the management requests of the components, like disabling the replication, directly to the pods, instead of
+ * running curl in the pod. The URLs are the ones curl would use inside the pod, addressing localhost; the host is
+ * replaced with the IP of the pod. The connections are kept open and reused.
+ * <p>
+ * If the operator cannot reach the pod, for example because a network policy does not allow it, the request fails with
+ * an exception for which {@link #isUnreachable(Throwable)} returns true, and the caller falls back to exec.
+ * <p>
+ * The requests are plain HTTP, so credentials are sent unencrypted over the pod network, and the management ports have
+ * to listen on the pod IP. This client is therefore only used if cmcc.podHttp.enabled is set.
+ */
+@Slf4j
+public class PodHttpClient {
+  public static final String DEFAULT_CONNECT_TIMEOUT = "5s";
+  public static final String DEFAULT_REQUEST_TIMEOUT = "30s";
+
+  private final HttpClient httpClient;
+  @Getter
+  private final Duration requestTimeout;
+
+  /**
+   * A response from a pod.
+   *
+   * @param status HTTP status code
+   * @param body   response body
+   */
+  public record Response(int status, String body) {
+    public boolean isSuccessful() {
+      return status >= 200 && status < 300;
+    }
+  }
+
+  public PodHttpClient(Duration connectTimeout, Duration requestTimeout) {
+    this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(connectTimeout)
+            .build();
+    this.requestTimeout = requestTimeout;
+  }
+
+  /**
+   * Send a request to a pod.
+   *
+   * @param podIp       IP of the pod
+   * @param method      HTTP method
+   * @param url         URL as used inside the pod, for example http://localhost:8081/actuator/replicator. User info
+   *                    in the URL is sent as basic authentication.
+   * @param credentials user:password for basic authentication, or null
+   * @param header      additional header in curl syntax (Name: value), or null
+   * @param body        request body, or null
+   * @return the response
+   */
+  public CompletableFuture<Response> send(String podIp, String method, String url, String credentials, String header, String body) {
+    URI uri = URI.create(url);
+    if (uri.getUserInfo() != null && credentials == null) {
+      credentials = uri.getUserInfo();
+    }
+    HttpRequest.Builder request = HttpRequest.newBuilder(toPodUri(uri, podIp))
+            .timeout(requestTimeout)
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+    if (credentials != null) {
+      request.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+    }
+    if (header != null) {
+      if (!isValidHeader(header)) {
+        throw new IllegalArgumentException("Header \"" + header + "\" is not in the form \"Name: value\"");
+      }
+      int colon = header.indexOf(':');
+      request.header(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+    }
+    return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> new Response(response.statusCode(), response.body()));
+  }
+
+  /**
+   * Returns true if the header is in curl syntax, with a name, a colon, and a value.
+   *
+   * @param header the header
+   * @return true if the header can be sent
+   */
+  public static boolean isValidHeader(String header) {
+    return header.indexOf(':') > 0 && !header.substring(0, header.indexOf(':')).isBlank();
+  }
+
+  static URI toPodUri(URI uri, String podIp) {
+    try {
+      return new URI(uri.getScheme(), null, podIp, uri.getPort(), uri.getPath(), uri.getQuery(), uri.getFragment());
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Unable to address pod " + podIp + " with " + uri, e);
+    }
+  }
+
+  /**
+   * Returns true if the request failed because the pod could not be reached at all, so that it is safe to try again
+   * with exec.
+   *
+   * @param t the exception
+   * @return true if the pod could not be reached
+   */
+  public static boolean isUnreachable(Throwable t) {
+    if (t instanceof CompletionException && t.getCause() != null) {
+      t = t.getCause();
+    }
+    return t instanceof ConnectException || t instanceof HttpConnectTimeoutException || t instanceof NoRouteToHostException;
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.components;
+
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs operations in pods, like resetting a feeder or disabling replication, in the background, so that a
+ * reconciliation does not have to wait for them.
+ * <p>
+ * A task is identified by a key. The first call of {@link #run(String, Supplier, Consumer)} starts the action on all
+ * pods in parallel; later calls with the same key return the state of the task, until it has succeeded or failed. A
+ * failed attempt is retried after retryDelay, up to maxAttempts times, as long as the deadline of the task has not
+ * passed. The reconciler reschedules the custom resource after pollInterval while tasks are running.
+ */
+@Slf4j
+public class PodTaskRunner implements AutoCloseable {
+  public static final int DEFAULT_THREADS = 8;
+  public static final String DEFAULT_COMMAND_TIMEOUT = "2m";
+  public static final String DEFAULT_DEADLINE = "10m";
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final String DEFAULT_RETRY_DELAY = "15s";
+  public static final String DEFAULT_POLL_INTERVAL = "5s";
+
+  /**
+   * Finished tasks whose outcome is not picked up within this time are forgotten, for example when the custom
+   * resource has been deleted in the meantime.
+   */
+  private static final Duration RETENTION = Duration.ofHours(1);
+
+  public enum State {
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+  }
+
+  /**
+   * Outcome of a task.
+   *
+   * @param state state of the task
+   * @param error for a failed task, the error of the last attempt
+   */
+  public record Outcome(State state, Throwable error) {
+    public static final Outcome RUNNING = new Outcome(State.RUNNING, null);
+    public static final Outcome SUCCEEDED = new Outcome(State.SUCCEEDED, null);
+
+    public static Outcome failed(Throwable error) {
+      return new Outcome(State.FAILED, error);
+    }
+
+    public boolean isRunning() {
+      return state == State.RUNNING;
+    }
+
+    public boolean isSucceeded() {
+      return state == State.SUCCEEDED;
+    }
+
+    public boolean isFailed() {
+      return state == State.FAILED;
+    }
+  }
+
+  private final ExecutorService executor;
+  @Getter
+  private final Duration commandTimeout;
+  private final Duration deadline;
+  private final int maxAttempts;
+  private final Duration retryDelay;
+  @Getter
+  private final Duration pollInterval;
+  private final Clock clock;
+  private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+
+  /**
+   * Create a runner.
+   *
+   * @param threads        number of threads running actions in pods
+   * @param commandTimeout maximum time a single command in a pod may take
+   * @param deadline       maximum time a task may take, including all retries
+   * @param maxAttempts    number of attempts before a task fails
+   * @param retryDelay     delay between attempts
+   * @param pollInterval   delay after which a reconciliation waiting for a task is rescheduled
+   */
+  public PodTaskRunner(int threads, Duration commandTimeout, Duration deadline, int maxAttempts, Duration retryDelay, Duration pollInterval) {
+    this(threads, commandTimeout, deadline, maxAttempts, retryDelay, pollInterval, Clock.systemUTC());
+  }
+
+  PodTaskRunner(int threads, Duration commandTimeout, Duration deadline, int maxAttempts, Duration retryDelay, Duration pollInterval, Clock clock) {
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+      Thread thread = new Thread(r, "pod-task-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.commandTimeout = commandTimeout;
+    this.deadline = deadline;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.retryDelay = retryDelay;
+    this.pollInterval = pollInterval;
+    this.clock = clock;
+  }
+
+  /**
+   * A runner with the default settings, for tests and benchmarks.
+   *
+   * @return the runner
+   */
+  public static PodTaskRunner withDefaults() {
+    return new PodTaskRunner(DEFAULT_THREADS, DurationStyle.detectAndParse(DEFAULT_COMMAND_TIMEOUT),
+            DurationStyle.detectAndParse(DEFAULT_DEADLINE), DEFAULT_MAX_ATTEMPTS,
+            DurationStyle.detectAndParse(DEFAULT_RETRY_DELAY), DurationStyle.detectAndParse(DEFAULT_POLL_INTERVAL));
+  }
+
+  /**
+   * Start a task, or return the state of the task started earlier with the same key. Once the task has succeeded or
+   * failed, it is forgotten, and the next call starts it again.
+   *
+   * @param key    identifies the task, including the custom resource and the component
+   * @param pods   the pods to run the action on; called for every attempt
+   * @param action the action, run for each pod in parallel; fails by throwing an exception
+   * @return the outcome of the task
+   */
+  public Outcome run(String key, Supplier<? extends Collection<PodResource>> pods, Consumer<PodResource> action) {
+    return runAsync(key, pods, pod -> {
+      action.accept(pod);
+      return CompletableFuture.completedFuture(null);
+    });
+  }
+
+  /**
+   * Like {@link #run(String, Supplier, Consumer)}, for actions that complete asynchronously, like HTTP requests. The
+   * action is called on a thread of this runner, and should return without waiting for the result; its thread is free
+   * for other pods while the request is in flight.
+   *
+   * @param key    identifies the task, including the custom resource and the component
+   * @param pods   the pods to run the action on; called for every attempt
+   * @param action the action, started for each pod in parallel; fails by completing the future exceptionally
+   * @return the outcome of the task
+   */
+  public Outcome runAsync(String key, Supplier<? extends Collection<PodResource>> pods, Function<PodResource, CompletableFuture<Void>> action) {
+    Instant now = clock.instant();
+    tasks.values().removeIf(t -> t.lastPolled.plus(RETENTION).isBefore(now));
+
+    Task task = tasks.computeIfAbsent(key, k -> new Task(now, now.plus(deadline)));
+    synchronized (task) {
+      task.lastPolled = now;
+      if (task.future == null) {
+        start(key, task, pods, action);
+        return Outcome.RUNNING;
+      }
+      if (!task.future.isDone()) {
+        if (now.isAfter(task.deadline)) {
+          tasks.remove(key);
+          log.warn("[{}] Pod task did not finish in time, giving up", key);
+          return Outcome.failed(new TimeoutException("Pod task " + key + " did not finish within " + deadline));
+        }
+        return Outcome.RUNNING;
+      }
+      try {
+        task.future.join();
+        tasks.remove(key);
+        log.debug("[{}] Pod task succeeded after {} attempt(s)", key, task.attempts);
+        return Outcome.SUCCEEDED;
+      } catch (CompletionException e) {
+        Throwable error = e.getCause() != null ? e.getCause() : e;
+        if (task.attempts >= maxAttempts || now.isAfter(task.deadline)) {
+          tasks.remove(key);
+          log.warn("[{}] Pod task failed after {} attempt(s): {}", key, task.attempts, error.getMessage());
+          return Outcome.failed(error);
+        }
+        if (now.isBefore(task.completed.plus(retryDelay))) {
+          return Outcome.RUNNING;
+        }
+        log.info("[{}] Pod task failed, retrying: {}", key, error.getMessage());
+        start(key, task, pods, action);
+        return Outcome.RUNNING;
+      }
+    }
+  }
+
+  private void start(String key, Task task, Supplier<? extends Collection<PodResource>> pods, Function<PodResource, CompletableFuture<Void>> action) {
+    List<PodResource> targets = List.copyOf(pods.get());
+    task.attempts++;
+    log.debug("[{}] Starting pod task on {} pod(s), attempt {} of {}", key, targets.size(), task.attempts, maxAttempts);
+    task.future = CompletableFuture.allOf(targets.stream()
+                    .map(pod -> CompletableFuture.supplyAsync(() -> action.apply(pod), executor).thenCompose(Function.identity()))
+                    .toArray(CompletableFuture[]::new))
+            .whenComplete((v, e) -> task.completed = clock.instant());
+  }
+
+  /**
+   * Run a blocking operation, like a command in a pod, on a thread of this runner. Actions passed to
+   * {@link #runAsync(String, Supplier, Function)} use this to fall back to exec.
+   *
+   * @param supplier the operation
+   * @param <T>      result type
+   * @return the result
+   */
+  public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+    return CompletableFuture.supplyAsync(supplier, executor);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private static class Task {
+    final Instant deadline;
+    int attempts;
+    CompletableFuture<Void> future;
+    volatile Instant completed;
+    Instant lastPolled;
+
+    Task(Instant created, Instant deadline) {
+      this.lastPolled = created;
+      this.deadline = deadline;
+    }
+  }
+}
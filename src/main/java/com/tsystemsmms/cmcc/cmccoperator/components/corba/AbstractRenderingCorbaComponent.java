@@ -84,6 +84,13 @@ public abstract class AbstractRenderingCorbaComponent extends CorbaComponent imp
     return this;
   }
 
+  @Override
+  protected List<Object> getMemoKey() {
+    List<Object> key = new ArrayList<>(super.getMemoKey());
+    key.add(currentStatefulSetIndex);
+    return key;
+  }
+
   private void applyReplicas(ComponentSpec componentSpec) {
     if (componentSpec.getExtra().containsKey(EXTRA_REPLICAS)) {
       setReplicas(Integer.parseInt(componentSpec.getExtra().get(EXTRA_REPLICAS)));
@@ -266,6 +273,10 @@ public abstract class AbstractRenderingCorbaComponent extends CorbaComponent imp
             getNumOfStatefulSets() > 1) {
       // last step of  Multi-RLS-upgrade: Kill all remaining "old" CAEs
       // -> faster than letting the RollingUpdate work on them one by one
+      if (getTargetState().isDryRun()) {
+        log.info("[{}] Dry run, not killing delivery pods with old version", getTargetState().getContextForLogging());
+        return;
+      }
       log.debug("[{}] Last upgrade step: killing remaining delivery pods with old version {}",
               getTargetState().getContextForLogging(), getVersioningTargetState().getVersion());
       try {
@@ -310,11 +321,7 @@ public abstract class AbstractRenderingCorbaComponent extends CorbaComponent imp
 
   @Override
   protected ComponentState getStatefulSetState(String name) {
-    var stsList = getKubernetesClient().apps()
-            .statefulSets()
-            .inNamespace(getCmcc().getMetadata().getNamespace())
-            .withLabel("cmcc.tsystemsmms.com/name", name)
-            .list().getItems();
+    var stsList = getTargetState().getClusterSnapshot().getStatefulSetsWithLabel("cmcc.tsystemsmms.com/name", name);
 
     if (stsList.isEmpty() || !stsList.stream().allMatch(Readiness.getInstance()::isReady)) {
       return ComponentState.WaitingForReadiness;
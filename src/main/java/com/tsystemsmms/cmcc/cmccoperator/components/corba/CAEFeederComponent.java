@@ -23,6 +23,7 @@ import io.fabric8.kubernetes.api.model.PodAffinity;
 import io.fabric8.kubernetes.api.model.PodAffinityBuilder;
 import io.fabric8.kubernetes.api.model.WeightedPodAffinityTerm;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.PodResource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 
@@ -129,10 +130,16 @@ public class CAEFeederComponent extends CorbaComponent implements HasJdbcClient,
             if (!getState().isReady().orElse(false)) {
                 return;
             }
-            try {
-                resetFeeder();
-            } catch (Exception e) {
-                log.warn("[{}] Error resetting CAE feeder: {}", getTargetState().getContextForLogging(), name, e);
+            if (getTargetState().isDryRun()) {
+                log.info("[{}] Dry run, not resetting CAE feeder {}", getTargetState().getContextForLogging(), name);
+                return;
+            }
+            var outcome = runPodTask("reset-feeder", this::getPods, this::resetFeeder);
+            if (outcome.isRunning()) {
+                return;
+            }
+            if (outcome.isFailed()) {
+                log.warn("[{}] Error resetting CAE feeder: {}", getTargetState().getContextForLogging(), name, outcome.error());
             }
             if (!getTargetState().isUpgrading()) {
                 getTargetState().restartStatefulSet(name);
@@ -142,26 +149,20 @@ public class CAEFeederComponent extends CorbaComponent implements HasJdbcClient,
     }
 
     /**
-     * Reset the CAE Feeder.
+     * Reset the CAE Feeder in a pod.
      * Triggers this command by default: 'SPRING_PROPERTIES="" java -cp "libs/*" com.coremedia.amaro.cae.feeder.reset.ResetCaeFeeder reset'
+     *
+     * @param pod the pod to reset the feeder in
      */
-    public void resetFeeder() {
-        var pods = getTargetState().getKubernetesClient().pods()
-                .inNamespace(getNamespace())
-                .withLabels(getSelectorLabels())
-                .resources()
-                .toList();
-
-        log.debug("[{}] Resetting CAE Feeder on pods {}, using '{}'", getTargetState().getContextForLogging(),
-                pods.stream().map(x -> x.get().getMetadata().getName()).toList(), resetFeederCommand);
-        var results = pods.stream().map(pod -> executeCommand(pod, resetFeederCommand)).toList();
-
-        results.stream().forEach(result -> {
-            if (result.exitCode != 0 || result.output == null || !result.output.contains("The CAE Feeder will be reset when restarted")) {
-                throw new CustomResourceConfigError(format("Error resetting CAE Feeder, exitcodes: [{}], output: {}",
-                        results.stream().map(x -> x.exitCode).toList().toString(),
-                        result.output));
-            }
-        });
+    public void resetFeeder(PodResource pod) {
+        log.debug("[{}] Resetting CAE Feeder on pod {}, using '{}'", getTargetState().getContextForLogging(),
+                getPodName(pod), resetFeederCommand);
+        var result = executeCommand(pod, resetFeederCommand);
+
+        if (result.exitCode != 0 || result.output == null || !result.output.contains("The CAE Feeder will be reset when restarted")) {
+            throw new CustomResourceConfigError(format("Error resetting CAE Feeder, exitcode: {}, output: {}",
+                    result.exitCode,
+                    result.output));
+        }
     }
 }
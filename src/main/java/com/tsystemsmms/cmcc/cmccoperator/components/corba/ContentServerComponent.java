@@ -13,6 +13,7 @@ package com.tsystemsmms.cmcc.cmccoperator.components.corba;
 import com.tsystemsmms.cmcc.cmccoperator.components.Component;
 import com.tsystemsmms.cmcc.cmccoperator.components.HasJdbcClient;
 import com.tsystemsmms.cmcc.cmccoperator.components.HasService;
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.crds.ComponentSpec;
 import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.ClientSecret;
@@ -21,9 +22,11 @@ import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.utils.EnvVarSet;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.PodResource;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.tsystemsmms.cmcc.cmccoperator.components.generic.MySQLComponent.MYSQL;
 import static com.tsystemsmms.cmcc.cmccoperator.utils.Utils.*;
@@ -363,52 +366,48 @@ public class ContentServerComponent extends CorbaComponent implements HasJdbcCli
     return volumes;
   }
 
-  public void disableRlsReplication() {
+  /**
+   * Disable the replication on all pods of this RLS, in the background. Call again in the next reconciliations to
+   * pick up the outcome.
+   *
+   * @return the outcome of the task
+   */
+  public PodTaskRunner.Outcome disableRlsReplication() {
     if (!this.getComponentSpec().getKind().equals(KIND_RLS)) {
       log.warn("[{}] Called disableRlsReplication on a non-RLS component, which is not supported", getTargetState().getContextForLogging());
-      return;
+      return PodTaskRunner.Outcome.SUCCEEDED;
     }
 
-    var pods = getTargetState().getKubernetesClient().pods()
-            .inNamespace(getNamespace())
-            .withLabels(getSelectorLabels())
-            .resources()
-            .toList();
-
-
-    log.debug("[{}] Disable RLS replication on pods {}, using '{}'", getTargetState().getContextForLogging(),
-            pods.stream().map(x -> x.get().getMetadata().getName()).toList(), REPLICATOR_STATUS_URL);
-    var results = pods.stream().map(pod -> executePostWebRequest(pod, REPLICATOR_STATUS_URL, RLS_STATUS_HEADER_CONTENT_TYPE, getRlsStatusData(false), true)).toList();
-
-    results.stream().forEach(result -> {
-      if (result.exitCode != 0 || result.output == null || !result.output.contains("\"ACCEPTED\":\"Replicator has been disabled.")) {
-        throw new CustomResourceConfigError("Unable to stop RLS replication on pod \"" + result.pod.get().getMetadata().getName() + "\": " + result.output);
-      }
-    });
+    return runPodTaskAsync("disable-rls-replication", this::getPods, pod -> setRlsReplication(pod, false));
   }
 
+  /**
+   * Enable the replication on all pods of this RLS, in the background. The outcome is picked up by one of the next
+   * reconciliations.
+   */
   public void enableRlsReplication() {
     if (!this.getComponentSpec().getKind().equals(KIND_RLS)) {
       log.warn("[{}] Called enableRlsReplication on a non-RLS component, which is not supported", getTargetState().getContextForLogging());
       return;
     }
 
-    var pods = getTargetState().getKubernetesClient().pods()
-            .inNamespace(getNamespace())
-            .withLabels(getSelectorLabels())
-            .resources()
-            .toList();
-
-
-    log.debug("[{}] Enable RLS replication on pods {}, using '{}'", getTargetState().getContextForLogging(),
-            pods.stream().map(x -> x.get().getMetadata().getName()).toList(), REPLICATOR_STATUS_URL);
-    var results = pods.stream().map(pod -> executePostWebRequest(pod, REPLICATOR_STATUS_URL, RLS_STATUS_HEADER_CONTENT_TYPE, getRlsStatusData(true), true)).toList();
+    var outcome = runPodTaskAsync("enable-rls-replication", this::getPods, pod -> setRlsReplication(pod, true));
+    if (outcome.isFailed()) {
+      throw new CustomResourceConfigError("Unable to start RLS replication: " + outcome.error().getMessage(), outcome.error());
+    }
+  }
 
-    results.stream().forEach(result -> {
-      if (result.exitCode != 0 || result.output == null || !result.output.contains("\"ACCEPTED\":\"Replicator has been enabled.")) {
-        throw new CustomResourceConfigError("Unable to stop RLS replication on pod \"\": " + result.output);
-      }
-    });
+  private CompletableFuture<Void> setRlsReplication(PodResource pod, boolean enable) {
+    String podName = getPodName(pod);
+    log.debug("[{}] {} RLS replication on pod {}, using '{}'", getTargetState().getContextForLogging(),
+            enable ? "Enable" : "Disable", podName, REPLICATOR_STATUS_URL);
+    String accepted = "\"ACCEPTED\":\"Replicator has been " + (enable ? "enabled." : "disabled.");
+    return executePostWebRequest(pod, REPLICATOR_STATUS_URL, RLS_STATUS_HEADER_CONTENT_TYPE, getRlsStatusData(enable), true)
+            .thenAccept(result -> {
+              if (result.exitCode != 0 || result.output == null || !result.output.contains(accepted)) {
+                throw new CustomResourceConfigError("Unable to " + (enable ? "start" : "stop") + " RLS replication on pod \"" + podName + "\": " + result.output);
+              }
+            });
   }
 
   private String getRlsStatusData(boolean enable) {
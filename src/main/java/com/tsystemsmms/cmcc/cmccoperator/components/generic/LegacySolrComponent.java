@@ -29,12 +29,14 @@ import io.fabric8.kubernetes.api.model.apps.StatefulSet;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetSpecBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.PodResource;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.tsystemsmms.cmcc.cmccoperator.components.HasSolrClient.SOLR_CLIENT_SERVER_FOLLOWER;
 import static com.tsystemsmms.cmcc.cmccoperator.utils.Utils.*;
@@ -121,14 +123,26 @@ public class LegacySolrComponent extends AbstractComponent implements HasService
       if (getTargetState().isFlag(flag)) {
         continue;
       }
-      createCore(name, core.getKey(), core.getValue());
+      if (getTargetState().isDryRun()) {
+        log.info("[{}] Dry run, not creating Solr core {} in {}", getTargetState().getContextForLogging(), core.getKey(), name);
+        continue;
+      }
+      // cores are created one after the other in a follower, but in all followers in parallel
+      var outcome = runPodTaskAsync(concatOptional("create-core", name, core.getKey()), () -> getFollowerPod(name),
+              pod -> createCore(pod, core.getKey(), core.getValue()));
+      if (outcome.isRunning()) {
+        return;
+      }
+      if (outcome.isFailed()) {
+        throw new CustomResourceConfigError(outcome.error().getMessage(), outcome.error());
+      }
       getTargetState().setFlag(flag, true);
     }
 
   }
 
   public StatefulSet buildStatefulSetLeader() {
-    EnvVarSet env = getEnvVars();
+    EnvVarSet env = getMemoizedEnvVars();
     env.add(EnvVarSimple("SOLR_LEADER", "true"));
     env.addAll(getComponentSpec().getEnv());
 
@@ -181,7 +195,7 @@ public class LegacySolrComponent extends AbstractComponent implements HasService
   }
 
   public StatefulSet buildStatefulSetFollower(int i) {
-    EnvVarSet env = getEnvVars();
+    EnvVarSet env = getMemoizedEnvVars();
     env.add(EnvVarSimple("SOLR_FOLLOWER", "true"));
     if (getSpec().getWith().isSolrBasicAuthEnabled()) {
       // since env variables will be sort alphabetically,
@@ -313,16 +327,35 @@ public class LegacySolrComponent extends AbstractComponent implements HasService
     return volumes;
   }
 
+  /**
+   * Returns the pod of a follower, or nothing if the pod does not exist.
+   *
+   * @param resource name of the follower StatefulSet
+   * @return the pod
+   */
+  List<PodResource> getFollowerPod(String resource) {
+    String podName = concatOptional(resource, "0");
+    var pods = getKubernetesClient().pods().inNamespace(getNamespace());
+    var pod = pods.withName(podName).get();
+    if (pod == null) {
+      log.warn("[{}] No pod with name '{}' found in namespace '{}'", getTargetState().getContextForLogging(), podName, getNamespace());
+      return List.of();
+    }
+    return List.of(pods.resource(pod));
+  }
+
   /**
    * Create a Solr core in a follower. This is a bit ugly, since exec() doesn't appear to be able to capture the
    * commands' exit code.
    *
    * <pre>curl 'http://localhost:8983/solr/admin/cores?action=CREATE&name=studio&configSet=content&dataDir=data'</pre>
    *
+   * @param pod  pod of the follower
    * @param name name of the index to create
+   * @return completes once the core has been created
    */
-  public void createCore(String resource, String name, String configSet) {
-    String podName = concatOptional(resource, "0");
+  public CompletableFuture<Void> createCore(PodResource pod, String name, String configSet) {
+    String podName = getPodName(pod);
     String url = UriComponentsBuilder.fromUriString("http://localhost:8983/solr/admin/cores")
             .queryParam("action", "CREATE")
             .queryParam("name", name)
@@ -331,14 +364,11 @@ public class LegacySolrComponent extends AbstractComponent implements HasService
             .toUriString();
     log.debug("[{}] Creating Solr Core {} on pod {}, using {}", getTargetState().getContextForLogging(), name, podName, url);
 
-    var pod = getKubernetesClient().pods().inNamespace(getNamespace()).withName(podName);
-
-    if (pod.get() == null) {
-      log.warn("[{}] No pod with name '{}' found in namespace '{}'", getTargetState().getContextForLogging(), name, getNamespace());
-      return;
-    }
-    var result = executeWebRequest(pod, url, false);
+    return executeWebRequest(pod, url, false)
+            .thenAccept(result -> checkCoreCreated(result, podName, name));
+  }
 
+  private void checkCoreCreated(ExecutionResult result, String podName, String name) {
     // try and parse output as JSON
     try {
       SolrAdminResponse response = OBJECT_MAPPER.readValue(result.output, SolrAdminResponse.class);
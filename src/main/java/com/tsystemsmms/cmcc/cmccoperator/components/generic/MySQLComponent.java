@@ -22,6 +22,7 @@ import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.utils.EnvVarSet;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.PodResource;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -94,18 +95,22 @@ public class MySQLComponent extends AbstractComponent implements HasService {
             if (!getState().isReady().orElse(false)) {
                 return;
             }
-            restoreUserSchemas();
+            if (getTargetState().isDryRun()) {
+                log.info("[{}] Dry run, not restoring user schemas in {}", getTargetState().getContextForLogging(), name);
+                return;
+            }
+            var outcome = runPodTask("restore-user-schemas", () -> getPods().stream().limit(1).toList(), this::restoreUserSchemas);
+            if (outcome.isRunning()) {
+                return;
+            }
+            if (outcome.isFailed()) {
+                log.warn("[{}] Error while restoring database user schemas for {}", getTargetState().getContextForLogging(), name, outcome.error());
+            }
             getTargetState().setFlag(flag, false);
         }
     }
 
-    private void restoreUserSchemas() {
-        var pod = getTargetState().getKubernetesClient().pods()
-                .inNamespace(getNamespace())
-                .withLabels(getSelectorLabels())
-                .resources()
-                .findFirst().get();
-
+    private void restoreUserSchemas(PodResource pod) {
         var result = executeCommand(pod, "mysql -v -u root --password=$MYSQL_ROOT_PASSWORD < /docker-entrypoint-initdb.d/create-default-users.sql");
 
         if (result.exitCode != 0) {
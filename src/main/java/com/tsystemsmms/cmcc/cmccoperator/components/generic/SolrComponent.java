@@ -14,6 +14,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.tsystemsmms.cmcc.cmccoperator.components.AbstractComponent;
 import com.tsystemsmms.cmcc.cmccoperator.components.Component;
 import com.tsystemsmms.cmcc.cmccoperator.components.HasService;
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.crds.ComponentSpec;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.CustomResourceConfigError;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.NoSuchComponentException;
@@ -21,9 +22,12 @@ import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.utils.EnvVarSet;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.PodResource;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.tsystemsmms.cmcc.cmccoperator.components.HasSolrClient.SOLR_CLIENT_SERVER_FOLLOWER;
 import static com.tsystemsmms.cmcc.cmccoperator.crds.Milestone.Ready;
@@ -40,6 +44,7 @@ public class SolrComponent extends AbstractComponent implements HasService {
 
   private static final String SOLR_FOLLOWER_DISABLE_SYNC_URL = "http://localhost:8983/solr/live/replication?command=disablereplication";
   private static final String SOLR_FOLLOWER_DISABLE_POLL_URL = "http://localhost:8983/solr/live/replication?command=disablepoll";
+  private static final String SOLR_LEADER_BASIC_AUTH_REF = "${SOLR_LEADER_BASIC_AUTH}";
 
   /**
    * Cores that the Operator should create in the followers. The map is modifyable so additional entries can be added
@@ -379,33 +384,50 @@ public class SolrComponent extends AbstractComponent implements HasService {
     return "http://" + getTargetState().getResourceNameFor(SOLR, KIND_LEADER) + ":8983/solr";
   }
 
-  public void disableReplication() {
+  /**
+   * Disable the replication on all pods of this follower, in the background. Call again in the next reconciliations
+   * to pick up the outcome.
+   *
+   * @return the outcome of the task
+   */
+  public PodTaskRunner.Outcome disableReplication() {
     if (!this.getComponentSpec().getKind().equals(KIND_FOLLOWER)) {
       log.warn("[{}] Called disableReplication on a non-follower component, which is not supported", getTargetState().getContextForLogging());
-      return;
+      return PodTaskRunner.Outcome.SUCCEEDED;
     }
 
-    var pods = getTargetState().getKubernetesClient().pods()
-            .inNamespace(getNamespace())
-            .withLabels(getSelectorLabels())
-            .resources()
-            .toList();
-
-    log.debug("[{}] Disable Solr Follower replication on pods {}, using '{}'", getTargetState().getContextForLogging(), pods.stream().map(x -> x.get().getMetadata().getName()).toList(), SOLR_FOLLOWER_DISABLE_SYNC_URL);
-    var credentials = getSpec().getWith().isSolrBasicAuthEnabled() ? "${SOLR_LEADER_BASIC_AUTH}" : null;
+    return runPodTaskAsync("disable-replication", this::getPods, this::disableReplicationInPod);
+  }
 
-    var results = pods.stream().map(pod -> executeWebRequest(pod, SOLR_FOLLOWER_DISABLE_SYNC_URL, credentials, true)).toList();
-    results.stream().forEach(result -> {
-      if (result.exitCode != 0 || result.output == null || !result.output.contains("\"status\":\"OK\"")) {
-        throw new CustomResourceConfigError("Unable to stop Solr replication on pod \"" + result.pod.get().getMetadata().getName() + "\": " + result.output + ". Error output: " + result.errorOutput);
-      }
-    });
+  /**
+   * Resolve the credentials of the leader from the secret the followers take them from, see getEnvVars().
+   */
+  @Override
+  protected String resolveWebRequestCredentials(String authCredentials) {
+    if (!SOLR_LEADER_BASIC_AUTH_REF.equals(authCredentials)) {
+      return null;
+    }
+    Secret secret = getTargetState().loadSecret("solr-pw");
+    if (secret == null || secret.getData() == null || secret.getData().get("solr_pw") == null) {
+      return null;
+    }
+    return "solr:" + new String(Base64.getDecoder().decode(secret.getData().get("solr_pw")), StandardCharsets.UTF_8);
+  }
 
-    results = pods.stream().map(pod -> executeWebRequest(pod, SOLR_FOLLOWER_DISABLE_POLL_URL, credentials, true)).toList();
-    results.stream().forEach(result -> {
-      if (result.exitCode != 0 || result.output == null || !result.output.contains("\"status\":\"OK\"")) {
-        throw new CustomResourceConfigError("Unable to stop Solr replication on pod \"" + result.pod.get().getMetadata().getName() + "\": " + result.output + ". Error output: " + result.errorOutput);
-      }
-    });
+  private CompletableFuture<Void> disableReplicationInPod(PodResource pod) {
+    String podName = getPodName(pod);
+    log.debug("[{}] Disable Solr Follower replication on pod {}, using '{}'", getTargetState().getContextForLogging(), podName, SOLR_FOLLOWER_DISABLE_SYNC_URL);
+    var credentials = getSpec().getWith().isSolrBasicAuthEnabled() ? SOLR_LEADER_BASIC_AUTH_REF : null;
+
+    CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+    for (String url : List.of(SOLR_FOLLOWER_DISABLE_SYNC_URL, SOLR_FOLLOWER_DISABLE_POLL_URL)) {
+      done = done.thenCompose(v -> executeWebRequest(pod, url, credentials, true))
+              .thenAccept(result -> {
+                if (result.exitCode != 0 || result.output == null || !result.output.contains("\"status\":\"OK\"")) {
+                  throw new CustomResourceConfigError("Unable to stop Solr replication on pod \"" + podName + "\": " + result.output + ". Error output: " + result.errorOutput);
+                }
+              });
+    }
+    return done;
   }
 }
\ No newline at end of file
@@ -118,7 +118,7 @@ public abstract class JobComponent extends SpringBootComponent {
     }
 
     var name = getTargetState().getResourceNameFor(this);
-    var job = getKubernetesClient().batch().v1().jobs().inNamespace(getCmcc().getMetadata().getNamespace()).withName(name).get();
+    var job = getTargetState().getClusterSnapshot().getJob(name).orElse(null);
     if (job == null) {
       return ComponentState.WaitingForDeployment;
     }
@@ -18,7 +18,6 @@ import com.tsystemsmms.cmcc.cmccoperator.crds.ComponentSpec;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.CustomResourceConfigError;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.utils.EnvVarSet;
-import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.api.model.batch.v1.*;
 import io.fabric8.kubernetes.client.KubernetesClient;
@@ -95,7 +94,7 @@ public class MgmtToolsCronJobComponent extends SpringBootComponent implements Ha
 
   @Override
   public SecurityContext getSecurityContext() {
-    return Utils.mergeObjects(SecurityContext.class,
+    return getTargetState().getObjectMerger().merge(SecurityContext.class,
             new SecurityContextBuilder()
                     .withReadOnlyRootFilesystem(false) // properties location is a mix of dynamically created files and files from the image
                     .build(),
@@ -16,7 +16,6 @@ import com.tsystemsmms.cmcc.cmccoperator.crds.ComponentSpec;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.CustomResourceConfigError;
 import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import com.tsystemsmms.cmcc.cmccoperator.utils.EnvVarSet;
-import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import lombok.extern.slf4j.Slf4j;
@@ -184,7 +183,7 @@ public class MgmtToolsJobComponent extends JobComponent implements HasUapiClient
 
     @Override
     public SecurityContext getSecurityContext() {
-        return Utils.mergeObjects(SecurityContext.class,
+        return getTargetState().getObjectMerger().merge(SecurityContext.class,
                 new SecurityContextBuilder()
                         .withReadOnlyRootFilesystem(false) // properties location is a mix of dynamically created files and files from the image
                         .build(),
@@ -85,6 +85,23 @@ public class ClientSecretRef {
         return EnvVarSecret(concatOptionalWithJoiner("_", prefix, name), getSecretName(), key);
     }
 
+    /**
+     * Return a new ClientSecretRef with the same values.
+     *
+     * @return a clone
+     */
+    public ClientSecretRef copy() {
+        ClientSecretRef csr = new ClientSecretRef();
+        csr.secretName = this.secretName;
+        csr.driverKey = this.driverKey;
+        csr.hostnameKey = this.hostnameKey;
+        csr.passwordKey = this.passwordKey;
+        csr.schemaKey = this.schemaKey;
+        csr.urlKey = this.urlKey;
+        csr.usernameKey = this.usernameKey;
+        return csr;
+    }
+
     /**
      * Return a new ClientSecretRef, with any null values replaced by their default values.
      *
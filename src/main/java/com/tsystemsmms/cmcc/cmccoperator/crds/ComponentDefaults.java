@@ -11,6 +11,7 @@
 package com.tsystemsmms.cmcc.cmccoperator.crds;
 
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import io.fabric8.kubernetes.api.model.*;
 import lombok.Data;
 
@@ -98,4 +99,41 @@ public class ComponentDefaults {
 
     @JsonPropertyDescription("Size of persistent data/cache volumes")
     ComponentSpec.VolumeSize volumeSize = new ComponentSpec.VolumeSize("8Gi");
+
+    public ComponentDefaults() {
+    }
+
+    /**
+     * Construct a deep copy of other defaults. The embedded Kubernetes model objects are cloned through Jackson.
+     *
+     * @param that source for the new object
+     */
+    public ComponentDefaults(ComponentDefaults that) {
+        this.annotations = Utils.copyMap(that.annotations);
+        this.curlImage = that.curlImage;
+        this.image = that.image == null ? null : new ImageSpec(that.image);
+        this.ingressDomain = that.ingressDomain;
+        this.namePrefixForIngressDomain = that.namePrefixForIngressDomain;
+        this.nameSuffixForIngressDomain = that.nameSuffixForIngressDomain;
+        this.insecureDatabasePassword = that.insecureDatabasePassword;
+        this.env = Utils.copyList(that.env, e -> Utils.deepClone(e, EnvVar.class));
+        this.javaOpts = that.javaOpts;
+        this.podSecurityContext = Utils.deepClone(that.podSecurityContext, PodSecurityContext.class);
+        this.resources = that.resources == null ? null : new ResourceMgmt(that.resources);
+        this.liveUrlMapper = that.liveUrlMapper;
+        this.managementUrlMapper = that.managementUrlMapper;
+        this.headlessUrlMapper = that.headlessUrlMapper;
+        this.namePrefix = that.namePrefix;
+        this.nameSuffix = that.nameSuffix;
+        this.previewHostname = that.previewHostname;
+        this.headlessServerPreviewHostname = that.headlessServerPreviewHostname;
+        this.headlessServerLiveHostname = that.headlessServerLiveHostname;
+        this.securityContext = Utils.deepClone(that.securityContext, SecurityContext.class);
+        this.siteMappingProtocol = that.siteMappingProtocol;
+        this.storageClass = that.storageClass;
+        this.studioHostname = that.studioHostname;
+        this.affinityTopology = that.affinityTopology;
+        this.servletNames = Utils.copyList(that.servletNames);
+        this.volumeSize = that.volumeSize == null ? null : new ComponentSpec.VolumeSize(that.volumeSize);
+    }
 }
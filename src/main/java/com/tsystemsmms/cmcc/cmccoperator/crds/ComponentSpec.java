@@ -89,6 +89,15 @@ public class ComponentSpec {
     Integer live = 200;
     @JsonPropertyDescription("Timeout in seconds for readiness")
     Integer ready = 100;
+
+    public Timeouts() {
+    }
+
+    public Timeouts(Timeouts that) {
+      this.startup = that.startup;
+      this.live = that.live;
+      this.ready = that.ready;
+    }
   }
 
   public ComponentSpec() {
@@ -107,6 +116,37 @@ public class ComponentSpec {
     this.update(that);
   }
 
+  /**
+   * Returns a deep copy of this spec. Unlike the copy constructor, which merges into the defaults and shares nested
+   * objects, the copy has exactly the same values and shares nothing mutable with this spec. The embedded Kubernetes
+   * model objects are cloned through Jackson.
+   *
+   * @return the copy
+   */
+  public ComponentSpec copy() {
+    ComponentSpec copy = new ComponentSpec();
+    copy.type = type;
+    copy.kind = kind;
+    copy.name = name;
+    copy.forceMls = forceMls;
+    copy.annotations = Utils.copyMap(annotations);
+    copy.args = Utils.copyList(args);
+    copy.env = Utils.copyList(env, e -> Utils.deepClone(e, EnvVar.class));
+    copy.extra = Utils.copyMap(extra);
+    copy.image = image == null ? null : new ImageSpec(image);
+    copy.milestone = milestone;
+    copy.podSecurityContext = Utils.deepClone(podSecurityContext, PodSecurityContext.class);
+    copy.resources = resources == null ? null : new ResourceMgmt(resources);
+    copy.schemas = Utils.copyMap(schemas);
+    copy.securityContext = Utils.deepClone(securityContext, SecurityContext.class);
+    copy.volumeSize = volumeSize == null ? null : new VolumeSize(volumeSize);
+    copy.volumeMounts = Utils.copyList(volumeMounts, v -> Utils.deepClone(v, VolumeMount.class));
+    copy.volumes = Utils.copyList(volumes, v -> Utils.deepClone(v, Volume.class));
+    copy.affinity = Utils.deepClone(affinity, Affinity.class);
+    copy.timeouts = timeouts == null ? null : new Timeouts(timeouts);
+    return copy;
+  }
+
   public void update(ComponentSpec that) {
     this.setAnnotations(that.getAnnotations());
     this.setForceMls(that.getForceMls());
@@ -187,5 +227,9 @@ public class ComponentSpec {
       transformedBlobCache = size;
       uapiBlobCache = size;
     }
+
+    public VolumeSize(VolumeSize that) {
+      this(that.data, that.mongoDbData, that.mysqlData, that.solrData, that.transformedBlobCache, that.uapiBlobCache);
+    }
   }
 }
@@ -11,6 +11,7 @@
 package com.tsystemsmms.cmcc.cmccoperator.crds;
 
 import io.fabric8.kubernetes.api.model.Namespaced;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.client.CustomResource;
 import io.fabric8.kubernetes.model.annotation.Group;
 import io.fabric8.kubernetes.model.annotation.Kind;
@@ -33,6 +34,18 @@ public class CoreMediaContentCloud extends CustomResource<CoreMediaContentCloudS
         this.status = status;
     }
 
+    /**
+     * Construct a deep copy of another custom resource.
+     *
+     * @param that source for the new object
+     */
+    public CoreMediaContentCloud(CoreMediaContentCloud that) {
+        super();
+        setMetadata(that.getMetadata() == null ? null : new ObjectMetaBuilder(that.getMetadata()).build());
+        this.spec = that.getSpec() == null ? null : new CoreMediaContentCloudSpec(that.getSpec());
+        this.status = that.getStatus() == null ? null : new CoreMediaContentCloudStatus(that.getStatus());
+    }
+
     @Override
     protected CoreMediaContentCloudStatus initStatus() {
         return new CoreMediaContentCloudStatus();
@@ -11,12 +11,14 @@
 package com.tsystemsmms.cmcc.cmccoperator.crds;
 
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import io.fabric8.generator.annotation.Default;
 import io.fabric8.kubernetes.api.model.IntOrString;
 import io.fabric8.kubernetes.model.annotation.SpecReplicas;
 import lombok.Data;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Data
 public class CoreMediaContentCloudSpec {
@@ -57,4 +59,47 @@ public class CoreMediaContentCloudSpec {
     @JsonPropertyDescription("Target for the scaling property. Default CAE.")
     @Default(value = "cae")
     ScalingTarget scalingTarget = ScalingTarget.cae; // or headless
+
+    public CoreMediaContentCloudSpec() {
+    }
+
+    /**
+     * Construct a deep copy of another spec. Strings and enums are shared, nested objects are copied.
+     *
+     * @param that source for the new object
+     */
+    public CoreMediaContentCloudSpec(CoreMediaContentCloudSpec that) {
+        this.version = that.version;
+        this.comment = that.comment;
+        this.components = that.components == null ? null : that.components.stream()
+                .map(c -> c == null ? null : c.copy())
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (that.clientSecretRefs != null) {
+            this.clientSecretRefs = new HashMap<>();
+            that.clientSecretRefs.forEach((kind, refs) -> {
+                Map<String, ClientSecretRef> copy = new HashMap<>();
+                refs.forEach((schema, ref) -> copy.put(schema, ref == null ? null : ref.copy()));
+                this.clientSecretRefs.put(kind, copy);
+            });
+        } else {
+            this.clientSecretRefs = null;
+        }
+        this.defaultIngressTls = that.defaultIngressTls == null ? null : new IngressTls(that.defaultIngressTls);
+        this.defaults = that.defaults == null ? null : new ComponentDefaults(that.defaults);
+        if (that.licenseSecrets != null) {
+            this.licenseSecrets = new LicenseSecrets();
+            this.licenseSecrets.setCMSLicense(that.licenseSecrets.getCMSLicense());
+            this.licenseSecrets.setMLSLicense(that.licenseSecrets.getMLSLicense());
+            this.licenseSecrets.setRLSLicense(that.licenseSecrets.getRLSLicense());
+        } else {
+            this.licenseSecrets = null;
+        }
+        this.siteMappings = that.siteMappings == null ? null : that.siteMappings.stream()
+                .map(m -> m == null ? null : new SiteMapping(m))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        this.with = that.with == null ? null : new WithOptions(that.with);
+        this.job = that.job;
+        this.scaling = Utils.copyIntOrString(that.scaling);
+        this.scalingTarget = that.scalingTarget;
+    }
 }
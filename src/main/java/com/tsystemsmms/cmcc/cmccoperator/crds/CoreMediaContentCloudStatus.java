@@ -14,6 +14,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import io.fabric8.crd.generator.annotation.PrinterColumn;
 import io.fabric8.kubernetes.model.annotation.LabelSelector;
 import io.fabric8.kubernetes.model.annotation.StatusReplicas;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -23,6 +24,7 @@ import java.util.HashMap;
 @Getter
 @Setter
 @ToString
+@EqualsAndHashCode
 public class CoreMediaContentCloudStatus {
 
     @PrinterColumn
@@ -57,4 +59,25 @@ public class CoreMediaContentCloudStatus {
 
     @PrinterColumn(name="SCALED", priority = 1)
     String scaledMessage;
+
+    public CoreMediaContentCloudStatus() {
+    }
+
+    /**
+     * Construct a status from another.
+     *
+     * @param that source for the new object
+     */
+    public CoreMediaContentCloudStatus(CoreMediaContentCloudStatus that) {
+        this.error = that.error;
+        this.errorMessage = that.errorMessage;
+        this.flags = that.flags == null ? null : new HashMap<>(that.flags);
+        this.currentVersion = that.currentVersion;
+        this.targetVersion = that.targetVersion;
+        this.job = that.job;
+        this.milestone = that.milestone;
+        this.scaling = that.scaling;
+        this.scalingSelector = that.scalingSelector;
+        this.scaledMessage = that.scaledMessage;
+    }
 }
@@ -46,6 +46,10 @@ public class ImageSpec {
         this.tag = Objects.requireNonNullElse(m.group("tag"), "");
     }
 
+    public ImageSpec(ImageSpec that) {
+        this(that.registry, that.repository, that.tag, that.pullPolicy);
+    }
+
     public void update(ImageSpec that) {
         if (!that.registry.isBlank())
             this.registry = that.registry;
@@ -20,4 +20,12 @@ public class IngressTls {
 
     @JsonPropertyDescription("Name of secret with the TLS certificate")
     private String secretName = "";
+
+    public IngressTls() {
+    }
+
+    public IngressTls(IngressTls that) {
+        this.enabled = that.enabled;
+        this.secretName = that.secretName;
+    }
 }
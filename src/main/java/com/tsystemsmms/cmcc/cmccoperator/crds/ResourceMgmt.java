@@ -12,6 +12,7 @@ package com.tsystemsmms.cmcc.cmccoperator.crds;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.ResourceRequirements;
 import io.fabric8.kubernetes.api.model.ResourceRequirementsBuilder;
@@ -34,6 +35,10 @@ public class ResourceMgmt {
   @JsonPropertyDescription("Requests for resources for this components pods")
   private Map<String, String> requests = new HashMap<>();
 
+  public ResourceMgmt(ResourceMgmt that) {
+    this(Utils.copyMap(that.limits), Utils.copyMap(that.requests));
+  }
+
   /**
    * Returns a ResourceRequirements object based on the limits and requests. The quantities specified as String
    * are converted to an Operator Framework Quantity.
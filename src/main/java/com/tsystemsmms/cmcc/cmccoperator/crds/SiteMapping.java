@@ -11,6 +11,7 @@
 package com.tsystemsmms.cmcc.cmccoperator.crds;
 
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import lombok.Data;
 
 import java.util.Collections;
@@ -45,4 +46,19 @@ public class SiteMapping {
 
     @JsonPropertyDescription("URL mapper to use for this site")
     private String urlMapper;
+
+    public SiteMapping() {
+    }
+
+    public SiteMapping(SiteMapping that) {
+        this.additionalSegments = Utils.copySet(that.additionalSegments);
+        this.fqdn = that.fqdn;
+        this.fqdnAliases = Utils.copyList(that.fqdnAliases);
+        this.hostname = that.hostname;
+        this.primarySegment = that.primarySegment;
+        this.primarySegmentRedirect = that.primarySegmentRedirect;
+        this.protocol = that.protocol;
+        this.tls = that.tls == null ? null : new IngressTls(that.tls);
+        this.urlMapper = that.urlMapper;
+    }
 }
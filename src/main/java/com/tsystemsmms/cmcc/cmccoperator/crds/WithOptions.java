@@ -11,6 +11,7 @@
 package com.tsystemsmms.cmcc.cmccoperator.crds;
 
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import io.fabric8.kubernetes.api.model.IntOrString;
 import lombok.Data;
 
@@ -71,6 +72,34 @@ public class WithOptions {
     @JsonPropertyDescription("DEPRECATED: Size of persistent data/cache volumes")
     ComponentSpec.VolumeSize volumeSize = new ComponentSpec.VolumeSize();
 
+    public WithOptions() {
+    }
+
+    /**
+     * Construct a deep copy of other options.
+     *
+     * @param that source for the new object
+     */
+    public WithOptions(WithOptions that) {
+        this.contentImport = that.contentImport;
+        this.cachesAsPvc = that.cachesAsPvc;
+        this.databases = that.databases;
+        this.jsonLogging = that.jsonLogging;
+        this.solrBasicAuthEnabled = that.solrBasicAuthEnabled;
+        this.restartContentServer = that.restartContentServer;
+        this.defaultAffinityRules = that.defaultAffinityRules;
+        this.databasesOverride = Utils.copyMap(that.databasesOverride);
+        this.delivery = that.delivery == null ? null : new WithDelivery(that.delivery);
+        this.handlerPrefixes = Utils.copySet(that.handlerPrefixes);
+        this.ingressAnnotations = Utils.copyMap(that.ingressAnnotations);
+        this.ingressSeoHandler = that.ingressSeoHandler;
+        this.management = that.management;
+        this.resources = that.resources;
+        this.responseTimeout = that.responseTimeout == null ? null : new ResponseTimeout(that.responseTimeout);
+        this.uploadSize = that.uploadSize == null ? null : new UploadSize(that.uploadSize);
+        this.volumeSize = that.volumeSize == null ? null : new ComponentSpec.VolumeSize(that.volumeSize);
+    }
+
     @Data
     public static class WithDelivery {
         @JsonPropertyDescription("Number of RLS to create")
@@ -83,6 +112,17 @@ public class WithOptions {
         IntOrString minHeadless = new IntOrString(1);
         @JsonPropertyDescription("Maximum number of Headless per RLS")
         IntOrString maxHeadless = new IntOrString(1);
+
+        public WithDelivery() {
+        }
+
+        public WithDelivery(WithDelivery that) {
+            this.rls = Utils.copyIntOrString(that.rls);
+            this.minCae = Utils.copyIntOrString(that.minCae);
+            this.maxCae = Utils.copyIntOrString(that.maxCae);
+            this.minHeadless = Utils.copyIntOrString(that.minHeadless);
+            this.maxHeadless = Utils.copyIntOrString(that.maxHeadless);
+        }
     }
 
     @Data
@@ -93,6 +133,15 @@ public class WithOptions {
         IntOrString preview = new IntOrString(0);
         @JsonPropertyDescription("Size of POST/PUT body in MB for the Studio")
         IntOrString studio = new IntOrString(0);
+
+        public UploadSize() {
+        }
+
+        public UploadSize(UploadSize that) {
+            this.live = Utils.copyIntOrString(that.live);
+            this.preview = Utils.copyIntOrString(that.preview);
+            this.studio = Utils.copyIntOrString(that.studio);
+        }
     }
 
     @Data
@@ -103,6 +152,15 @@ public class WithOptions {
         IntOrString preview = new IntOrString(60);
         @JsonPropertyDescription("Response timeout in the ingress controller for the Studio")
         IntOrString studio = new IntOrString(60);
+
+        public ResponseTimeout() {
+        }
+
+        public ResponseTimeout(ResponseTimeout that) {
+            this.live = Utils.copyIntOrString(that.live);
+            this.preview = Utils.copyIntOrString(that.preview);
+            this.studio = Utils.copyIntOrString(that.studio);
+        }
     }
 
     /**
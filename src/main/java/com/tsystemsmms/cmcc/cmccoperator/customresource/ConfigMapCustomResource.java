@@ -10,37 +10,29 @@
 
 package com.tsystemsmms.cmcc.cmccoperator.customresource;
 
-import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudSpec;
-import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudStatus;
-import com.tsystemsmms.cmcc.cmccoperator.targetstate.CustomResourceConfigError;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import lombok.extern.slf4j.Slf4j;
 
-import static org.springframework.beans.BeanUtils.copyProperties;
-
 @Slf4j
 public class ConfigMapCustomResource extends AbstractCustomResource {
     final ConfigMap cm;
     final YamlMapper yamlMapper;
+    final String canonicalSpec;
 
     public ConfigMapCustomResource(ConfigMap cm, YamlMapper yamlMapper) {
-        super(cm, getSpecFromConfigMap(cm, yamlMapper), getStatusFromConfigMap(cm, yamlMapper));
-        this.cm = cm;
-        this.yamlMapper = yamlMapper;
+        this(cm, new ConfigMapParseCache(yamlMapper, 0));
     }
 
-    private static CoreMediaContentCloudSpec getSpecFromConfigMap(ConfigMap cm, YamlMapper yamlMapper) {
-        String specString = cm.getData().get("spec");
-        if (specString == null)
-            throw new CustomResourceConfigError("ConfigMap \"" + cm.getMetadata().getName() + "\": property \"spec\" is missing.");
-        return yamlMapper.load(specString, CoreMediaContentCloudSpec.class);
+    public ConfigMapCustomResource(ConfigMap cm, ConfigMapParseCache parseCache) {
+        this(cm, parseCache.getYamlMapper(), parseCache.parse(cm));
     }
 
-    private static CoreMediaContentCloudStatus getStatusFromConfigMap(ConfigMap cm, YamlMapper yamlMapper) {
-        return cm.getData().containsKey("status")
-                ? yamlMapper.load(cm.getData().get("status"), CoreMediaContentCloudStatus.class)
-                : new CoreMediaContentCloudStatus();
+    private ConfigMapCustomResource(ConfigMap cm, YamlMapper yamlMapper, ConfigMapParseCache.Parsed parsed) {
+        super(cm, parsed.spec(), parsed.status());
+        this.cm = cm;
+        this.yamlMapper = yamlMapper;
+        this.canonicalSpec = parsed.canonicalSpec();
     }
 
     @Override
@@ -48,4 +40,25 @@ public class ConfigMapCustomResource extends AbstractCustomResource {
         cm.getData().put("spec", yamlMapper.dump(spec));
         cm.getData().put("status", yamlMapper.dump(status));
     }
+
+    /**
+     * Write spec and status back into the ConfigMap, but only if they have changed. The spec keeps the formatting it
+     * has been written with, unless it has been changed.
+     *
+     * @return true if the ConfigMap has been changed and needs to be written
+     */
+    public boolean updateResourceIfChanged() {
+        boolean changed = false;
+        String specYaml = yamlMapper.dump(spec);
+        if (!specYaml.equals(canonicalSpec)) {
+            cm.getData().put("spec", specYaml);
+            changed = true;
+        }
+        String statusYaml = yamlMapper.dump(status);
+        if (!statusYaml.equals(cm.getData().get("status"))) {
+            cm.getData().put("status", statusYaml);
+            changed = true;
+        }
+        return changed;
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.customresource;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudSpec;
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudStatus;
+import com.tsystemsmms.cmcc.cmccoperator.targetstate.CustomResourceConfigError;
+import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the spec and status parsed from the YAML in a ConfigMap, so that they are only parsed again when the
+ * ConfigMap has changed. Most events for a ConfigMap come from its own resources, or from the status the reconciler has
+ * written; they leave the spec untouched.
+ * <p>
+ * An entry is reused if the resourceVersion of the ConfigMap is unchanged, or else if the YAML is the same. Callers get
+ * deep copies, since the reconciliation modifies spec and status.
+ */
+public class ConfigMapParseCache {
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  @Getter
+  private final YamlMapper yamlMapper;
+  private final Map<String, Entry> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * The spec and status of a ConfigMap.
+   *
+   * @param spec          the spec
+   * @param canonicalSpec the spec as written by {@link YamlMapper#dump(Object)}, to find out whether it has changed
+   * @param status        the status
+   */
+  public record Parsed(CoreMediaContentCloudSpec spec, String canonicalSpec, CoreMediaContentCloudStatus status) {
+  }
+
+  private record Entry(String resourceVersion, String specSource, CoreMediaContentCloudSpec spec, String canonicalSpec,
+                       String statusSource, CoreMediaContentCloudStatus status) {
+  }
+
+  public ConfigMapParseCache(YamlMapper yamlMapper) {
+    this(yamlMapper, DEFAULT_MAX_ENTRIES);
+  }
+
+  public ConfigMapParseCache(YamlMapper yamlMapper, int maxEntries) {
+    this.yamlMapper = yamlMapper;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns the spec and status of the ConfigMap.
+   *
+   * @param cm the ConfigMap
+   * @return copies of spec and status
+   */
+  public Parsed parse(ConfigMap cm) {
+    String specSource = cm.getData() == null ? null : cm.getData().get("spec");
+    if (specSource == null) {
+      throw new CustomResourceConfigError("ConfigMap \"" + cm.getMetadata().getName() + "\": property \"spec\" is missing.");
+    }
+    String statusSource = cm.getData().get("status");
+    String resourceVersion = cm.getMetadata().getResourceVersion();
+    String key = cm.getMetadata().getNamespace() + "/" + cm.getMetadata().getName();
+
+    Entry cached;
+    synchronized (entries) {
+      cached = entries.get(key);
+    }
+    boolean sameVersion = cached != null && resourceVersion != null && resourceVersion.equals(cached.resourceVersion());
+    boolean sameSpec = cached != null && (sameVersion || specSource.equals(cached.specSource()));
+    boolean sameStatus = cached != null && (sameVersion || Objects.equals(statusSource, cached.statusSource()));
+
+    Entry entry = cached;
+    if (sameSpec && sameStatus) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+    }
+    if (!sameVersion) {
+      CoreMediaContentCloudSpec spec = sameSpec ? cached.spec() : yamlMapper.load(specSource, CoreMediaContentCloudSpec.class);
+      String canonicalSpec = sameSpec ? cached.canonicalSpec() : yamlMapper.dump(spec);
+      CoreMediaContentCloudStatus status = sameStatus ? cached.status() : statusSource == null
+              ? new CoreMediaContentCloudStatus()
+              : yamlMapper.load(statusSource, CoreMediaContentCloudStatus.class);
+      entry = new Entry(resourceVersion, specSource, spec, canonicalSpec, statusSource, status);
+      synchronized (entries) {
+        entries.put(key, entry);
+      }
+    }
+    return new Parsed(new CoreMediaContentCloudSpec(entry.spec()), entry.canonicalSpec(), new CoreMediaContentCloudStatus(entry.status()));
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A kind of request to the Kubernetes API server.
+ *
+ * @param verb   verb in the style of RBAC: get, list, watch, create, update, patch, delete or deletecollection
+ * @param kind   resource, as used in the URL, for example "statefulsets" or "pods/exec"
+ * @param caller simple name of the operator class that issued the request, or "framework"
+ */
+public record ApiCall(String verb, String kind, String caller) {
+  public static final String FRAMEWORK = "framework";
+
+  /**
+   * Classify a request by method and URL.
+   *
+   * @param method HTTP method
+   * @param uri    URL of the request
+   * @param caller caller of the request
+   * @return the call
+   */
+  public static ApiCall of(String method, URI uri, String caller) {
+    List<String> segments = Arrays.stream(uri.getPath().split("/")).filter(s -> !s.isEmpty()).toList();
+    int start;
+    if (segments.size() >= 2 && segments.get(0).equals("api")) {
+      start = 2;
+    } else if (segments.size() >= 3 && segments.get(0).equals("apis")) {
+      start = 3;
+    } else {
+      return new ApiCall(method.toLowerCase(), uri.getPath(), caller);
+    }
+    List<String> rest = segments.subList(start, segments.size());
+    if (rest.size() >= 3 && rest.get(0).equals("namespaces")) {
+      rest = rest.subList(2, rest.size());
+    }
+    if (rest.isEmpty()) {
+      return new ApiCall(method.toLowerCase(), uri.getPath(), caller);
+    }
+
+    String kind = rest.get(0);
+    boolean named = rest.size() > 1;
+    if (rest.size() > 2) {
+      kind = kind + "/" + rest.get(2);
+    }
+    return new ApiCall(getVerb(method, named, uri.getQuery()), kind, caller);
+  }
+
+  private static String getVerb(String method, boolean named, String query) {
+    return switch (method.toUpperCase()) {
+      case "GET" -> {
+        if (query != null && query.contains("watch=true")) {
+          yield "watch";
+        }
+        yield named ? "get" : "list";
+      }
+      case "POST" -> "create";
+      case "PUT" -> "update";
+      case "PATCH" -> "patch";
+      case "DELETE" -> named ? "delete" : "deletecollection";
+      default -> method.toLowerCase();
+    };
+  }
+
+  @Override
+  public String toString() {
+    return verb + " " + kind + " (" + caller + ")";
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attributes the requests to the Kubernetes API server to the reconciliation that issued them.
+ * <p>
+ * A reconciliation runs on one thread, so the requests are attributed through a thread local. Work handed to other
+ * threads must be wrapped with {@link #propagate(Runnable)}. Requests made outside a reconciliation, for example by the
+ * informers, are attributed to the framework.
+ */
+public class ApiCallAccounting {
+  private static final ThreadLocal<ApiCalls> CURRENT = new ThreadLocal<>();
+  private static final String BASE_PACKAGE = "com.tsystemsmms.cmcc.cmccoperator.";
+  private static final Set<String> INSTRUMENTATION = Set.of(
+          ApiCallAccounting.class.getSimpleName(), ApiCallInterceptor.class.getSimpleName());
+  private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+  private final MeterRegistry registry;
+  private final Map<String, ApiCalls> lastReconciliations = new ConcurrentHashMap<>();
+
+  public ApiCallAccounting(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Start attributing the requests of this thread to the reconciliation of a custom resource.
+   *
+   * @param namespace namespace of the custom resource
+   * @param name      name of the custom resource
+   * @return the requests of the reconciliation
+   */
+  public ApiCalls begin(String namespace, String name) {
+    ApiCalls calls = new ApiCalls(namespace, name);
+    CURRENT.set(calls);
+    return calls;
+  }
+
+  /**
+   * Stop attributing the requests of this thread.
+   *
+   * @param calls the requests of the reconciliation, as returned from {@link #begin(String, String)}
+   */
+  public void end(ApiCalls calls) {
+    CURRENT.remove();
+    lastReconciliations.put(calls.getNamespace() + "/" + calls.getName(), calls);
+  }
+
+  /**
+   * Returns the requests of the latest reconciliation of a custom resource.
+   *
+   * @param namespace namespace of the custom resource
+   * @param name      name of the custom resource
+   * @return the requests, if the custom resource has been reconciled
+   */
+  public Optional<ApiCalls> getLastReconciliation(String namespace, String name) {
+    return Optional.ofNullable(lastReconciliations.get(namespace + "/" + name));
+  }
+
+  /**
+   * Forget the requests of the custom resources that have been deleted.
+   *
+   * @param existing the custom resources that exist
+   */
+  public void retainExisting(DeletedResourcePruner.ExistingResources existing) {
+    lastReconciliations.values().removeIf(calls -> !existing.contains(calls.getNamespace(), calls.getName()));
+  }
+
+  /**
+   * Wrap a task so that its requests are attributed to the reconciliation running on the calling thread.
+   *
+   * @param task the task
+   * @return the wrapped task
+   */
+  public static Runnable propagate(Runnable task) {
+    ApiCalls calls = CURRENT.get();
+    if (calls == null) {
+      return task;
+    }
+    return () -> {
+      ApiCalls previous = CURRENT.get();
+      CURRENT.set(calls);
+      try {
+        task.run();
+      } finally {
+        if (previous == null) {
+          CURRENT.remove();
+        } else {
+          CURRENT.set(previous);
+        }
+      }
+    };
+  }
+
+  /**
+   * Count a request, issued from the calling thread. The exported counter is not tagged with the custom resource, so
+   * that the number of series does not grow with the custom resources; the requests per custom resource are kept in
+   * its {@link ApiCalls}, which are logged at debug level after each reconciliation.
+   *
+   * @param method HTTP method
+   * @param uri    URL of the request
+   */
+  public void record(String method, URI uri) {
+    ApiCalls calls = CURRENT.get();
+    // walking the stack is only worth it for requests of a reconciliation, all others are sent by the framework
+    ApiCall call = ApiCall.of(method, uri, calls != null ? findCaller() : ApiCall.FRAMEWORK);
+    if (calls != null) {
+      calls.record(call);
+    }
+    Counter.builder("cmcc.api.requests")
+            .description("Requests to the Kubernetes API server")
+            .tag("verb", call.verb())
+            .tag("kind", call.kind())
+            .tag("caller", call.caller())
+            .register(registry)
+            .increment();
+  }
+
+  /**
+   * The caller is the innermost operator class on the stack.
+   */
+  private static String findCaller() {
+    return STACK_WALKER.walk(frames -> frames
+            .map(StackWalker.StackFrame::getClassName)
+            .filter(c -> c.startsWith(BASE_PACKAGE))
+            .map(ApiCallAccounting::simpleName)
+            .filter(c -> !INSTRUMENTATION.contains(c))
+            .findFirst()
+            .orElse(ApiCall.FRAMEWORK));
+  }
+
+  private static String simpleName(String className) {
+    String name = className.substring(className.lastIndexOf('.') + 1);
+    int inner = name.indexOf('$');
+    return inner > 0 ? name.substring(0, inner) : name;
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import io.fabric8.kubernetes.client.http.BasicBuilder;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import io.fabric8.kubernetes.client.http.RequestTags;
+
+/**
+ * Counts every request the Kubernetes client sends, see {@link ApiCallAccounting}.
+ */
+public class ApiCallInterceptor implements Interceptor {
+  public static final String NAME = "cmcc-api-call-accounting";
+
+  private final ApiCallAccounting accounting;
+
+  public ApiCallInterceptor(ApiCallAccounting accounting) {
+    this.accounting = accounting;
+  }
+
+  /**
+   * Returns a client that shares the connections of the given client, and counts its requests.
+   *
+   * @param httpClient client
+   * @return instrumented client
+   */
+  public HttpClient instrument(HttpClient httpClient) {
+    return httpClient.newBuilder().addOrReplaceInterceptor(NAME, this).build();
+  }
+
+  @Override
+  public void before(BasicBuilder builder, HttpRequest request, RequestTags tags) {
+    accounting.record(request.method(), request.uri());
+  }
+}
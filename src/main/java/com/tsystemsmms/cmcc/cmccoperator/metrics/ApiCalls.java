@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The requests to the Kubernetes API server issued by one reconciliation of a custom resource.
+ */
+public class ApiCalls {
+  @Getter
+  private final String namespace;
+  @Getter
+  private final String name;
+  private final Map<ApiCall, LongAdder> calls = new ConcurrentHashMap<>();
+
+  public ApiCalls(String namespace, String name) {
+    this.namespace = namespace;
+    this.name = name;
+  }
+
+  void record(ApiCall call) {
+    calls.computeIfAbsent(call, c -> new LongAdder()).increment();
+  }
+
+  /**
+   * Returns the number of requests matching the filter.
+   *
+   * @param filter selects the requests
+   * @return number of requests
+   */
+  public long count(Predicate<ApiCall> filter) {
+    return calls.entrySet().stream().filter(e -> filter.test(e.getKey())).mapToLong(e -> e.getValue().sum()).sum();
+  }
+
+  public long getTotal() {
+    return count(c -> true);
+  }
+
+  /**
+   * Returns the number of requests, by kind of request.
+   *
+   * @return requests
+   */
+  public Map<ApiCall, Long> getCalls() {
+    return calls.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum()));
+  }
+
+  @Override
+  public String toString() {
+    return getTotal() + " requests" + getCalls().entrySet().stream()
+            .sorted(Map.Entry.<ApiCall, Long>comparingByValue().reversed().thenComparing(e -> e.getKey().toString()))
+            .map(e -> e.getKey() + ": " + e.getValue())
+            .collect(Collectors.joining(", ", calls.isEmpty() ? "" : ": ", ""));
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.http.HttpClient;
+
+/**
+ * Creates the HTTP clients for the Kubernetes client with the {@link ApiCallInterceptor}.
+ */
+public class InstrumentedHttpClientFactory implements HttpClient.Factory {
+  private final HttpClient.Factory delegate;
+  private final ApiCallInterceptor interceptor;
+
+  public InstrumentedHttpClientFactory(HttpClient.Factory delegate, ApiCallInterceptor interceptor) {
+    this.delegate = delegate;
+    this.interceptor = interceptor;
+  }
+
+  @Override
+  public HttpClient.Builder newBuilder() {
+    return delegate.newBuilder().addOrReplaceInterceptor(ApiCallInterceptor.NAME, interceptor);
+  }
+
+  @Override
+  public HttpClient.Builder newBuilder(Config config) {
+    return delegate.newBuilder(config).addOrReplaceInterceptor(ApiCallInterceptor.NAME, interceptor);
+  }
+
+  @Override
+  public int priority() {
+    return delegate.priority();
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.resource.ReconcilePlan;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import com.tsystemsmms.cmcc.cmccoperator.targetstate.ConvergenceStats;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The metrics the operator records about reconciling custom resources.
+ * <p>
+ * Except for cmcc.reconcile.stale.events and the cmcc.api.requests of {@link ApiCallAccounting}, all meters are tagged
+ * with {@value #TAG_NAMESPACE} and {@value #TAG_NAME} (the name of the custom resource), so the custom resources that
+ * take the most time can be found. Additional tags:
+ * <ul>
+ *   <li>cmcc.reconcile (timer): outcome, success or error</li>
+ *   <li>cmcc.reconcile.phase (timer): phase, one of the PHASE_ constants</li>
+ *   <li>cmcc.reconcile.errors (counter): exception, the simple class name</li>
+ *   <li>cmcc.resources (counter): operation (create, update, skip, delete), kind, and {@value #TAG_COMPONENT}, the
+ *   component type from the type label, or none</li>
+ *   <li>cmcc.milestone.transitions (counter): from and to</li>
+ *   <li>cmcc.secrets.lookups (counter): source, {@value #SECRET_SOURCE_CACHE} or {@value #SECRET_SOURCE_API}</li>
+ *   <li>cmcc.podtemplates.unstable (counter): check</li>
+ *   <li>cmcc.pod.exec (timer): {@value #TAG_COMPONENT}, the component type</li>
+ * </ul>
+ * cmcc.secrets.generated (counter), cmcc.convergence.loops and cmcc.convergence.changed.components (distribution
+ * summaries) have no additional tags.
+ */
+@Slf4j
+public class ReconcileMetrics implements DeletedResourcePruner.PerResourceState {
+  public static final String TAG_NAMESPACE = "namespace";
+  public static final String TAG_NAME = "cmcc";
+  public static final String TAG_COMPONENT = "component";
+
+  public static final String PHASE_CONVERGE = "converge";
+  public static final String PHASE_BUILD_RESOURCES = "buildResources";
+  public static final String PHASE_DIFF = "diff";
+  public static final String PHASE_APPLY = "apply";
+
+  public static final String SECRET_SOURCE_CACHE = "cache";
+  public static final String SECRET_SOURCE_API = "api";
+
+  static final String TYPE_LABEL = "cmcc.tsystemsmms.com/type";
+
+  @Getter
+  private final MeterRegistry registry;
+  @Getter
+  private final ApiCallAccounting apiCallAccounting;
+  private final Counter staleEvents;
+
+  public ReconcileMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.apiCallAccounting = new ApiCallAccounting(registry);
+    this.staleEvents = Counter.builder("cmcc.reconcile.stale.events")
+            .description("Events skipped because a newer version of the custom resource had already been reconciled")
+            .register(registry);
+  }
+
+  /**
+   * Metrics that are recorded, but not exported anywhere. Useful for tests and benchmarks.
+   *
+   * @return metrics
+   */
+  public static ReconcileMetrics unexported() {
+    return new ReconcileMetrics(new SimpleMeterRegistry());
+  }
+
+  /**
+   * Returns the tags identifying the custom resource.
+   *
+   * @param cmcc custom resource
+   * @return tags
+   */
+  public static Tags tags(CustomResource cmcc) {
+    return tags(cmcc.getMetadata().getNamespace(), cmcc.getMetadata().getName());
+  }
+
+  public static Tags tags(String namespace, String name) {
+    return Tags.of(TAG_NAMESPACE, String.valueOf(namespace), TAG_NAME, String.valueOf(name));
+  }
+
+  /**
+   * Start timing a reconciliation, and attributing the requests to the Kubernetes API server to it.
+   *
+   * @param namespace namespace of the custom resource
+   * @param name      name of the custom resource
+   * @return the reconciliation, to be stopped when done
+   */
+  public Reconciliation startReconcile(String namespace, String name) {
+    return new Reconciliation(namespace, name, Timer.start(registry), apiCallAccounting.begin(namespace, name));
+  }
+
+  /**
+   * A running reconciliation.
+   */
+  @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+  public class Reconciliation {
+    private final String namespace;
+    private final String name;
+    private final Timer.Sample sample;
+    private final ApiCalls apiCalls;
+
+    /**
+     * Record the duration of the reconciliation, the error if it failed, and the requests it issued.
+     *
+     * @param error the error the reconciliation failed with, or null
+     */
+    public void stop(Throwable error) {
+      apiCallAccounting.end(apiCalls);
+      log.debug("[{}/{}] Kubernetes API: {}", namespace, name, apiCalls);
+
+      Tags tags = tags(namespace, name);
+      sample.stop(Timer.builder("cmcc.reconcile")
+              .description("Duration of reconciling a custom resource")
+              .tags(tags)
+              .tag("outcome", error == null ? "success" : "error")
+              .register(registry));
+      if (error != null) {
+        Counter.builder("cmcc.reconcile.errors")
+                .description("Failed reconciliations, by exception class")
+                .tags(tags)
+                .tag("exception", error.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+      }
+    }
+  }
+
+  /**
+   * Time one phase of the reconciliation.
+   *
+   * @param cmcc     custom resource
+   * @param phase    name of the phase, one of the PHASE_ constants
+   * @param supplier the phase
+   * @param <T>      result of the phase
+   * @return result of the phase
+   */
+  public <T> T timePhase(CustomResource cmcc, String phase, Supplier<T> supplier) {
+    return phaseTimer(cmcc, phase).record(supplier);
+  }
+
+  public void timePhase(CustomResource cmcc, String phase, Runnable runnable) {
+    phaseTimer(cmcc, phase).record(runnable);
+  }
+
+  private Timer phaseTimer(CustomResource cmcc, String phase) {
+    return Timer.builder("cmcc.reconcile.phase")
+            .description("Duration of the phases of reconciling a custom resource")
+            .tags(tags(cmcc))
+            .tag("phase", phase)
+            .register(registry);
+  }
+
+  /**
+   * Count the resources that are created, updated, left alone, and deleted, by kind and component type.
+   *
+   * @param cmcc custom resource
+   * @param plan the plan that is going to be executed
+   */
+  public void recordPlan(CustomResource cmcc, ReconcilePlan plan) {
+    Tags tags = tags(cmcc);
+    recordResources(tags, "create", plan.getCreates());
+    recordResources(tags, "update", plan.getUpdates());
+    recordResources(tags, "skip", plan.getUnchanged());
+    recordResources(tags, "delete", plan.getDeletes());
+  }
+
+  private void recordResources(Tags tags, String operation, List<HasMetadata> resources) {
+    for (HasMetadata resource : resources) {
+      Counter.builder("cmcc.resources")
+              .description("Resources created, updated, skipped because unchanged, and deleted")
+              .tags(tags)
+              .tag("operation", operation)
+              .tag("kind", resource.getKind())
+              .tag(TAG_COMPONENT, getComponentType(resource))
+              .register(registry)
+              .increment();
+    }
+  }
+
+  private static String getComponentType(HasMetadata resource) {
+    Map<String, String> labels = resource.getMetadata().getLabels();
+    String type = labels == null ? null : labels.get(TYPE_LABEL);
+    return type == null ? "none" : type;
+  }
+
+  /**
+   * Count a change of the milestone.
+   *
+   * @param cmcc     custom resource
+   * @param previous milestone before the change
+   * @param current  milestone after the change
+   */
+  public void recordMilestoneTransition(CustomResource cmcc, Milestone previous, Milestone current) {
+    Counter.builder("cmcc.milestone.transitions")
+            .description("Changes of the milestone")
+            .tags(tags(cmcc))
+            .tag("from", String.valueOf(previous))
+            .tag("to", String.valueOf(current))
+            .register(registry)
+            .increment();
+  }
+
+  /**
+   * Count a lookup of a secret, by where it was answered from: the informer cache, or the API server.
+   *
+   * @param cmcc   custom resource
+   * @param source {@link #SECRET_SOURCE_CACHE} or {@link #SECRET_SOURCE_API}
+   */
+  public void recordSecretLookup(CustomResource cmcc, String source) {
+    Counter.builder("cmcc.secrets.lookups")
+            .description("Lookups of secrets with credentials, by source")
+            .tags(tags(cmcc))
+            .tag("source", source)
+            .register(registry)
+            .increment();
+  }
+
+  /**
+   * Count the secrets with newly generated credentials that are going to be created.
+   *
+   * @param cmcc  custom resource
+   * @param count number of secrets
+   */
+  public void recordSecretsGenerated(CustomResource cmcc, int count) {
+    Counter.builder("cmcc.secrets.generated")
+            .description("Secrets with generated credentials")
+            .tags(tags(cmcc))
+            .register(registry)
+            .increment(count);
+  }
+
+  /**
+   * Count a verification that found pod templates differing between builds from the same input.
+   *
+   * @param cmcc  custom resource
+   * @param check the check that found the differences
+   */
+  public void recordUnstablePodTemplates(CustomResource cmcc, String check) {
+    Counter.builder("cmcc.podtemplates.unstable")
+            .description("Verifications that found pod templates differing between builds from the same input")
+            .tags(tags(cmcc))
+            .tag("check", check)
+            .register(registry)
+            .increment();
+  }
+
+  /**
+   * Record how many convergence loops building the target state took, and how many components changed per loop.
+   *
+   * @param cmcc  custom resource
+   * @param stats statistics of the target state
+   */
+  public void recordConvergence(CustomResource cmcc, ConvergenceStats stats) {
+    Tags tags = tags(cmcc);
+    DistributionSummary.builder("cmcc.convergence.loops")
+            .description("Convergence loops needed to build the target state")
+            .tags(tags)
+            .register(registry)
+            .record(stats.getLoops());
+    DistributionSummary changed = DistributionSummary.builder("cmcc.convergence.changed.components")
+            .description("Components created or updated per convergence loop")
+            .tags(tags)
+            .register(registry);
+    stats.getChangedComponents().forEach(changed::record);
+  }
+
+  /**
+   * Time a command executed in a pod of a component.
+   *
+   * @param cmcc          custom resource
+   * @param componentType type of the component
+   * @param command       the command
+   * @param <T>           result of the command
+   * @return result of the command
+   */
+  public <T> T timePodCommand(CustomResource cmcc, String componentType, Supplier<T> command) {
+    return Timer.builder("cmcc.pod.exec")
+            .description("Duration of commands executed in pods")
+            .tags(tags(cmcc))
+            .tag(TAG_COMPONENT, String.valueOf(componentType))
+            .register(registry)
+            .record(command);
+  }
+
+  public void recordStaleEvent() {
+    staleEvents.increment();
+  }
+
+  /**
+   * Remove the meters of all custom resources that have been deleted, so that they are no longer exported.
+   *
+   * @param existing the custom resources that exist
+   */
+  @Override
+  public void retainExisting(DeletedResourcePruner.ExistingResources existing) {
+    List<Meter> meters = registry.getMeters().stream()
+            .filter(m -> isOfDeletedResource(m.getId(), existing))
+            .toList();
+    meters.forEach(registry::remove);
+    apiCallAccounting.retainExisting(existing);
+    if (!meters.isEmpty()) {
+      log.debug("Removed {} meters of deleted custom resources", meters.size());
+    }
+  }
+
+  private static boolean isOfDeletedResource(Meter.Id id, DeletedResourcePruner.ExistingResources existing) {
+    String namespace = id.getTag(TAG_NAMESPACE);
+    String name = id.getTag(TAG_NAME);
+    return namespace != null && name != null && !existing.contains(namespace, name);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import lombok.SneakyThrows;
+
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A stable hash of the content of a resource as built by the operator. The hash is stored as an annotation on the
+ * resource, so that an unchanged resource does not need to be written again.
+ * <p>
+ * Only the parts of the metadata the operator sets are included, fields managed by the API server like the
+ * resourceVersion or the uid are ignored, as is the status.
+ */
+public class DesiredStateHash {
+  public static final String ANNOTATION = "cmcc.tsystemsmms.com/desired-state-hash";
+
+  private static final Set<String> HASHED_METADATA = Set.of("name", "namespace", "labels", "annotations", "ownerReferences", "finalizers");
+
+  private static final ObjectMapper objectMapper = JsonMapper.builder()
+          .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+          .build();
+
+  private DesiredStateHash() {
+  }
+
+  /**
+   * Compute the hash of the resource. An existing hash annotation is ignored.
+   *
+   * @param resource the resource
+   * @return hash as hex string
+   */
+  @SneakyThrows
+  public static String compute(HasMetadata resource) {
+    ObjectNode tree = objectMapper.valueToTree(resource);
+    tree.remove("status");
+    if (tree.get("metadata") instanceof ObjectNode metadata) {
+      metadata.retain(HASHED_METADATA);
+      if (metadata.get("annotations") instanceof ObjectNode annotations) {
+        annotations.remove(ANNOTATION);
+        if (annotations.isEmpty()) {
+          metadata.remove("annotations");
+        }
+      }
+    }
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(tree)));
+  }
+
+  /**
+   * Compute the hash of the resource and store it in the annotation.
+   *
+   * @param resource the resource
+   * @param <T>      resource type
+   * @return the resource
+   */
+  public static <T extends HasMetadata> T annotate(T resource) {
+    ObjectMeta metadata = resource.getMetadata();
+    Map<String, String> annotations = metadata.getAnnotations() == null ? new HashMap<>() : new HashMap<>(metadata.getAnnotations());
+    annotations.put(ANNOTATION, compute(resource));
+    metadata.setAnnotations(annotations);
+    return resource;
+  }
+
+  /**
+   * Returns the hash stored in the annotation of the resource.
+   *
+   * @param resource the resource
+   * @return the hash, or null if the resource has not been annotated
+   */
+  public static String get(HasMetadata resource) {
+    Map<String, String> annotations = resource.getMetadata().getAnnotations();
+    return annotations == null ? null : annotations.get(ANNOTATION);
+  }
+
+  /**
+   * Returns true if both resources carry the same hash.
+   *
+   * @param desired the resource as built
+   * @param live    the resource in the cluster
+   * @return true if the live resource has been written from the same desired state
+   */
+  public static boolean isUnchanged(HasMetadata desired, HasMetadata live) {
+    String hash = get(desired);
+    return hash != null && hash.equals(get(live));
+  }
+}
@@ -19,7 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class HasMetadataReconciler implements Reconciler {
     @Override
-    public void reconcile(KubernetesClient kubernetesClient, String namespace, HasMetadata resource) {
+    public void reconcile(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, String namespace, HasMetadata resource) {
 //        log.debug("reconciling {}/{}", resource.getKind(), resource.getMetadata().getName());
         // https://github.com/fabric8io/kubernetes-client/blob/main/doc/FAQ.md#alternatives-to-createorreplace-and-replace
         kubernetesClient.resource(resource).inNamespace(namespace).unlock().createOr(NonDeletingOperation::update);
@@ -13,18 +13,16 @@ package com.tsystemsmms.cmcc.cmccoperator.resource;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.batch.v1.Job;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.Resource;
 import lombok.extern.slf4j.Slf4j;
 
 @ResourceReconciler(Job.class)
 @Slf4j
 public class JobReconciler implements Reconciler {
     @Override
-    public void reconcile(KubernetesClient kubernetesClient, String namespace, HasMetadata resource) {
-        Resource<Job> existing = kubernetesClient.batch().v1().jobs().inNamespace(namespace).withName(resource.getMetadata().getName());
-        if (existing.get() == null) {
+    public void reconcile(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, String namespace, HasMetadata resource) {
+        if (resourceCache.get(Job.class, namespace, resource.getMetadata().getName()).isEmpty()) {
             log.debug("starting {}/{}", resource.getKind(), resource.getMetadata().getName());
-            kubernetesClient.resource(resource).inNamespace(namespace).create();
+            resourceCache.handleRecentResourceCreate(kubernetesClient.resource(resource).inNamespace(namespace).create());
         }
     }
 }
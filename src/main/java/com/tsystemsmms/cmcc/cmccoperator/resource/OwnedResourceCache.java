@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import com.tsystemsmms.cmcc.cmccoperator.components.job.JobComponent;
+import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.javaoperatorsdk.operator.api.config.informer.InformerEventSourceConfiguration;
+import io.javaoperatorsdk.operator.api.reconciler.EventSourceContext;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.javaoperatorsdk.operator.processing.event.source.EventSource;
+import io.javaoperatorsdk.operator.processing.event.source.filter.GenericFilter;
+import io.javaoperatorsdk.operator.processing.event.source.informer.InformerEventSource;
+import io.javaoperatorsdk.operator.processing.event.source.informer.Mappers;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.tsystemsmms.cmcc.cmccoperator.CoreMediaContentCloudReconciler.OPERATOR_SELECTOR_LABELS;
+import static com.tsystemsmms.cmcc.cmccoperator.utils.KubernetesUtils.ALL_KUBERNETES_RESOURCE_TYPES;
+import static com.tsystemsmms.cmcc.cmccoperator.utils.KubernetesUtils.getAllResourcesMatchingLabels;
+
+/**
+ * Read access to the resources managed by the operator, served from the informers of the reconcilers.
+ * <p>
+ * The reconcilers register one informer for each of the resource kinds in ALL_KUBERNETES_RESOURCE_TYPES. Job and
+ * StatefulSet informers trigger reconciliations, but only for updates that can change the state of a component (see
+ * {@link ReadinessRelevantUpdateFilter}). All others only keep the cache up to date. If there is no informer
+ * for a kind, or the cache has been disabled, lookups go to the API server instead.
+ */
+@Slf4j
+public class OwnedResourceCache {
+  final KubernetesClient kubernetesClient;
+  @Getter
+  final boolean enabled;
+
+  private final Map<Class<? extends HasMetadata>, InformerEventSource<? extends HasMetadata, ?>> informers = new ConcurrentHashMap<>();
+
+  public OwnedResourceCache(KubernetesClient kubernetesClient, boolean enabled) {
+    this.kubernetesClient = kubernetesClient;
+    this.enabled = enabled;
+    if (!enabled) {
+      log.info("Informer cache for owned resources disabled, reading resources from the API server");
+    }
+  }
+
+  /**
+   * Create the informers for all owned resource kinds for a reconciler. Only Jobs and StatefulSets trigger a
+   * reconciliation of their owner, all other kinds are watched to fill the cache.
+   *
+   * @param context         the event source context of the reconciler
+   * @param primaryClass    the primary resource of the reconciler, used to map owner references
+   * @param namespaceFilter filter for excluded namespaces
+   * @param <P>             primary resource type
+   * @return event sources to be returned from prepareEventSources()
+   */
+  public <P extends HasMetadata> List<EventSource<?, P>> prepareEventSources(EventSourceContext<P> context, Class<P> primaryClass, GenericFilter<HasMetadata> namespaceFilter) {
+    List<EventSource<?, P>> eventSources = new LinkedList<>();
+
+    for (Class<? extends HasMetadata> kind : ALL_KUBERNETES_RESOURCE_TYPES) {
+      eventSources.add(buildEventSource(context, primaryClass, kind, namespaceFilter));
+    }
+    return eventSources;
+  }
+
+  private <R extends HasMetadata, P extends HasMetadata> InformerEventSource<R, P> buildEventSource(EventSourceContext<P> context, Class<P> primaryClass, Class<R> kind, GenericFilter<HasMetadata> namespaceFilter) {
+    var builder = InformerEventSourceConfiguration.from(kind, primaryClass)
+            .withSecondaryToPrimaryMapper(Mappers.fromOwnerReferences(primaryClass))
+            // watch the namespaces of the custom resources, also when they change, see NamespaceWatcher
+            .withNamespacesInheritedFromController();
+
+    if (Job.class.equals(kind)) {
+      builder.withGenericFilter(namespaceFilter)
+              .withOnUpdateFilter(new ReadinessRelevantUpdateFilter<>())
+              .withLabelSelector(Utils.selectorFromLabels(JobComponent.getJobLabels()));
+    } else if (StatefulSet.class.equals(kind)) {
+      builder.withGenericFilter(namespaceFilter)
+              .withOnUpdateFilter(new ReadinessRelevantUpdateFilter<>())
+              .withLabelSelector(Utils.selectorFromLabels(OPERATOR_SELECTOR_LABELS));
+    } else {
+      // cache only, changes to these resources never require a reconciliation
+      builder.withGenericFilter(r -> false)
+              .withLabelSelector(Utils.selectorFromLabels(OPERATOR_SELECTOR_LABELS));
+    }
+
+    InformerEventSource<R, P> eventSource = new InformerEventSource<>(builder.build(), context);
+    register(kind, eventSource);
+    return eventSource;
+  }
+
+  /**
+   * Serve lookups of the kind from the informer. With more than one reconciler, the first one registered serves the
+   * lookups, and the informers of the others only trigger their reconciler.
+   *
+   * @param kind     resource kind
+   * @param informer informer watching the resources of the kind
+   */
+  void register(Class<? extends HasMetadata> kind, InformerEventSource<? extends HasMetadata, ?> informer) {
+    informers.putIfAbsent(kind, informer);
+  }
+
+  /**
+   * Returns the resource of the given kind.
+   *
+   * @param kind      resource kind
+   * @param namespace namespace of the resource
+   * @param name      name of the resource
+   * @param <R>       resource type
+   * @return the resource, or empty if it does not exist
+   */
+  public <R extends HasMetadata> Optional<R> get(Class<R> kind, String namespace, String name) {
+    InformerEventSource<R, ?> informer = getInformer(kind);
+    if (informer != null) {
+      return informer.get(new ResourceID(name, namespace));
+    }
+    return Optional.ofNullable(kubernetesClient.resources(kind).inNamespace(namespace).withName(name).get());
+  }
+
+  /**
+   * Returns the resource of the given kind if the informer has it. The informers only see resources with the labels of
+   * the operator, so an empty result does not mean that the resource does not exist.
+   *
+   * @param kind      resource kind
+   * @param namespace namespace of the resource
+   * @param name      name of the resource
+   * @param <R>       resource type
+   * @return the resource, or empty if it is not in the cache
+   */
+  public <R extends HasMetadata> Optional<R> getCached(Class<R> kind, String namespace, String name) {
+    InformerEventSource<R, ?> informer = getInformer(kind);
+    if (informer != null) {
+      return informer.get(new ResourceID(name, namespace));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Returns all resources of the given kind that have all the labels.
+   *
+   * @param kind      resource kind
+   * @param namespace namespace of the resources
+   * @param labels    labels the resources have to carry
+   * @param <R>       resource type
+   * @return list of resources
+   */
+  public <R extends HasMetadata> List<R> list(Class<R> kind, String namespace, Map<String, String> labels) {
+    InformerEventSource<R, ?> informer = getInformer(kind);
+    if (informer != null) {
+      return informer.list(namespace, r -> hasLabels(r, labels)).toList();
+    }
+    return getAllResourcesMatchingLabels(kubernetesClient, namespace, labels, kind);
+  }
+
+  /**
+   * Returns all resources of all owned kinds that have all the labels.
+   *
+   * @param namespace namespace of the resources
+   * @param labels    labels the resources have to carry
+   * @return list of resources
+   */
+  public List<HasMetadata> list(String namespace, Map<String, String> labels) {
+    List<HasMetadata> results = new LinkedList<>();
+    for (Class<? extends HasMetadata> kind : ALL_KUBERNETES_RESOURCE_TYPES) {
+      results.addAll(list(kind, namespace, labels));
+    }
+    return results;
+  }
+
+  /**
+   * Make a resource we just created visible in the cache, even if the informer has not yet received the event.
+   *
+   * @param resource the resource as returned by the API server
+   * @param <R>      resource type
+   */
+  @SuppressWarnings("unchecked")
+  public <R extends HasMetadata> void handleRecentResourceCreate(R resource) {
+    InformerEventSource<R, ?> informer = getInformer((Class<R>) resource.getClass());
+    if (informer != null) {
+      informer.handleRecentResourceCreate(ResourceID.fromResource(resource), resource);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <R extends HasMetadata> InformerEventSource<R, ?> getInformer(Class<R> kind) {
+    if (!enabled) {
+      return null;
+    }
+    return (InformerEventSource<R, ?>) informers.get(kind);
+  }
+
+  private static boolean hasLabels(HasMetadata resource, Map<String, String> labels) {
+    Map<String, String> actual = resource.getMetadata().getLabels();
+    return actual != null && actual.entrySet().containsAll(labels.entrySet());
+  }
+}
@@ -15,24 +15,23 @@ import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.Resource;
 import lombok.extern.slf4j.Slf4j;
 
 @ResourceReconciler(PersistentVolumeClaim.class)
 @Slf4j
 public class PersistenVolumeClaimReconciler implements Reconciler {
     @Override
-    public void reconcile(KubernetesClient kubernetesClient, String namespace, HasMetadata resource) {
+    public void reconcile(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, String namespace, HasMetadata resource) {
         PersistentVolumeClaim pvc = (PersistentVolumeClaim)resource;
-        Resource<PersistentVolumeClaim> existing = kubernetesClient.persistentVolumeClaims().inNamespace(namespace).withName(resource.getMetadata().getName());
-        if (existing.get() != null) {
+        var existing = resourceCache.get(PersistentVolumeClaim.class, namespace, resource.getMetadata().getName());
+        if (existing.isPresent()) {
             Quantity storage = pvc.getSpec().getResources().getRequests().get("storage");
             //noinspection StatementWithEmptyBody
             if (!needsUpdate(existing.get(), pvc)) {
 //                log.debug("skipping unchanged {}/{}", resource.getKind(), resource.getMetadata().getName());
             } else {
 //                log.debug("patching {}/{}", resource.getKind(), resource.getMetadata().getName());
-                existing.edit(r -> new PersistentVolumeClaimBuilder(r)
+                kubernetesClient.persistentVolumeClaims().inNamespace(namespace).withName(resource.getMetadata().getName()).edit(r -> new PersistentVolumeClaimBuilder(r)
                         // the following is only needed during the transition from v1 to v2
                         .editMetadata().withOwnerReferences(pvc.getMetadata().getOwnerReferences()).endMetadata()
                         .editOrNewSpec()
@@ -42,7 +41,7 @@ public class PersistenVolumeClaimReconciler implements Reconciler {
             }
         } else {
 //            log.debug("reconciling {}/{}", resource.getKind(), resource.getMetadata().getName());
-            kubernetesClient.resource(resource).inNamespace(namespace).create();
+            resourceCache.handleRecentResourceCreate(kubernetesClient.resource(resource).inNamespace(namespace).create());
         }
     }
 
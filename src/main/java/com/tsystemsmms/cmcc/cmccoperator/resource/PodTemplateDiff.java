@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compares the pod templates of two sets of resources. Any change to the pod template of a StatefulSet rolls out new
+ * pods, so building the same template twice has to yield the same result.
+ * <p>
+ * The templates are compared canonically: the order of map entries, like labels and annotations, does not matter, as
+ * the API server does not keep it either. The order of lists, like env vars, volumes or affinity terms, does.
+ */
+public class PodTemplateDiff {
+  public static final int MAX_DIFFERENCES = 10;
+  private static final int MAX_VALUE_LENGTH = 80;
+
+  private static final ObjectMapper objectMapper = JsonMapper.builder()
+          .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+          .build();
+
+  private PodTemplateDiff() {
+  }
+
+  /**
+   * Returns the pod templates of all resources that have one, like StatefulSets and Jobs.
+   *
+   * @param resources the resources
+   * @return templates by kind and name of the resource
+   */
+  public static Map<String, JsonNode> podTemplates(List<HasMetadata> resources) {
+    Map<String, JsonNode> templates = new LinkedHashMap<>();
+    for (HasMetadata resource : resources) {
+      JsonNode template = objectMapper.valueToTree(resource).at("/spec/template");
+      if (!template.isMissingNode() && !template.isNull()) {
+        templates.put(resource.getKind() + "/" + resource.getMetadata().getName(), template);
+      }
+    }
+    return templates;
+  }
+
+  /**
+   * Compare the pod templates of two sets of resources.
+   *
+   * @param expected resources as built first
+   * @param actual   resources as built again
+   * @return the differences, at most {@link #MAX_DIFFERENCES}; empty if all templates are the same
+   */
+  public static List<String> diff(List<HasMetadata> expected, List<HasMetadata> actual) {
+    Map<String, JsonNode> expectedTemplates = podTemplates(expected);
+    Map<String, JsonNode> actualTemplates = podTemplates(actual);
+    TreeSet<String> names = new TreeSet<>(expectedTemplates.keySet());
+    names.addAll(actualTemplates.keySet());
+
+    List<String> differences = new LinkedList<>();
+    for (String name : names) {
+      JsonNode e = expectedTemplates.get(name);
+      JsonNode a = actualTemplates.get(name);
+      if (e == null || a == null) {
+        add(differences, name + ": " + (e == null ? "missing in first build" : "missing in second build"));
+      } else {
+        diff(name + ":spec.template", e, a, differences);
+      }
+    }
+    return differences;
+  }
+
+  private static void diff(String path, JsonNode expected, JsonNode actual, List<String> differences) {
+    if (differences.size() >= MAX_DIFFERENCES || expected.equals(actual)) {
+      return;
+    }
+    if (expected.isObject() && actual.isObject()) {
+      TreeSet<String> fields = new TreeSet<>();
+      expected.fieldNames().forEachRemaining(fields::add);
+      actual.fieldNames().forEachRemaining(fields::add);
+      for (String field : fields) {
+        diff(path + "." + field, expected.path(field), actual.path(field), differences);
+      }
+    } else if (expected.isArray() && actual.isArray() && expected.size() == actual.size()) {
+      for (int i = 0; i < expected.size(); i++) {
+        diff(path + "[" + i + "]", expected.get(i), actual.get(i), differences);
+      }
+    } else {
+      add(differences, path + ": " + abbreviate(expected) + " != " + abbreviate(actual));
+    }
+  }
+
+  private static void add(List<String> differences, String difference) {
+    if (differences.size() < MAX_DIFFERENCES) {
+      differences.add(difference);
+    }
+  }
+
+  private static String abbreviate(JsonNode node) {
+    if (node.isMissingNode()) {
+      return "(missing)";
+    }
+    String value = node.toString();
+    return value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) + "..." : value;
+  }
+}
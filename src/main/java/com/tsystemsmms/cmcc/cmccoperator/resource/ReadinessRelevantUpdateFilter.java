@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.javaoperatorsdk.operator.processing.event.source.filter.OnUpdateFilter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Passes updates of StatefulSets and Jobs only if they can change the state of a component, see
+ * AbstractComponent.getStatefulSetState() and JobComponent.getState(). Status churn during a rolling update, like
+ * currentRevision, observedGeneration or updatedReplicas, does not trigger a reconciliation.
+ * <p>
+ * Changes to the labels and the desired state hash are passed as well, since ReconcilePlan uses them to decide whether
+ * a resource needs to be written.
+ *
+ * @param <R> resource type
+ */
+@Slf4j
+public class ReadinessRelevantUpdateFilter<R extends HasMetadata> implements OnUpdateFilter<R> {
+
+  @Override
+  public boolean accept(R newResource, R oldResource) {
+    boolean relevant = isRelevantMetadataChange(oldResource.getMetadata(), newResource.getMetadata())
+            || isRelevantStateChange(oldResource, newResource);
+    if (!relevant) {
+      log.trace("Ignoring update of {} {}: no change relevant to the component state",
+              newResource.getKind(), newResource.getMetadata().getName());
+    }
+    return relevant;
+  }
+
+  static boolean isRelevantMetadataChange(ObjectMeta oldMeta, ObjectMeta newMeta) {
+    return !Objects.equals(oldMeta.getLabels(), newMeta.getLabels())
+            || !Objects.equals(getDesiredStateHash(oldMeta), getDesiredStateHash(newMeta))
+            || !Objects.equals(oldMeta.getDeletionTimestamp(), newMeta.getDeletionTimestamp());
+  }
+
+  private static String getDesiredStateHash(ObjectMeta meta) {
+    Map<String, String> annotations = meta.getAnnotations();
+    return annotations == null ? null : annotations.get(DesiredStateHash.ANNOTATION);
+  }
+
+  static boolean isRelevantStateChange(HasMetadata oldResource, HasMetadata newResource) {
+    if (oldResource instanceof StatefulSet oldSts && newResource instanceof StatefulSet newSts) {
+      return isRelevantStateChange(oldSts, newSts);
+    }
+    if (oldResource instanceof Job oldJob && newResource instanceof Job newJob) {
+      return isRelevantStateChange(oldJob, newJob);
+    }
+    return true;
+  }
+
+  static boolean isRelevantStateChange(StatefulSet oldSts, StatefulSet newSts) {
+    if (!Objects.equals(oldSts.getSpec().getReplicas(), newSts.getSpec().getReplicas())) {
+      return true;
+    }
+    var oldStatus = oldSts.getStatus();
+    var newStatus = newSts.getStatus();
+    if (oldStatus == null || newStatus == null) {
+      return oldStatus != newStatus;
+    }
+    return !Objects.equals(oldStatus.getReplicas(), newStatus.getReplicas())
+            || !Objects.equals(oldStatus.getReadyReplicas(), newStatus.getReadyReplicas());
+  }
+
+  static boolean isRelevantStateChange(Job oldJob, Job newJob) {
+    var oldStatus = oldJob.getStatus();
+    var newStatus = newJob.getStatus();
+    if (oldStatus == null || newStatus == null) {
+      return oldStatus != newStatus;
+    }
+    return !Objects.equals(oldStatus.getSucceeded(), newStatus.getSucceeded());
+  }
+}
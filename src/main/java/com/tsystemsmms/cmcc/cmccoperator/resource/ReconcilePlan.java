@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * What a reconciliation does to the resources of a custom resource: which resources are created, updated, left
+ * alone because they have not changed, and deleted.
+ * <p>
+ * Resources are matched by {@link ResourceKey}. A resource whose labels have changed is deleted and created again,
+ * since the labels are used in the immutable selectors of StatefulSets.
+ */
+@Getter
+public class ReconcilePlan {
+  private final String namespace;
+  private final String name;
+  private final boolean dryRun;
+  private final Instant created = Instant.now();
+  private final List<HasMetadata> creates = new ArrayList<>();
+  private final List<HasMetadata> updates = new ArrayList<>();
+  private final List<HasMetadata> unchanged = new ArrayList<>();
+  private final List<HasMetadata> deletes = new ArrayList<>();
+
+  private ReconcilePlan(String namespace, String name, boolean dryRun) {
+    this.namespace = namespace;
+    this.name = name;
+    this.dryRun = dryRun;
+  }
+
+  /**
+   * Compare the resources in the cluster with the resources as built.
+   *
+   * @param namespace    namespace of the custom resource
+   * @param name         name of the custom resource
+   * @param existing     resources in the cluster that are owned by the custom resource
+   * @param built        resources as they should be
+   * @param mayBeRemoved existing resources that are no longer built are only deleted if this returns true
+   * @param dryRun       true if the plan is not going to be executed
+   * @return the plan
+   */
+  public static ReconcilePlan compute(String namespace, String name,
+                                      Collection<? extends HasMetadata> existing,
+                                      Collection<? extends HasMetadata> built,
+                                      Predicate<HasMetadata> mayBeRemoved,
+                                      boolean dryRun) {
+    ReconcilePlan plan = new ReconcilePlan(namespace, name, dryRun);
+    Map<ResourceKey, HasMetadata> live = new HashMap<>();
+    existing.forEach(r -> live.put(ResourceKey.of(r), r));
+
+    for (HasMetadata desired : built) {
+      HasMetadata current = live.remove(ResourceKey.of(desired));
+      if (current == null) {
+        plan.creates.add(desired);
+      } else if (!labelsOf(current).equals(labelsOf(desired))) {
+        plan.deletes.add(current);
+        plan.creates.add(desired);
+      } else if (DesiredStateHash.isUnchanged(desired, current)) {
+        plan.unchanged.add(desired);
+      } else {
+        plan.updates.add(desired);
+      }
+    }
+    live.values().stream().filter(mayBeRemoved).forEach(plan.deletes::add);
+
+    return plan;
+  }
+
+  private static Map<String, String> labelsOf(HasMetadata resource) {
+    Map<String, String> labels = resource.getMetadata().getLabels();
+    return labels == null ? Collections.emptyMap() : labels;
+  }
+
+  /**
+   * Returns a description of the plan that is safe to show: it lists the resources by kind and name only, so that
+   * the content of secrets is not exposed.
+   *
+   * @return description
+   */
+  public Map<String, Object> describe() {
+    Map<String, Object> description = new LinkedHashMap<>();
+    description.put("namespace", namespace);
+    description.put("name", name);
+    description.put("dryRun", dryRun);
+    description.put("created", created.toString());
+    description.put("create", keys(creates));
+    description.put("update", keys(updates));
+    description.put("unchanged", keys(unchanged));
+    description.put("delete", keys(deletes));
+    return description;
+  }
+
+  private static List<String> keys(List<HasMetadata> resources) {
+    return resources.stream().map(r -> ResourceKey.of(r).toString()).sorted().toList();
+  }
+
+  @Override
+  public String toString() {
+    return creates.size() + " new, " + updates.size() + " updated, " + unchanged.size() + " unchanged, "
+            + deletes.size() + " abandoned resources " + keys(deletes);
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint that shows the plan of the latest reconciliation of each custom resource.
+ */
+@Endpoint(id = "reconcileplan")
+public class ReconcilePlanEndpoint {
+  private final ResourceReconcilerManager resourceReconcilerManager;
+
+  public ReconcilePlanEndpoint(ResourceReconcilerManager resourceReconcilerManager) {
+    this.resourceReconcilerManager = resourceReconcilerManager;
+  }
+
+  @ReadOperation
+  public Map<String, Map<String, Object>> plans() {
+    return resourceReconcilerManager.getReconcilePlans();
+  }
+
+  @ReadOperation
+  public Map<String, Object> plan(@Selector String namespace, @Selector String name) {
+    return resourceReconcilerManager.getReconcilePlans().get(namespace + "/" + name);
+  }
+}
@@ -14,5 +14,5 @@ import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.client.KubernetesClient;
 
 public interface Reconciler {
-    void reconcile(KubernetesClient kubernetesClient, String namespace, HasMetadata resource);
+    void reconcile(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, String namespace, HasMetadata resource);
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * One or more resources could not be written to the cluster.
+ */
+public class ResourceApplyException extends RuntimeException {
+  /**
+   * The errors, by kind and name of the resource.
+   */
+  @Getter
+  private final Map<String, Throwable> failures;
+
+  public ResourceApplyException(String namespace, Map<String, Throwable> failures) {
+    super("Unable to apply " + failures.size() + " resource(s) in " + namespace + ": "
+            + failures.entrySet().stream()
+            .map(e -> e.getKey() + ": " + e.getValue().getMessage())
+            .collect(Collectors.joining("; ")));
+    this.failures = failures;
+    failures.values().forEach(this::addSuppressed);
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+/**
+ * Identifies a resource in the cluster.
+ *
+ * @param apiVersion API version of the resource
+ * @param kind       kind of the resource
+ * @param namespace  namespace of the resource
+ * @param name       name of the resource
+ */
+public record ResourceKey(String apiVersion, String kind, String namespace, String name) {
+
+  public static ResourceKey of(HasMetadata resource) {
+    return new ResourceKey(resource.getApiVersion(), resource.getKind(), resource.getMetadata().getNamespace(), resource.getMetadata().getName());
+  }
+
+  @Override
+  public String toString() {
+    return kind + "/" + name;
+  }
+}
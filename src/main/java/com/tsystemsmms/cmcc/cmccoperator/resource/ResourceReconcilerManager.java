@@ -10,42 +10,222 @@
 
 package com.tsystemsmms.cmcc.cmccoperator.resource;
 
-import io.fabric8.kubernetes.api.model.HasMetadata;
-import io.fabric8.kubernetes.api.model.KubernetesList;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ApiCallAccounting;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
-public class ResourceReconcilerManager {
+public class ResourceReconcilerManager implements DeletedResourcePruner.PerResourceState {
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * Resources are applied in waves, so that pods are only started once their configuration exists. Kinds not
+     * listed here are applied together with the workloads.
+     */
+    static final List<Set<Class<? extends HasMetadata>>> APPLY_WAVES = List.of(
+            Set.of(Secret.class, ConfigMap.class),
+            Set.of(Service.class, PersistentVolumeClaim.class),
+            Set.of(StatefulSet.class, Job.class),
+            Set.of(Ingress.class));
+    static final int DEFAULT_APPLY_WAVE = 2;
+
     final KubernetesClient kubernetesClient;
+    @Getter
+    final OwnedResourceCache resourceCache;
+    @Getter
+    final ServerSideApplier serverSideApplier;
+    @Getter
+    final int parallelism;
+    final ExecutorService applyExecutor;
+    final Map<String, Map<String, Object>> reconcilePlans = new ConcurrentHashMap<>();
 
     final HashMap<Class<? extends HasMetadata>, Reconciler> reconcilers;
 
-    public ResourceReconcilerManager(KubernetesClient kubernetesClient) {
+    public ResourceReconcilerManager(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache) {
+        this(kubernetesClient, resourceCache, null, 1);
+    }
+
+    /**
+     * Create a manager.
+     *
+     * @param kubernetesClient  client
+     * @param resourceCache     cache for looking up existing resources
+     * @param serverSideApplier if not null, use server-side apply instead of the resource reconcilers
+     * @param parallelism       number of resources that are written at the same time
+     */
+    public ResourceReconcilerManager(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, ServerSideApplier serverSideApplier, int parallelism) {
         this.kubernetesClient = kubernetesClient;
+        this.resourceCache = resourceCache;
+        this.serverSideApplier = serverSideApplier;
+        this.parallelism = Math.max(1, parallelism);
+        if (this.parallelism > 1) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cmcc-apply-");
+            threadFactory.setDaemon(true);
+            applyExecutor = Executors.newFixedThreadPool(this.parallelism, threadFactory);
+        } else {
+            applyExecutor = null;
+        }
         reconcilers = new HashMap<>();
         initReconcilers();
     }
 
     /**
      * Depending on the state of the cluster and the resource kind, create, patch or update the resource.
+     * <p>
+     * The resources are written in waves (see APPLY_WAVES), the resources of one wave in parallel. If writing a
+     * resource fails, the remaining resources of its wave are still written, but the following waves are not started.
      *
      * @param resources A resources of Kubernetes resource
+     * @throws ResourceApplyException if one or more resources could not be written
      */
     public void createPatchUpdate(String namespace, KubernetesList resources) {
-        for (HasMetadata resource : resources.getItems()) {
-            Reconciler reconciler = findReconcilerForResource(resource);
-            if (reconciler == null)
-                reconciler = reconcilers.get(HasMetadata.class);
-            reconciler.reconcile(kubernetesClient, namespace, resource);
+        List<HasMetadata> changed = resources.getItems().stream().filter(r -> !isUnchanged(namespace, r)).toList();
+        if (changed.size() < resources.getItems().size()) {
+            log.debug("[{}] Skipping {} unchanged resources, writing {}", namespace, resources.getItems().size() - changed.size(), changed.size());
+        }
+
+        List<List<HasMetadata>> waves = new ArrayList<>(APPLY_WAVES.size());
+        for (int i = 0; i < APPLY_WAVES.size(); i++) {
+            waves.add(new ArrayList<>());
         }
+        changed.forEach(r -> waves.get(getApplyWave(r)).add(r));
+
+        // one lookup of the autoscalers per reconciliation, not one per StatefulSet
+        ServerSideApplier.Autoscaled autoscaled = serverSideApplier != null && changed.stream().anyMatch(StatefulSet.class::isInstance)
+                ? serverSideApplier.findAutoscaled(namespace)
+                : ServerSideApplier.Autoscaled.NONE;
+
+        for (List<HasMetadata> wave : waves) {
+            Map<String, Throwable> failures = applyWave(namespace, wave, autoscaled);
+            if (!failures.isEmpty()) {
+                throw new ResourceApplyException(namespace, failures);
+            }
+        }
+    }
+
+    /**
+     * Remember the plan of the latest reconciliation of a custom resource, so it can be inspected. Only the
+     * description is kept, not the resources, which include the data of secrets.
+     *
+     * @param plan the plan
+     */
+    public void recordPlan(ReconcilePlan plan) {
+        reconcilePlans.put(plan.getNamespace() + "/" + plan.getName(), plan.describe());
+    }
+
+    /**
+     * Returns the descriptions of the plans of the latest reconciliation of all custom resources, by namespace and
+     * name.
+     *
+     * @return the plans
+     */
+    public Map<String, Map<String, Object>> getReconcilePlans() {
+        return Collections.unmodifiableMap(new TreeMap<>(reconcilePlans));
+    }
+
+    /**
+     * Forget the plans of the custom resources that have been deleted.
+     *
+     * @param existing the custom resources that exist
+     */
+    @Override
+    public void retainExisting(DeletedResourcePruner.ExistingResources existing) {
+        reconcilePlans.keySet().removeIf(key -> {
+            int slash = key.indexOf('/');
+            return !existing.contains(key.substring(0, slash), key.substring(slash + 1));
+        });
+    }
+
+    static int getApplyWave(HasMetadata resource) {
+        for (int i = 0; i < APPLY_WAVES.size(); i++) {
+            if (APPLY_WAVES.get(i).contains(resource.getClass())) {
+                return i;
+            }
+        }
+        return DEFAULT_APPLY_WAVE;
+    }
+
+    /**
+     * Write all resources of a wave, and wait until all are done.
+     *
+     * @return the errors, by kind and name of the resource
+     */
+    private Map<String, Throwable> applyWave(String namespace, List<HasMetadata> wave, ServerSideApplier.Autoscaled autoscaled) {
+        Map<String, Throwable> failures = Collections.synchronizedMap(new TreeMap<>());
+
+        if (applyExecutor == null || wave.size() < 2) {
+            for (HasMetadata resource : wave) {
+                try {
+                    apply(namespace, resource, autoscaled);
+                } catch (RuntimeException e) {
+                    failures.put(getResourceKey(resource), e);
+                }
+            }
+            return failures;
+        }
+
+        CompletableFuture.allOf(wave.stream()
+                .map(resource -> CompletableFuture.runAsync(ApiCallAccounting.propagate(() -> apply(namespace, resource, autoscaled)), applyExecutor)
+                        .exceptionally(e -> {
+                            failures.put(getResourceKey(resource), e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new))
+                .join();
+        return failures;
+    }
+
+    private void apply(String namespace, HasMetadata resource, ServerSideApplier.Autoscaled autoscaled) {
+        // Jobs are only ever created, since their pod template cannot be changed
+        if (serverSideApplier != null && !(resource instanceof Job)) {
+            serverSideApplier.apply(namespace, resource, autoscaled);
+        } else {
+            reconcile(namespace, resource);
+        }
+    }
+
+    private static String getResourceKey(HasMetadata resource) {
+        return resource.getKind() + "/" + resource.getMetadata().getName();
+    }
+
+    /**
+     * Returns true if the resource in the cluster has been written from the same desired state, as recorded by the
+     * {@link DesiredStateHash} annotation. Only checked against the informer cache, an extra GET per resource would
+     * not be cheaper than the write.
+     */
+    private boolean isUnchanged(String namespace, HasMetadata resource) {
+        if (!resourceCache.isEnabled() || DesiredStateHash.get(resource) == null) {
+            return false;
+        }
+        return resourceCache.get(resource.getClass(), namespace, resource.getMetadata().getName())
+                .map(live -> DesiredStateHash.isUnchanged(resource, live))
+                .orElse(false);
+    }
+
+    private void reconcile(String namespace, HasMetadata resource) {
+        Reconciler reconciler = findReconcilerForResource(resource);
+        if (reconciler == null)
+            reconciler = reconcilers.get(HasMetadata.class);
+        reconciler.reconcile(kubernetesClient, resourceCache, namespace, resource);
     }
 
     @SuppressWarnings("unchecked")
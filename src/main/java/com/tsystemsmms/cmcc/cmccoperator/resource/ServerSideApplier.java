@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Create or update resources with server-side apply. The API server merges the fields we send with the live object,
+ * and tracks which fields are owned by the operator, so there is no need to read the object first.
+ * <p>
+ * The replicas of a StatefulSet that is the target of a HorizontalPodAutoscaler are left out, so that the operator
+ * neither conflicts with the autoscaler nor resets the number of replicas it has chosen. The autoscalers are looked up
+ * once per reconciliation, see {@link #findAutoscaled(String)}.
+ */
+@Slf4j
+public class ServerSideApplier {
+  public static final String DEFAULT_FIELD_MANAGER = "cmcc-operator";
+
+  final KubernetesClient kubernetesClient;
+  final OwnedResourceCache resourceCache;
+  @Getter
+  final String fieldManager;
+  @Getter
+  final boolean forceConflicts;
+
+  /**
+   * Create an applier.
+   *
+   * @param kubernetesClient client
+   * @param resourceCache    cache used to look up immutable fields of existing resources
+   * @param fieldManager     name of the field manager the operator applies as
+   * @param forceConflicts   if true, take over fields that are owned by another field manager. If false, a conflict
+   *                         fails the apply.
+   */
+  public ServerSideApplier(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, String fieldManager, boolean forceConflicts) {
+    this.kubernetesClient = kubernetesClient;
+    this.resourceCache = resourceCache;
+    this.fieldManager = fieldManager;
+    this.forceConflicts = forceConflicts;
+    log.info("Using server-side apply with field manager {}{}", fieldManager, forceConflicts ? ", forcing conflicts" : "");
+  }
+
+  /**
+   * The StatefulSets in a namespace that are the target of a HorizontalPodAutoscaler.
+   *
+   * @param names   names of the autoscaled StatefulSets
+   * @param unknown true if the autoscalers could not be looked up; all StatefulSets are then treated as autoscaled
+   */
+  public record Autoscaled(Set<String> names, boolean unknown) {
+    public static final Autoscaled NONE = new Autoscaled(Set.of(), false);
+
+    public boolean contains(String name) {
+      return unknown || names.contains(name);
+    }
+  }
+
+  /**
+   * Look up the StatefulSets that are the target of a HorizontalPodAutoscaler. If the lookup fails, the result treats
+   * all StatefulSets as autoscaled, so that the operator never overrides the replicas chosen by an autoscaler.
+   *
+   * @param namespace namespace of the StatefulSets
+   * @return the autoscaled StatefulSets
+   */
+  public Autoscaled findAutoscaled(String namespace) {
+    try {
+      return new Autoscaled(kubernetesClient.autoscaling().v2().horizontalPodAutoscalers().inNamespace(namespace).list().getItems().stream()
+              .map(hpa -> hpa.getSpec() == null ? null : hpa.getSpec().getScaleTargetRef())
+              .filter(ref -> ref != null && "StatefulSet".equals(ref.getKind()))
+              .map(ref -> ref.getName())
+              .collect(Collectors.toSet()), false);
+    } catch (KubernetesClientException e) {
+      log.warn("Unable to list the HorizontalPodAutoscalers in {}, not applying the replicas of any StatefulSet", namespace, e);
+      return new Autoscaled(Set.of(), true);
+    }
+  }
+
+  /**
+   * Apply the resource.
+   *
+   * @param namespace  namespace of the resource
+   * @param resource   the resource as it should be
+   * @param autoscaled the autoscaled StatefulSets in the namespace
+   * @return the resource as returned by the API server
+   */
+  public HasMetadata apply(String namespace, HasMetadata resource, Autoscaled autoscaled) {
+    if (resource instanceof StatefulSet sts) {
+      resource = prepareStatefulSet(namespace, sts, autoscaled);
+    }
+    Resource<HasMetadata> op = kubernetesClient.resource(resource).inNamespace(namespace);
+    if (forceConflicts) {
+      return op.fieldManager(fieldManager).forceConflicts().serverSideApply();
+    }
+    return op.fieldManager(fieldManager).serverSideApply();
+  }
+
+  StatefulSet prepareStatefulSet(String namespace, StatefulSet sts, Autoscaled autoscaled) {
+    sts = keepImmutableFields(namespace, sts);
+    if (autoscaled.contains(sts.getMetadata().getName())) {
+      log.debug("StatefulSet {}/{} may be scaled by a HorizontalPodAutoscaler, not applying replicas", namespace, sts.getMetadata().getName());
+      sts = new StatefulSetBuilder(sts).editSpec().withReplicas(null).endSpec().build();
+    }
+    return sts;
+  }
+
+  /**
+   * The API server rejects changes to most fields of a StatefulSet spec. Take these fields from the existing
+   * StatefulSet, like the client-side update does by only touching the fields that may change.
+   */
+  private StatefulSet keepImmutableFields(String namespace, StatefulSet sts) {
+    var existing = resourceCache.get(StatefulSet.class, namespace, sts.getMetadata().getName());
+    if (existing.isEmpty()) {
+      return sts;
+    }
+    var live = existing.get().getSpec();
+    if (live.getVolumeClaimTemplates().size() != sts.getSpec().getVolumeClaimTemplates().size()) {
+      log.warn("Unable to change the volume claim templates of {}/{}, delete the StatefulSet to apply the new templates", namespace, sts.getMetadata().getName());
+    }
+    return new StatefulSetBuilder(sts)
+            .editSpec()
+            .withPodManagementPolicy(live.getPodManagementPolicy())
+            .withSelector(live.getSelector())
+            .withServiceName(live.getServiceName())
+            .withVolumeClaimTemplates(live.getVolumeClaimTemplates())
+            .endSpec()
+            .build();
+  }
+}
@@ -15,30 +15,33 @@ import io.fabric8.kubernetes.api.model.apps.StatefulSet;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetSpec;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.NonDeletingOperation;
-import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
 import lombok.extern.slf4j.Slf4j;
 
+import java.net.HttpURLConnection;
+import java.util.Map;
+
 @ResourceReconciler(StatefulSet.class)
 @Slf4j
 public class StatefulSetReconciler implements Reconciler {
   @Override
-  public void reconcile(KubernetesClient kubernetesClient, String namespace, HasMetadata resource) {
-    RollableScalableResource<StatefulSet> existing = kubernetesClient.apps().statefulSets().inNamespace(namespace).withName(resource.getMetadata().getName());
-    if (existing.get() == null) {
-      log.debug("Starting {}/{}", resource.getKind(), resource.getMetadata().getName());
-      // https://github.com/fabric8io/kubernetes-client/blob/main/doc/FAQ.md#alternatives-to-createorreplace-and-replace
-      kubernetesClient.resource(resource).inNamespace(namespace).unlock().createOr(NonDeletingOperation::update);
-    } else {
-      StatefulSet sts = (StatefulSet) resource;
-      StatefulSetSpec spec = sts.getSpec();
-      log.trace("Updating sts {}/{}:{}", resource.getKind(), resource.getMetadata().getName(), spec.getReplicas());
-      existing.edit(r ->
+  public void reconcile(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, String namespace, HasMetadata resource) {
+    if (resourceCache.get(StatefulSet.class, namespace, resource.getMetadata().getName()).isEmpty()) {
+      create(kubernetesClient, namespace, resource);
+      return;
+    }
+    StatefulSet sts = (StatefulSet) resource;
+    StatefulSetSpec spec = sts.getSpec();
+    log.trace("Updating sts {}/{}:{}", resource.getKind(), resource.getMetadata().getName(), spec.getReplicas());
+    try {
+      kubernetesClient.apps().statefulSets().inNamespace(namespace).withName(resource.getMetadata().getName()).edit(r ->
               new StatefulSetBuilder(r)
                       // the following is only needed during the transition from v1 to v2
                       .withMetadata(r.getMetadata()
                               .edit()
                               .withOwnerReferences(sts.getMetadata().getOwnerReferences())
+                              .addToAnnotations(getDesiredStateAnnotation(sts))
                               .build())
                       .editOrNewSpec()
                       .withMinReadySeconds(spec.getMinReadySeconds())
@@ -49,6 +52,24 @@ public class StatefulSetReconciler implements Reconciler {
                       .endSpec()
                       .build());
       // TODO: handle changes to other fields, like spec.getVolumeClaimTemplates()
+    } catch (KubernetesClientException e) {
+      if (e.getCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+        throw e;
+      }
+      // the informer cache lags behind, for example when the StatefulSet has just been deleted to change its labels
+      log.debug("{}/{} is still cached, but no longer exists", resource.getKind(), resource.getMetadata().getName());
+      create(kubernetesClient, namespace, resource);
     }
   }
+
+  private static void create(KubernetesClient kubernetesClient, String namespace, HasMetadata resource) {
+    log.debug("Starting {}/{}", resource.getKind(), resource.getMetadata().getName());
+    // https://github.com/fabric8io/kubernetes-client/blob/main/doc/FAQ.md#alternatives-to-createorreplace-and-replace
+    kubernetesClient.resource(resource).inNamespace(namespace).unlock().createOr(NonDeletingOperation::update);
+  }
+
+  private static Map<String, String> getDesiredStateAnnotation(StatefulSet sts) {
+    String hash = DesiredStateHash.get(sts);
+    return hash == null ? Map.of() : Map.of(DesiredStateHash.ANNOTATION, hash);
+  }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.scheduling;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.javaoperatorsdk.operator.api.reconciler.IndexedResourceCache;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Forgets what the operator keeps about custom resources that have been deleted, like their meters or the state of
+ * the scheduler.
+ * <p>
+ * The reconcilers do not add a finalizer to the custom resources to learn about their deletion: deleting a custom
+ * resource, or its namespace, would hang while the operator is not running. Instead, the state is compared with the
+ * primary caches of the reconcilers every interval, and everything about custom resources that are no longer in any of
+ * them is removed.
+ */
+@Slf4j
+public class DeletedResourcePruner implements AutoCloseable {
+  public static final String DEFAULT_INTERVAL = "5m";
+
+  /**
+   * State the operator keeps per custom resource.
+   */
+  public interface PerResourceState {
+    /**
+     * Forget the custom resources that no longer exist.
+     *
+     * @param existing the custom resources that exist
+     */
+    void retainExisting(ExistingResources existing);
+  }
+
+  /**
+   * The custom resources in the primary caches of the reconcilers.
+   */
+  public static class ExistingResources {
+    private final Set<ResourceID> resources;
+    private final Set<String> namespaces;
+
+    public ExistingResources(Collection<ResourceID> resources) {
+      this.resources = Set.copyOf(resources);
+      this.namespaces = resources.stream()
+              .flatMap(id -> id.getNamespace().stream())
+              .collect(Collectors.toSet());
+    }
+
+    public boolean contains(String namespace, String name) {
+      return resources.contains(new ResourceID(name, namespace));
+    }
+
+    public boolean containsNamespace(String namespace) {
+      return namespaces.contains(namespace);
+    }
+  }
+
+  private final Duration interval;
+  private final List<PerResourceState> states = new CopyOnWriteArrayList<>();
+  private final List<IndexedResourceCache<? extends HasMetadata>> caches = new CopyOnWriteArrayList<>();
+  private ScheduledExecutorService executor;
+
+  /**
+   * Create a pruner. Call start() to prune periodically.
+   *
+   * @param interval time between two runs
+   * @param states   the state to prune
+   */
+  public DeletedResourcePruner(Duration interval, PerResourceState... states) {
+    this.interval = interval;
+    this.states.addAll(List.of(states));
+  }
+
+  /**
+   * Add state to prune, besides the one passed to the constructor.
+   *
+   * @param state the state
+   */
+  public void addState(PerResourceState state) {
+    states.add(state);
+  }
+
+  /**
+   * Add the primary cache of a reconciler. Custom resources are considered deleted once they are in none of the
+   * caches.
+   *
+   * @param cache the primary cache, from the EventSourceContext
+   */
+  public void watch(IndexedResourceCache<? extends HasMetadata> cache) {
+    caches.add(cache);
+  }
+
+  /**
+   * Prune in the background, every interval.
+   */
+  public void start() {
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "deleted-resource-pruner");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::prune, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Remove the state of all custom resources that are no longer in the primary caches.
+   */
+  public void prune() {
+    if (caches.isEmpty()) {
+      // the reconcilers have not been registered yet
+      return;
+    }
+    ExistingResources existing = new ExistingResources(caches.stream()
+            .flatMap(cache -> cache.list())
+            .map(ResourceID::fromResource)
+            .toList());
+    for (PerResourceState state : states) {
+      try {
+        state.retainExisting(existing);
+      } catch (RuntimeException e) {
+        log.warn("Unable to remove the state of deleted custom resources from {}", state.getClass().getSimpleName(), e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.scheduling;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decides which custom resources may be reconciled right now, so that one custom resource blocking in a long
+ * operation, like an upgrade, does not delay all others.
+ * <p>
+ * A reconciliation needs a permit. There are at most maxConcurrent permits, and one namespace can hold at most
+ * maxPerNamespace of them. Custom resources that are Ready only get a permit if more than reservedForPriority permits
+ * are free, so that custom resources that are starting up, upgrading or healing are not held up by steady-state
+ * ones. A Ready custom resource that has been turned away for longer than maxDeferral is treated like a prioritized
+ * one, so it cannot starve.
+ * <p>
+ * Acquiring a permit never blocks: a reconciler that does not get one reschedules the event after retryDelay, and
+ * returns its thread to the pool.
+ */
+@Slf4j
+public class ReconcileScheduler implements DeletedResourcePruner.PerResourceState {
+  public static final int DEFAULT_MAX_CONCURRENT = 8;
+  public static final int DEFAULT_MAX_PER_NAMESPACE = 2;
+  public static final int DEFAULT_RESERVED_FOR_PRIORITY = 2;
+  public static final String DEFAULT_RETRY_DELAY = "10s";
+  public static final String DEFAULT_MAX_DEFERRAL = "2m";
+
+  private final int maxConcurrent;
+  private final int maxPerNamespace;
+  private final int reservedForPriority;
+  @Getter
+  private final Duration retryDelay;
+  private final Duration maxDeferral;
+  private final Clock clock;
+
+  private final Map<String, Integer> activePerNamespace = new HashMap<>();
+  private final Map<String, Instant> deferredSince = new HashMap<>();
+  private int active;
+
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Create a scheduler.
+   *
+   * @param maxConcurrent       maximum number of concurrent reconciliations, 0 or less for unlimited
+   * @param maxPerNamespace     maximum number of concurrent reconciliations per namespace, 0 or less for unlimited
+   * @param reservedForPriority permits only given to custom resources that are not Ready
+   * @param retryDelay          delay after which a turned away event is reconciled again
+   * @param maxDeferral         time after which a turned away custom resource is prioritized
+   * @param meterRegistry       registry for the metrics of the scheduler
+   */
+  public ReconcileScheduler(int maxConcurrent, int maxPerNamespace, int reservedForPriority, Duration retryDelay, Duration maxDeferral, MeterRegistry meterRegistry) {
+    this(maxConcurrent, maxPerNamespace, reservedForPriority, retryDelay, maxDeferral, meterRegistry, Clock.systemUTC());
+  }
+
+  ReconcileScheduler(int maxConcurrent, int maxPerNamespace, int reservedForPriority, Duration retryDelay, Duration maxDeferral, MeterRegistry meterRegistry, Clock clock) {
+    this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent : Integer.MAX_VALUE;
+    this.maxPerNamespace = maxPerNamespace > 0 ? maxPerNamespace : Integer.MAX_VALUE;
+    this.reservedForPriority = Math.max(0, Math.min(reservedForPriority, this.maxConcurrent - 1));
+    this.retryDelay = retryDelay;
+    this.maxDeferral = maxDeferral;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+    Gauge.builder("cmcc.scheduler.active", this, ReconcileScheduler::getActive)
+            .description("Reconciliations holding a permit")
+            .register(meterRegistry);
+    if (maxConcurrent > 0) {
+      log.info("Reconciling at most {} custom resources at the same time, {} per namespace, {} reserved for custom resources that are not ready",
+              maxConcurrent, maxPerNamespace > 0 ? maxPerNamespace : "unlimited", this.reservedForPriority);
+    }
+  }
+
+  /**
+   * A scheduler that never defers a reconciliation, for tests and tools that reconcile a single custom resource.
+   *
+   * @return the scheduler
+   */
+  public static ReconcileScheduler unlimited() {
+    return new ReconcileScheduler(0, 0, 0, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Try to get a permit to reconcile a custom resource.
+   *
+   * @param namespace namespace of the custom resource
+   * @param name      name of the custom resource
+   * @param milestone current milestone of the custom resource
+   * @return the permit, to be closed when the reconciliation is done, or empty if the reconciliation has to be deferred
+   */
+  public synchronized Optional<Permit> tryAcquire(String namespace, String name, Milestone milestone) {
+    String key = namespace + "/" + name;
+    Instant now = clock.instant();
+    boolean priority = milestone != Milestone.Ready || isDeferredTooLong(key, now);
+    int limit = priority ? maxConcurrent : maxConcurrent - reservedForPriority;
+    int inNamespace = activePerNamespace.getOrDefault(namespace, 0);
+
+    if (active >= limit || inNamespace >= maxPerNamespace) {
+      deferredSince.putIfAbsent(key, now);
+      log.debug("[{}] Deferring reconciliation: {} active, {} in namespace, {}", key, active, inNamespace,
+              priority ? "prioritized" : "steady state");
+      Counter.builder("cmcc.scheduler.deferred")
+              .description("Reconciliations deferred because no permit was available")
+              .tag("namespace", namespace)
+              .register(meterRegistry)
+              .increment();
+      return Optional.empty();
+    }
+
+    deferredSince.remove(key);
+    active++;
+    activePerNamespace.put(namespace, inNamespace + 1);
+    return Optional.of(new Permit(namespace));
+  }
+
+  private boolean isDeferredTooLong(String key, Instant now) {
+    Instant since = deferredSince.get(key);
+    return since != null && !since.plus(maxDeferral).isAfter(now);
+  }
+
+  /**
+   * Forget the custom resources that have been deleted, and remove the metrics of namespaces that no longer have any
+   * custom resources.
+   *
+   * @param existing the custom resources that exist
+   */
+  @Override
+  public void retainExisting(DeletedResourcePruner.ExistingResources existing) {
+    synchronized (this) {
+      deferredSince.keySet().removeIf(key -> {
+        int slash = key.indexOf('/');
+        return !existing.contains(key.substring(0, slash), key.substring(slash + 1));
+      });
+    }
+    meterRegistry.find("cmcc.scheduler.deferred").counters().stream()
+            .filter(counter -> !existing.containsNamespace(counter.getId().getTag("namespace")))
+            .toList()
+            .forEach(meterRegistry::remove);
+  }
+
+  public synchronized int getActive() {
+    return active;
+  }
+
+  private synchronized void release(String namespace) {
+    active--;
+    activePerNamespace.computeIfPresent(namespace, (ns, count) -> count > 1 ? count - 1 : null);
+  }
+
+  /**
+   * Permission to reconcile a custom resource. Closing the permit more than once has no effect.
+   */
+  public class Permit implements AutoCloseable {
+    private final String namespace;
+    private boolean released;
+
+    private Permit(String namespace) {
+      this.namespace = namespace;
+    }
+
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        release(namespace);
+      }
+    }
+  }
+}
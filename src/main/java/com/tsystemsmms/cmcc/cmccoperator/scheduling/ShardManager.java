@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.scheduling;
+
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Splits the namespaces with custom resources among several replicas of the operator.
+ * <p>
+ * Each replica holds a Lease of its own in the namespace of the operator, and renews it every renewInterval. The
+ * replicas whose Lease has not expired are the members of the group. Each namespace is assigned to exactly one
+ * member, chosen by rendezvous hashing of its name: when a member joins or leaves, only the namespaces it gains or
+ * loses move, all others stay where they are. Leases of members that have died expire after leaseDuration; they are
+ * deleted by the remaining members.
+ * <p>
+ * Whole namespaces are assigned, so that a replica only needs informers for its own namespaces. NamespaceWatcher
+ * changes the namespaces of the reconcilers whenever the members change; the informers of a namespace a replica gains
+ * trigger the reconciliation of its custom resources.
+ * <p>
+ * While the members change, two replicas can disagree about the owner of a namespace for up to renewInterval. A
+ * replica that cannot renew its Lease, for example because it has lost the connection to the API server, gives up
+ * all namespaces once leaseDuration has passed since the last renewal, as the others take them over then.
+ */
+@Slf4j
+public class ShardManager implements AutoCloseable {
+  public static final String DEFAULT_GROUP = "cmcc-operator";
+  public static final String DEFAULT_LEASE_DURATION = "30s";
+  public static final String DEFAULT_RENEW_INTERVAL = "10s";
+  public static final String GROUP_LABEL = "cmcc.tsystemsmms.com/shard-group";
+
+  private final KubernetesClient kubernetesClient;
+  private final String namespace;
+  @Getter
+  private final String identity;
+  private final String group;
+  private final Duration leaseDuration;
+  @Getter
+  private final Duration renewInterval;
+  private final Clock clock;
+  private final List<Consumer<Rebalance>> listeners = new CopyOnWriteArrayList<>();
+  private ScheduledExecutorService executor;
+  @Getter
+  private volatile List<String> members = List.of();
+  private Instant lastRenewed;
+
+  /**
+   * A change of the members of the group.
+   *
+   * @param identity identity of this replica
+   * @param previous members before the change
+   * @param current  members after the change
+   */
+  public record Rebalance(String identity, List<String> previous, List<String> current) {
+    /**
+     * Returns true if this replica has become responsible for the namespace with this change.
+     *
+     * @param namespace the namespace
+     * @return true if the namespace has moved to this replica
+     */
+    public boolean acquired(String namespace) {
+      return identity.equals(owner(namespace, current)) && !identity.equals(owner(namespace, previous));
+    }
+  }
+
+  /**
+   * Create a manager. Call start() to join the group.
+   *
+   * @param kubernetesClient client to manage the Leases with
+   * @param namespace        namespace of the operator, holding the Leases
+   * @param identity         unique name of this replica, for example the name of the pod
+   * @param group            name of the group; replicas with the same group share the custom resources
+   * @param leaseDuration    time after which a member that has not renewed its Lease is considered dead
+   * @param renewInterval    interval in which the Lease is renewed and the members are checked
+   * @param meterRegistry    registry for the metrics
+   */
+  public ShardManager(KubernetesClient kubernetesClient, String namespace, String identity, String group, Duration leaseDuration, Duration renewInterval, MeterRegistry meterRegistry) {
+    this(kubernetesClient, namespace, identity, group, leaseDuration, renewInterval, meterRegistry, Clock.systemUTC());
+  }
+
+  ShardManager(KubernetesClient kubernetesClient, String namespace, String identity, String group, Duration leaseDuration, Duration renewInterval, MeterRegistry meterRegistry, Clock clock) {
+    this.kubernetesClient = kubernetesClient;
+    this.namespace = namespace;
+    this.identity = identity;
+    this.group = group;
+    this.leaseDuration = leaseDuration;
+    this.renewInterval = renewInterval;
+    this.clock = clock;
+    if (meterRegistry != null) {
+      Gauge.builder("cmcc.sharding.members", this, m -> m.members.size())
+              .description("Number of operator replicas sharing the custom resources")
+              .register(meterRegistry);
+    }
+  }
+
+  /**
+   * A manager for a single replica, which is responsible for all custom resources.
+   *
+   * @return the manager
+   */
+  public static ShardManager disabled() {
+    return new ShardManager(null, null, null, null, null, null, null);
+  }
+
+  public boolean isEnabled() {
+    return kubernetesClient != null;
+  }
+
+  /**
+   * Join the group, and keep renewing the Lease in the background.
+   */
+  public void start() {
+    if (!isEnabled()) {
+      return;
+    }
+    log.info("Sharding namespaces among the replicas of group {}, as {}", group, identity);
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "shard-manager");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::refresh, 0, renewInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Register a listener that is called whenever the members of the group change.
+   *
+   * @param listener the listener
+   */
+  public void addRebalanceListener(Consumer<Rebalance> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Returns true if this replica has joined the group, and can determine which namespaces it is responsible for.
+   *
+   * @return true if the members are known
+   */
+  public boolean hasJoined() {
+    return !isEnabled() || !members.isEmpty();
+  }
+
+  /**
+   * Returns true if this replica reconciles the custom resources in the namespace.
+   *
+   * @param namespace the namespace
+   * @return true if this replica is responsible
+   */
+  public boolean isResponsibleFor(String namespace) {
+    if (!isEnabled()) {
+      return true;
+    }
+    return identity.equals(owner(namespace, members));
+  }
+
+  /**
+   * Renew our Lease, and determine the members of the group.
+   */
+  void refresh() {
+    try {
+      Instant now = clock.instant();
+      kubernetesClient.resource(buildLease(now)).fieldManager(group).forceConflicts().serverSideApply();
+
+      List<Lease> leases = kubernetesClient.resources(Lease.class).inNamespace(namespace)
+              .withLabels(Map.of(GROUP_LABEL, group)).list().getItems();
+      List<String> live = leases.stream()
+              .filter(lease -> !isExpired(lease, now))
+              .map(lease -> lease.getSpec().getHolderIdentity())
+              .distinct()
+              .sorted()
+              .toList();
+      leases.stream()
+              .filter(lease -> isExpired(lease, now) && !identity.equals(lease.getSpec().getHolderIdentity()))
+              .forEach(lease -> {
+                log.info("Operator replica {} has not renewed its lease, removing it", lease.getSpec().getHolderIdentity());
+                kubernetesClient.resource(lease).delete();
+              });
+      updateMembers(live);
+      lastRenewed = now;
+    } catch (RuntimeException e) {
+      log.warn("Unable to renew the lease of {} in group {}", identity, group, e);
+      expireMembers();
+    }
+  }
+
+  /**
+   * Once our Lease has expired, the other members take over our namespaces, so we must stop reconciling them.
+   */
+  void expireMembers() {
+    if (!members.isEmpty() && (lastRenewed == null || !lastRenewed.plus(leaseDuration).isAfter(clock.instant()))) {
+      log.warn("The lease of {} in group {} has not been renewed since {}, no longer reconciling any custom resources",
+              identity, group, lastRenewed);
+      updateMembers(List.of());
+    }
+  }
+
+  synchronized void updateMembers(List<String> live) {
+    if (live.equals(members)) {
+      return;
+    }
+    Rebalance rebalance = new Rebalance(identity, members, live);
+    members = live;
+    log.info("Operator replicas in group {} changed from {} to {}", group, rebalance.previous(), rebalance.current());
+    for (Consumer<Rebalance> listener : listeners) {
+      try {
+        listener.accept(rebalance);
+      } catch (RuntimeException e) {
+        log.warn("Unable to handle rebalancing of group {}", group, e);
+      }
+    }
+  }
+
+  private Lease buildLease(Instant now) {
+    return new LeaseBuilder()
+            .withNewMetadata()
+            .withName(group + "-" + identity)
+            .withNamespace(namespace)
+            .withLabels(Map.of(GROUP_LABEL, group))
+            .endMetadata()
+            .withNewSpec()
+            .withHolderIdentity(identity)
+            .withLeaseDurationSeconds((int) leaseDuration.toSeconds())
+            .withRenewTime(ZonedDateTime.ofInstant(now, clock.getZone()))
+            .endSpec()
+            .build();
+  }
+
+  private static boolean isExpired(Lease lease, Instant now) {
+    var spec = lease.getSpec();
+    if (spec == null || spec.getHolderIdentity() == null || spec.getRenewTime() == null || spec.getLeaseDurationSeconds() == null) {
+      return true;
+    }
+    return spec.getRenewTime().toInstant().plusSeconds(spec.getLeaseDurationSeconds()).isBefore(now);
+  }
+
+  /**
+   * Rendezvous hashing: the member with the highest hash of member and key owns the key.
+   *
+   * @param key     the namespace
+   * @param members all members
+   * @return the owner, or null if there are no members
+   */
+  static String owner(String key, Collection<String> members) {
+    String owner = null;
+    long highest = Long.MIN_VALUE;
+    for (String member : members) {
+      long weight = hash(member + "\n" + key);
+      if (owner == null || weight > highest || (weight == highest && member.compareTo(owner) < 0)) {
+        owner = member;
+        highest = weight;
+      }
+    }
+    return owner;
+  }
+
+  /**
+   * 64 bit FNV-1a, followed by the finalizer of SplitMix64 to spread similar inputs.
+   */
+  private static long hash(String s) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b;
+      h *= 0x100000001b3L;
+    }
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+  }
+
+  /**
+   * Leave the group, so that the remaining members take over right away instead of waiting for the Lease to expire.
+   */
+  @Override
+  public void close() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdownNow();
+    try {
+      kubernetesClient.resources(Lease.class).inNamespace(namespace).withName(group + "-" + identity).delete();
+    } catch (RuntimeException e) {
+      log.debug("Unable to delete the lease of {}", identity, e);
+    }
+  }
+}
@@ -13,12 +13,17 @@ package com.tsystemsmms.cmcc.cmccoperator.targetstate;
 import com.tsystemsmms.cmcc.cmccoperator.components.Component;
 import com.tsystemsmms.cmcc.cmccoperator.components.ComponentCollection;
 import com.tsystemsmms.cmcc.cmccoperator.components.ComponentState;
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.crds.ClientSecretRef;
 import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
 import com.tsystemsmms.cmcc.cmccoperator.ingress.UrlMappingBuilderFactory;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
+import com.tsystemsmms.cmcc.cmccoperator.resource.DesiredStateHash;
+import com.tsystemsmms.cmcc.cmccoperator.resource.ReconcilePlan;
 import com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager;
 import com.tsystemsmms.cmcc.cmccoperator.utils.RandomString;
+import com.tsystemsmms.cmcc.cmccoperator.utils.ObjectMerger;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.api.model.apps.StatefulSet;
@@ -28,14 +33,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.BeanFactory;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import static com.tsystemsmms.cmcc.cmccoperator.components.HasUapiClient.UAPI_ADMIN_USERNAME;
 import static com.tsystemsmms.cmcc.cmccoperator.components.HasUapiClient.UAPI_CLIENT_SECRET_REF_KIND;
-import static com.tsystemsmms.cmcc.cmccoperator.utils.KubernetesUtils.getAllResourcesMatchingLabels;
-import static com.tsystemsmms.cmcc.cmccoperator.utils.KubernetesUtils.isMetadataContains;
 import static com.tsystemsmms.cmcc.cmccoperator.utils.Utils.concatOptional;
 
 @Slf4j
@@ -60,8 +65,26 @@ public abstract class AbstractTargetState implements TargetState {
   final Map<String, UrlMappingBuilderFactory> urlMappingBuilderFactories;
   @Getter
   final YamlMapper yamlMapper;
+  @Getter
+  final ObjectMerger objectMerger = new ObjectMerger();
+  @Getter
+  final ReconcileMemo reconcileMemo;
+  @Getter
+  final ConvergenceStats convergenceStats = new ConvergenceStats();
+  @Getter
+  final ReconcileMetrics reconcileMetrics;
+  @Getter
+  final PodTaskRunner podTaskRunner;
+  private Duration rescheduleDelay;
 
   final Map<String, Map<String, ClientSecret>> clientSecrets = new HashMap<>();
+  private final Set<String> changedClientSecretKinds = new HashSet<>();
+  // milestone at which the components last requested their resources
+  private Milestone requestedAtMilestone;
+  // secrets looked up during this reconciliation, including those that do not exist (yet)
+  private final Map<String, Optional<Secret>> loadedSecrets = new ConcurrentHashMap<>();
+
+  private ClusterSnapshot clusterSnapshot;
 
   protected AbstractTargetState(BeanFactory beanFactory,
                              KubernetesClient kubernetesClient,
@@ -69,17 +92,22 @@ public abstract class AbstractTargetState implements TargetState {
                              ResourceReconcilerManager resourceReconcilerManager,
                              Map<String, UrlMappingBuilderFactory> urlMappingBuilderFactories,
                              YamlMapper yamlMapper,
+                             ReconcileMetrics reconcileMetrics,
+                             PodTaskRunner podTaskRunner,
                              CustomResource cmcc) {
     if (cmcc == null || cmcc.getSpec() == null) {
       throw new CustomResourceConfigError("custom resource is null");
     }
     this.kubernetesClient = kubernetesClient;
     this.cmcc = cmcc;
+    this.reconcileMemo = new ReconcileMemo(cmcc);
     this.componentCollection = new ComponentCollection(beanFactory, kubernetesClient, this);
     this.resourceNamingProvider = resourceNamingProviderFactory.instance(this);
     this.resourceReconcilerManager = resourceReconcilerManager;
     this.urlMappingBuilderFactories = urlMappingBuilderFactories;
     this.yamlMapper = yamlMapper;
+    this.reconcileMetrics = reconcileMetrics;
+    this.podTaskRunner = podTaskRunner;
 
     String urlMapperName = getCmcc().getSpec().getDefaults().getManagementUrlMapper();
     this.managementUrlMappingBuilderFactory = urlMappingBuilderFactories.get(urlMapperName);
@@ -113,8 +141,14 @@ public abstract class AbstractTargetState implements TargetState {
       }
     }
     var sleepingString = sleeping > 0 ? " (+" + sleeping + " sleeping)" : "";
+    boolean held = isMilestoneHeld();
     if (stillWaiting.size() == 0) {
-      if (cmcc.getStatus().getMilestone() != cmcc.getStatus().getMilestone().getNext()) {
+      if (held) {
+        log.info("[{}] Waiting for components, {} ready{}: holding milestone {}", getContextForLogging(),
+                ready,
+                sleepingString,
+                getCmcc().getStatus().getMilestone());
+      } else if (cmcc.getStatus().getMilestone() != cmcc.getStatus().getMilestone().getNext()) {
         log.info("[{}] Waiting for components, {} ready{}: Advancing to milestone {}", getContextForLogging(),
                 ready,
                 sleepingString,
@@ -135,6 +169,16 @@ public abstract class AbstractTargetState implements TargetState {
     }
   }
 
+  /**
+   * Returns true if the milestone must not advance yet, even though all components are ready, for example because a
+   * restart has not been rolled out. An implementation holding the milestone should request a reschedule.
+   *
+   * @return true if the milestone must not advance
+   */
+  protected boolean isMilestoneHeld() {
+    return false;
+  }
+
   private static String waitingEntryToString(Map.Entry<String, ComponentState> entry) {
     return  entry.getKey().toString() + ":" + switch(entry.getValue()) {
       case Ready -> "✅";
@@ -148,56 +192,90 @@ public abstract class AbstractTargetState implements TargetState {
   }
 
   @Override
-  public void reconcile() {
-    List<HasMetadata> builtResources = buildResources();
+  public void setPodTaskPending() {
+    requestReschedule(podTaskRunner.getPollInterval());
+  }
 
-    Set<HasMetadata> existingResources = getAllResourcesMatchingLabels(getKubernetesClient(), getCmcc().getMetadata().getNamespace(), getSelectorLabels())
-            .stream().filter(this::isWeOwnThis).collect(Collectors.toSet());
-    Set<HasMetadata> newResources = builtResources.stream().filter(r -> !isMetadataContains(existingResources, r)).collect(Collectors.toSet());
-    Set<HasMetadata> changedResources = builtResources.stream().filter(r -> isMetadataContains(existingResources, r)).collect(Collectors.toSet());
-    Set<HasMetadata> abandonedResources = existingResources.stream().filter(r -> !isMetadataContains(builtResources, r)).collect(Collectors.toSet());
+  @Override
+  public void requestReschedule(Duration delay) {
+    if (rescheduleDelay == null || delay.compareTo(rescheduleDelay) < 0) {
+      rescheduleDelay = delay;
+    }
+  }
 
-    abandonedResources = abandonedResources.stream().filter(r -> mayBeRemoved(r, builtResources)).collect(Collectors.toSet());
+  @Override
+  public Optional<Duration> getRescheduleDelay() {
+    return Optional.ofNullable(rescheduleDelay);
+  }
 
-    log.debug("[{}] Updating dependent resources: {} new, {} updated, {} abandoned resources {}",
-            getContextForLogging(),
-            newResources.size(), changedResources.size(), abandonedResources.size(), abandonedResources.stream().map(x -> x.getMetadata().getName()).toList());
+  @Override
+  public void reconcile() {
+    List<HasMetadata> builtResources = buildResources();
+    builtResources.forEach(DesiredStateHash::annotate);
+
+    String namespace = getCmcc().getMetadata().getNamespace();
+    List<HasMetadata> existingResources = getResourceReconcilerManager().getResourceCache().list(namespace, getSelectorLabels())
+            .stream().filter(this::isWeOwnThis).toList();
+    Set<Map<String, String>> statefulSetLabels = builtResources.stream().filter(StatefulSet.class::isInstance)
+            .map(r -> r.getMetadata().getLabels()).collect(Collectors.toSet());
+
+    ReconcilePlan plan = reconcileMetrics.timePhase(cmcc, ReconcileMetrics.PHASE_DIFF, () ->
+            ReconcilePlan.compute(namespace, getCmcc().getMetadata().getName(), existingResources, builtResources,
+                    r -> mayBeRemoved(r, statefulSetLabels), isDryRun()));
+    getResourceReconcilerManager().recordPlan(plan);
+    log.debug("[{}] Memoized values: {}", getContextForLogging(), reconcileMemo);
+
+    if (plan.isDryRun()) {
+      log.info("[{}] Dry run, not updating dependent resources: {}", getContextForLogging(), plan);
+      return;
+    }
+    log.debug("[{}] Updating dependent resources: {}", getContextForLogging(), plan);
+    reconcileMetrics.recordPlan(cmcc, plan);
 
-    abandonedResources.forEach(r -> getKubernetesClient().resource(r).withPropagationPolicy(DeletionPropagation.BACKGROUND).delete());
+    reconcileMetrics.timePhase(cmcc, ReconcileMetrics.PHASE_APPLY, () -> {
+      plan.getDeletes().forEach(r -> getKubernetesClient().resource(r).withPropagationPolicy(DeletionPropagation.BACKGROUND).delete());
 
-    KubernetesList list = new KubernetesListBuilder().withItems(builtResources).build();
-    getResourceReconcilerManager().createPatchUpdate(getCmcc().getMetadata().getNamespace(), list);
+      KubernetesList list = new KubernetesListBuilder().withItems(builtResources).build();
+      getResourceReconcilerManager().createPatchUpdate(namespace, list);
+    });
   }
 
-  private boolean mayBeRemoved(HasMetadata resource, List<HasMetadata> builtResources) {
-    if (resource instanceof PersistentVolumeClaim pvc &&
-            builtResources.stream().filter(StatefulSet.class::isInstance)
-              .anyMatch(x -> x.getMetadata().getLabels().equals(pvc.getMetadata().getLabels()))) {
-      return false;
-    }
-
-    return true;
+  /**
+   * PVCs created from the volume claim templates of a StatefulSet carry the labels of the StatefulSet, and are kept as
+   * long as the StatefulSet is.
+   */
+  private boolean mayBeRemoved(HasMetadata resource, Set<Map<String, String>> statefulSetLabels) {
+    return !(resource instanceof PersistentVolumeClaim pvc && statefulSetLabels.contains(pvc.getMetadata().getLabels()));
   }
 
   @Override
   public List<HasMetadata> buildResources() {
-    LinkedList<HasMetadata> resources = new LinkedList<>();
-    int convergenceLoops = MAX_CONVERGENCE_LOOP;
-
-    buildClientSecretRefs();
+    reconcileMetrics.timePhase(cmcc, ReconcileMetrics.PHASE_CONVERGE, () -> {
+      int convergenceLoops = MAX_CONVERGENCE_LOOP;
 
-    while (!converge() && convergenceLoops-- > 0) {
-      log.debug("Not yet converged, {} more tries", convergenceLoops);
-    }
-
-    resources.addAll(buildComponentResources());
-    resources.addAll(buildExtraResources());
+      buildClientSecretRefs();
 
-    return resources;
+      while (!converge() && convergenceLoops-- > 0) {
+        log.debug("Not yet converged, {} more tries", convergenceLoops);
+      }
+    });
+    log.debug("[{}] Convergence: {}", getContextForLogging(), convergenceStats);
+    reconcileMetrics.recordConvergence(cmcc, convergenceStats);
+
+    return reconcileMetrics.timePhase(cmcc, ReconcileMetrics.PHASE_BUILD_RESOURCES, () -> {
+      LinkedList<HasMetadata> resources = new LinkedList<>();
+      resources.addAll(buildComponentResources());
+      resources.addAll(buildExtraResources());
+      return resources;
+    });
   }
 
   public void requestRequiredResources() {
-    for (Component component : componentCollection.getComponents()) {
+    requestRequiredResources(componentCollection.getComponents());
+  }
+
+  public void requestRequiredResources(Collection<Component> components) {
+    for (Component component : components) {
       component.requestRequiredResources();
     }
   }
@@ -211,6 +289,7 @@ public abstract class AbstractTargetState implements TargetState {
       for (Map.Entry<String, ClientSecretRef> e : perKind.getValue().entrySet()) {
         secrets.put(e.getKey(), new ClientSecret(e.getValue().cloneWithDefaults()));
       }
+      changedClientSecretKinds.add(perKind.getKey());
     }
 
         /*
@@ -228,19 +307,35 @@ public abstract class AbstractTargetState implements TargetState {
   /**
    * Compute the new target state. Return true once the state has been completed; return false if another convergence
    * round is needed.
+   * <p>
+   * The default and declared components only depend on the spec and the milestone, so they are only added again when
+   * the milestone has moved. Components are only updated when their spec changed. A component requests its resources
+   * again when it has changed, or when one of its dependencies has: the milestone, or another component it depends on,
+   * see Component.getDependencies(). The databases that create users for the client secrets are updated in
+   * convergeOverrideResources() when client secrets of their kind have been requested.
    *
    * @return true if converged
    */
   public boolean converge() {
     Milestone previousMilestone = getCmcc().getStatus().getMilestone();
+    boolean milestoneChanged = previousMilestone != requestedAtMilestone;
 
-    convergeDefaultComponents();
-    componentCollection.addAll(cmcc.getSpec().getComponents());
-    requestRequiredResources();
+    if (milestoneChanged) {
+      convergeDefaultComponents();
+      componentCollection.addAll(cmcc.getSpec().getComponents());
+    }
+    List<Component> changed = componentCollection.takeChanged();
+    Set<Component> affected = componentCollection.withDependents(changed, milestoneChanged);
+    convergenceStats.recordLoop(changed.size());
+    log.debug("[{}] Convergence loop {}: {} components changed, {} request their resources", getContextForLogging(),
+            convergenceStats.getLoops(), changed.size(), affected.size());
+    requestRequiredResources(affected);
+    requestedAtMilestone = previousMilestone;
     convergeOverrideResources();
     advanceToNextMilestoneOnComponentsReady();
 
     if (!getCmcc().getStatus().getMilestone().equals(previousMilestone)) {
+      reconcileMetrics.recordMilestoneTransition(cmcc, previousMilestone, getCmcc().getStatus().getMilestone());
       onMilestoneReached(previousMilestone);
     }
 
@@ -281,21 +376,31 @@ public abstract class AbstractTargetState implements TargetState {
     final LinkedList<HasMetadata> resources = new LinkedList<>();
 
     if (getCmcc().getSpec().getWith().getDatabases()) {
+      int generated = 0;
       for (Map.Entry<String, Map<String, ClientSecret>> e : clientSecrets.entrySet()) {
         if (cmcc.getSpec().getWith().databaseCreateForKind(e.getKey())) {
           for (ClientSecret clientSecret : e.getValue().values()) {
             if (clientSecret.getSecret().isEmpty()) {
-              clientSecret.setSecret(getKubernetesClient().secrets().inNamespace(getCmcc().getMetadata().getNamespace()).withName(clientSecret.getRef().getSecretName()).get());
+              clientSecret.setSecret(loadSecret(clientSecret.getRef().getSecretName()));
               if (clientSecret.getSecret().isEmpty()) {
                 throw new CustomResourceConfigError("Unable to load secret \"" + clientSecret.getRef().getSecretName() + "\", required for database \"" + e.getKey() + "\"");
               }
             }
             Secret secret = clientSecret.getSecret().get();
-            if (isWeOwnThis(secret))
+            if (isWeOwnThis(secret)) {
               resources.add(secret);
+              if (secret.getMetadata().getResourceVersion() == null) {
+                generated++;
+              }
+            }
           }
         }
       }
+      // all generated secrets are created together, in the first wave of the reconcile plan
+      if (generated > 0) {
+        log.info("[{}] Generated credentials for {} secrets", getContextForLogging(), generated);
+        reconcileMetrics.recordSecretsGenerated(cmcc, generated);
+      }
     }
     return resources;
   }
@@ -357,6 +462,7 @@ public abstract class AbstractTargetState implements TargetState {
     try {
       clientSecret = new ClientSecret(ClientSecretRef.defaultClientSecretRef(getSecretName(kind, schema)));
       perKind.put(schema, clientSecret);
+      changedClientSecretKinds.add(kind);
       buildOrLoadSecret.accept(clientSecret, getClientPassword());
     } catch (NoSuchComponentException e) {
       throw new CustomResourceConfigError("No \"" + kind + "\" client secret reference found for \"" + schema + "\" in custom resource definition");
@@ -374,6 +480,16 @@ public abstract class AbstractTargetState implements TargetState {
   }
 
 
+  /**
+   * Returns true if client secrets of the kind have been added since the last call.
+   *
+   * @param kind kind of client secret
+   * @return true if secrets have been added
+   */
+  protected boolean takeClientSecretsChanged(String kind) {
+    return changedClientSecretKinds.remove(kind);
+  }
+
   /**
    * Returns a password for a client connection. By default, will generate a random password. If
    * defaults.withInsecureDatabasePassword is set, returns that password.
@@ -389,12 +505,14 @@ public abstract class AbstractTargetState implements TargetState {
 
   @Override
   public String getResourceNameFor(Component component, String... additional) {
-    return resourceNamingProvider.nameFor(component, additional);
+    return reconcileMemo.get(component, Arrays.asList("resourceName", component.getBaseResourceName(), Arrays.asList(additional)),
+            () -> resourceNamingProvider.nameFor(component, additional));
   }
 
   @Override
   public String getResourceNameFor(String component, String... additional) {
-    return resourceNamingProvider.nameFor(component, additional);
+    return reconcileMemo.get(this, Arrays.asList("resourceName", component, Arrays.asList(additional)),
+            () -> resourceNamingProvider.nameFor(component, additional));
   }
 
   @Override
@@ -436,13 +554,34 @@ public abstract class AbstractTargetState implements TargetState {
 
   /**
    * Load a secret from the cluster. The stringData map will be populated.
+   * <p>
+   * Secrets created by the operator are taken from the informer cache; all others are read from the API server. Each
+   * secret is looked up at most once per reconciliation, and callers get their own copy.
    *
    * @param name resource
    * @return secret
    */
   public Secret loadSecret(String name) {
-    Secret secret = kubernetesClient.secrets().inNamespace(getCmcc().getMetadata().getNamespace()).withName(name).get();
-    if (secret != null && (secret.getStringData() == null || secret.getStringData().size() == 0)) {
+    return loadedSecrets.computeIfAbsent(name, this::fetchSecret)
+            .map(secret -> new SecretBuilder(secret).build())
+            .orElse(null);
+  }
+
+  private Optional<Secret> fetchSecret(String name) {
+    String namespace = getCmcc().getMetadata().getNamespace();
+    Optional<Secret> secret = getResourceReconcilerManager().getResourceCache().getCached(Secret.class, namespace, name);
+    if (secret.isPresent()) {
+      reconcileMetrics.recordSecretLookup(cmcc, ReconcileMetrics.SECRET_SOURCE_CACHE);
+    } else {
+      secret = Optional.ofNullable(kubernetesClient.secrets().inNamespace(namespace).withName(name).get());
+      reconcileMetrics.recordSecretLookup(cmcc, ReconcileMetrics.SECRET_SOURCE_API);
+    }
+    // copy, so that the instance in the informer cache stays untouched
+    return secret.map(s -> withStringData(new SecretBuilder(s).build()));
+  }
+
+  private static Secret withStringData(Secret secret) {
+    if (secret.getStringData() == null || secret.getStringData().size() == 0) {
       Map<String, String> stringData = new HashMap<>();
       secret.setStringData(stringData);
       if (secret.getData() != null) {
@@ -460,15 +599,25 @@ public abstract class AbstractTargetState implements TargetState {
   public void onMilestoneReached(Milestone previousMilestone) {
   }
 
-  /**
-   * Restart a component by scaling its StatefulSet to 0. The next control loop will re-set the replicas to 1 again.
-   *
-   * @param name name of the StatefulSet
-   */
-  public void restartStatefulSet(String name) {
-    kubernetesClient.apps().statefulSets().
+  @Override
+  public long restartStatefulSet(String name) {
+    if (isDryRun()) {
+      log.info("[{}] Dry run, not restarting {}", getContextForLogging(), name);
+      return 0;
+    }
+    StatefulSet sts = kubernetesClient.apps().statefulSets().
             inNamespace(cmcc.getMetadata().getNamespace()).withName(name)
             .rolling().restart();
+    clusterSnapshot = null;
+    return sts == null || sts.getMetadata().getGeneration() == null ? 0 : sts.getMetadata().getGeneration();
+  }
+
+  @Override
+  public ClusterSnapshot getClusterSnapshot() {
+    if (clusterSnapshot == null) {
+      clusterSnapshot = ClusterSnapshot.load(getResourceReconcilerManager().getResourceCache(), cmcc.getMetadata().getNamespace(), getSelectorLabels());
+    }
+    return clusterSnapshot;
   }
 
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import com.tsystemsmms.cmcc.cmccoperator.resource.OwnedResourceCache;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The StatefulSets and Jobs of a custom resource, read once per reconciliation. Components query their state from
+ * here, so evaluating the milestone in each convergence loop does not need to talk to the API server.
+ * <p>
+ * The resources may be shared with the informer cache and must not be modified.
+ */
+public class ClusterSnapshot {
+  private final Map<String, StatefulSet> statefulSets;
+  private final Map<String, Job> jobs;
+
+  public ClusterSnapshot(Collection<StatefulSet> statefulSets, Collection<Job> jobs) {
+    this.statefulSets = byName(statefulSets);
+    this.jobs = byName(jobs);
+  }
+
+  /**
+   * Read the StatefulSets and Jobs with the given labels.
+   *
+   * @param resourceCache cache (or API server) to read from
+   * @param namespace     namespace of the custom resource
+   * @param labels        labels of the resources of the custom resource
+   * @return snapshot
+   */
+  public static ClusterSnapshot load(OwnedResourceCache resourceCache, String namespace, Map<String, String> labels) {
+    return new ClusterSnapshot(
+            resourceCache.list(StatefulSet.class, namespace, labels),
+            resourceCache.list(Job.class, namespace, labels));
+  }
+
+  private static <T extends HasMetadata> Map<String, T> byName(Collection<T> resources) {
+    return resources.stream().collect(Collectors.toMap(r -> r.getMetadata().getName(), Function.identity(), (a, b) -> a));
+  }
+
+  /**
+   * Returns the StatefulSet with the given name.
+   *
+   * @param name of the StatefulSet
+   * @return the StatefulSet, or empty if it does not exist
+   */
+  public Optional<StatefulSet> getStatefulSet(String name) {
+    return Optional.ofNullable(statefulSets.get(name));
+  }
+
+  /**
+   * Returns all StatefulSets that have the label.
+   *
+   * @param label name of the label
+   * @param value value of the label
+   * @return list of StatefulSets
+   */
+  public List<StatefulSet> getStatefulSetsWithLabel(String label, String value) {
+    return statefulSets.values().stream()
+            .filter(sts -> sts.getMetadata().getLabels() != null && value.equals(sts.getMetadata().getLabels().get(label)))
+            .toList();
+  }
+
+  /**
+   * Returns the Job with the given name.
+   *
+   * @param name of the Job
+   * @return the Job, or empty if it does not exist
+   */
+  public Optional<Job> getJob(String name) {
+    return Optional.ofNullable(jobs.get(name));
+  }
+
+  /**
+   * Returns true if the StatefulSet controller has rolled out the given generation of the StatefulSet: it has observed
+   * the generation, all pods run the current revision, and all of them are ready.
+   *
+   * @param sts        the StatefulSet
+   * @param generation the generation of the StatefulSet to wait for, as returned when it was changed
+   * @return true if the generation has been rolled out
+   */
+  public static boolean isRolledOut(StatefulSet sts, long generation) {
+    var status = sts.getStatus();
+    if (status == null || status.getObservedGeneration() == null || status.getObservedGeneration() < generation) {
+      return false;
+    }
+    int replicas = sts.getSpec() == null || sts.getSpec().getReplicas() == null ? 1 : sts.getSpec().getReplicas();
+    return status.getUpdateRevision() != null
+            && status.getUpdateRevision().equals(status.getCurrentRevision())
+            && valueOf(status.getUpdatedReplicas()) >= replicas
+            && valueOf(status.getReadyReplicas()) >= replicas;
+  }
+
+  private static int valueOf(Integer i) {
+    return i == null ? 0 : i;
+  }
+}
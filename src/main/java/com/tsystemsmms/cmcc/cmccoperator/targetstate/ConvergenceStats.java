@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records how many convergence loops a target state needed, and how many components were created or updated in each
+ * loop.
+ */
+public class ConvergenceStats {
+  private final List<Integer> changedComponents = new ArrayList<>();
+
+  /**
+   * Record a convergence loop.
+   *
+   * @param changed number of components created or updated in this loop
+   */
+  public void recordLoop(int changed) {
+    changedComponents.add(changed);
+  }
+
+  public int getLoops() {
+    return changedComponents.size();
+  }
+
+  /**
+   * Returns the number of components created or updated, per loop.
+   *
+   * @return list with one entry per loop
+   */
+  public List<Integer> getChangedComponents() {
+    return Collections.unmodifiableList(changedComponents);
+  }
+
+  @Override
+  public String toString() {
+    return getLoops() + " loops, changed components per loop " + changedComponents;
+  }
+}
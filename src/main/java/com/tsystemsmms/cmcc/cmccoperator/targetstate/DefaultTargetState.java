@@ -12,6 +12,7 @@ package com.tsystemsmms.cmcc.cmccoperator.targetstate;
 
 import com.tsystemsmms.cmcc.cmccoperator.components.Component;
 import com.tsystemsmms.cmcc.cmccoperator.components.ComponentSpecBuilder;
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.components.corba.CAEComponent;
 import com.tsystemsmms.cmcc.cmccoperator.components.generic.MongoDBComponent;
 import com.tsystemsmms.cmcc.cmccoperator.components.generic.MySQLComponent;
@@ -20,6 +21,7 @@ import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
 import com.tsystemsmms.cmcc.cmccoperator.crds.WithOptions;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
 import com.tsystemsmms.cmcc.cmccoperator.ingress.UrlMappingBuilderFactory;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
 import com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager;
 import com.tsystemsmms.cmcc.cmccoperator.utils.Utils;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
@@ -32,6 +34,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static com.tsystemsmms.cmcc.cmccoperator.components.HasJdbcClient.JDBC_CLIENT_SECRET_REF_KIND;
+import static com.tsystemsmms.cmcc.cmccoperator.components.HasMongoDBClient.MONGODB_CLIENT_SECRET_REF_KIND;
 import static com.tsystemsmms.cmcc.cmccoperator.components.corba.AbstractRenderingCorbaComponent.KIND_LIVE;
 import static com.tsystemsmms.cmcc.cmccoperator.components.corba.CAEFeederComponent.*;
 import static com.tsystemsmms.cmcc.cmccoperator.components.corba.ContentServerComponent.CONTENT_SERVER;
@@ -49,6 +53,8 @@ public class DefaultTargetState extends AbstractTargetState {
                               ResourceReconcilerManager resourceReconcilerManager,
                               Map<String, UrlMappingBuilderFactory> urlMappingBuilderFactories,
                               YamlMapper yamlMapper,
+                              ReconcileMetrics reconcileMetrics,
+                              PodTaskRunner podTaskRunner,
                               CustomResource cmcc) {
         super(beanFactory,
                 kubernetesClient,
@@ -56,6 +62,8 @@ public class DefaultTargetState extends AbstractTargetState {
                 resourceReconcilerManager,
                 urlMappingBuilderFactories,
                 yamlMapper,
+                reconcileMetrics,
+                podTaskRunner,
                 cmcc);
     }
 
@@ -161,13 +169,20 @@ public class DefaultTargetState extends AbstractTargetState {
 
         if (cmcc.getSpec().getWith().getDatabases()) {
             // If create database is activated, the components were already created in convergeDefaultComponents(). Now we only need to create the user.
+            // The users depend on the client secrets requested by the other components, so only update them when those have changed.
             if (cmcc.getSpec().getWith().databaseCreateForKind("mongodb")) {
                 Optional<Component> mongoDb = componentCollection.getOfTypeAndKind("mongodb", "");
-                mongoDb.ifPresent(c -> c.getComponentSpec().getExtra().putAll(MongoDBComponent.createUsersFromClientSecrets(this)));
+                if (mongoDb.isPresent() && takeClientSecretsChanged(MONGODB_CLIENT_SECRET_REF_KIND)) {
+                    mongoDb.get().getComponentSpec().getExtra().putAll(MongoDBComponent.createUsersFromClientSecrets(this));
+                    getReconcileMemo().invalidate(mongoDb.get());
+                }
             }
             if (cmcc.getSpec().getWith().databaseCreateForKind("mysql")) {
                 Optional<Component> mysqlDb = componentCollection.getOfTypeAndKind("mysql", "");
-                mysqlDb.ifPresent(c -> c.getComponentSpec().getExtra().putAll(MySQLComponent.createUsersFromClientSecrets(this)));
+                if (mysqlDb.isPresent() && takeClientSecretsChanged(JDBC_CLIENT_SECRET_REF_KIND)) {
+                    mysqlDb.get().getComponentSpec().getExtra().putAll(MySQLComponent.createUsersFromClientSecrets(this));
+                    getReconcileMemo().invalidate(mysqlDb.get());
+                }
             }
         }
 
@@ -185,7 +200,7 @@ public class DefaultTargetState extends AbstractTargetState {
                 getCmcc().getStatus().setJob("");
                 throw new CustomResourceConfigError("No such job \"" + getCmcc().getStatus().getJob() + "\"");
             }
-            ComponentSpec job = Utils.deepClone(toRun.get(), ComponentSpec.class);
+            ComponentSpec job = toRun.get().copy();
             job.setMilestone(Milestone.RunJob);
             componentCollection.add(job);
         }
@@ -198,12 +213,11 @@ public class DefaultTargetState extends AbstractTargetState {
         if (cmcc.getSpec().getWith().getRestartContentServer() &&
                 cmcc.getStatus().getMilestone() == Milestone.ContentServerReady) {
             log.info("[{}] Restarting CMS and MLS", getContextForLogging());
-            restartStatefulSet(componentCollection.getServiceNameFor("content-server", "cms"));
-            restartStatefulSet(componentCollection.getServiceNameFor("content-server", "mls"));
-            try {
-                Thread.sleep(5_000L);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            for (String name : getContentServersToRestart()) {
+                long generation = restartStatefulSet(name);
+                if (generation > 0) {
+                    setFlag(restartFlag(name), Long.toString(generation));
+                }
             }
         }
 
@@ -218,4 +232,46 @@ public class DefaultTargetState extends AbstractTargetState {
                     }
                 });
     }
+
+    /**
+     * After the restart of CMS and MLS, hold the milestone until both StatefulSets have rolled out the restart and are
+     * ready again. The generation of each restarted StatefulSet is kept in a flag in the status, so that the restart is
+     * followed up even if the operator is restarted in the meantime.
+     */
+    @Override
+    protected boolean isMilestoneHeld() {
+        if (!cmcc.getSpec().getWith().getRestartContentServer() ||
+                cmcc.getStatus().getMilestone() != Milestone.ContentServerReady) {
+            return false;
+        }
+        boolean restarting = false;
+        for (String name : getContentServersToRestart()) {
+            String flag = restartFlag(name);
+            String generation = getFlag(flag, "");
+            if (generation.isEmpty()) {
+                continue;
+            }
+            var sts = getClusterSnapshot().getStatefulSet(name);
+            if (sts.isEmpty() || ClusterSnapshot.isRolledOut(sts.get(), Long.parseLong(generation))) {
+                log.info("[{}] Restart of {} has been rolled out", getContextForLogging(), name);
+                setFlag(flag, "");
+            } else {
+                restarting = true;
+            }
+        }
+        if (restarting) {
+            requestReschedule(getPodTaskRunner().getPollInterval());
+        }
+        return restarting;
+    }
+
+    private List<String> getContentServersToRestart() {
+        return List.of(
+                componentCollection.getServiceNameFor("content-server", "cms"),
+                componentCollection.getServiceNameFor("content-server", "mls"));
+    }
+
+    private static String restartFlag(String name) {
+        return Utils.concatOptional("restart", name, "generation");
+    }
 }
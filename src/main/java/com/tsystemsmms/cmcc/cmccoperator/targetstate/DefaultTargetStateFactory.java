@@ -10,8 +10,10 @@
 
 package com.tsystemsmms.cmcc.cmccoperator.targetstate;
 
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
 import com.tsystemsmms.cmcc.cmccoperator.ingress.UrlMappingBuilderFactory;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
 import com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
 import io.fabric8.kubernetes.client.KubernetesClient;
@@ -31,19 +33,25 @@ public class DefaultTargetStateFactory implements TargetStateFactory {
     protected final ResourceReconcilerManager resourceReconcilerManager;
     protected final Map<String, UrlMappingBuilderFactory> urlMappingBuilderFactories;
     protected final YamlMapper yamlMapper;
+    protected final ReconcileMetrics reconcileMetrics;
+    protected final PodTaskRunner podTaskRunner;
 
     public DefaultTargetStateFactory(BeanFactory beanFactory,
                                      KubernetesClient kubernetesClient,
                                      ResourceNamingProviderFactory resourceNamingProviderFactory,
                                      ResourceReconcilerManager resourceReconcilerManager,
                                      Map<String, UrlMappingBuilderFactory> urlMappingBuilderFactories,
-                                     YamlMapper yamlMapper) {
+                                     YamlMapper yamlMapper,
+                                     ReconcileMetrics reconcileMetrics,
+                                     PodTaskRunner podTaskRunner) {
         this.beanFactory = beanFactory;
         this.kubernetesClient = kubernetesClient;
         this.resourceNamingProviderFactory = resourceNamingProviderFactory;
         this.resourceReconcilerManager = resourceReconcilerManager;
         this.urlMappingBuilderFactories = urlMappingBuilderFactories;
         this.yamlMapper = yamlMapper;
+        this.reconcileMetrics = reconcileMetrics;
+        this.podTaskRunner = podTaskRunner;
     }
 
     @Override
@@ -55,6 +63,8 @@ public class DefaultTargetStateFactory implements TargetStateFactory {
                     resourceReconcilerManager,
                     urlMappingBuilderFactories,
                     yamlMapper,
+                    reconcileMetrics,
+                    podTaskRunner,
                     cmcc);
         }
         return new DefaultTargetState(beanFactory,
@@ -63,6 +73,8 @@ public class DefaultTargetStateFactory implements TargetStateFactory {
                 resourceReconcilerManager,
                 urlMappingBuilderFactories,
                 yamlMapper,
+                reconcileMetrics,
+                podTaskRunner,
                 cmcc);
     }
 }
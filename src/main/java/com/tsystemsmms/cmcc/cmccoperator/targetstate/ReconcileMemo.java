@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudStatus;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Remembers values that components compute several times during one reconciliation, like labels and env vars.
+ * <p>
+ * Values are stored per owner (usually a component) and key. Most of these values depend on the status of the custom
+ * resource, for example the milestone or the flags. The memo is therefore cleared whenever the status differs from
+ * the status the values have been computed for. Owners whose own state changes must call {@link #invalidate(Object)}.
+ * <p>
+ * Stored values are shared between callers; owners should hand out copies of mutable values.
+ */
+public class ReconcileMemo {
+  private final CustomResource cmcc;
+  private final Map<Object, Map<List<Object>, Object>> values = new IdentityHashMap<>();
+  private boolean valid;
+  private CoreMediaContentCloudStatus validFor;
+
+  @Getter
+  private long hits;
+  @Getter
+  private long misses;
+  @Getter
+  private long invalidations;
+
+  public ReconcileMemo(CustomResource cmcc) {
+    this.cmcc = cmcc;
+  }
+
+  /**
+   * Returns the value for the key, computing it if necessary.
+   *
+   * @param owner    owner of the value
+   * @param key      key of the value, unique for the owner
+   * @param supplier computes the value
+   * @param <T>      type of the value
+   * @return the value
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <T> T get(Object owner, List<Object> key, Supplier<T> supplier) {
+    checkStatus();
+    Map<List<Object>, Object> ownerValues = values.computeIfAbsent(owner, o -> new HashMap<>());
+    if (ownerValues.containsKey(key)) {
+      hits++;
+      return (T) ownerValues.get(key);
+    }
+    misses++;
+    // the supplier may use the memo itself, so do not use computeIfAbsent() here
+    T value = supplier.get();
+    values.computeIfAbsent(owner, o -> new HashMap<>()).put(key, value);
+    return value;
+  }
+
+  /**
+   * Forget all values of the owner.
+   *
+   * @param owner owner of the values
+   */
+  public synchronized void invalidate(Object owner) {
+    if (values.remove(owner) != null) {
+      invalidations++;
+    }
+  }
+
+  private void checkStatus() {
+    CoreMediaContentCloudStatus status = cmcc.getStatus();
+    if (!valid || !Objects.equals(validFor, status)) {
+      if (!values.isEmpty()) {
+        values.clear();
+        invalidations++;
+      }
+      validFor = status == null ? null : new CoreMediaContentCloudStatus(status);
+      valid = true;
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return hits + " hits, " + misses + " misses, " + invalidations + " invalidations";
+  }
+}
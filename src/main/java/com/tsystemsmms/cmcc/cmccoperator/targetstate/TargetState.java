@@ -14,15 +14,20 @@ import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
 import com.tsystemsmms.cmcc.cmccoperator.CoreMediaContentCloudReconciler;
 import com.tsystemsmms.cmcc.cmccoperator.components.Component;
 import com.tsystemsmms.cmcc.cmccoperator.components.ComponentCollection;
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.crds.ClientSecretRef;
 import com.tsystemsmms.cmcc.cmccoperator.crds.ComponentDefaults;
 import com.tsystemsmms.cmcc.cmccoperator.ingress.UrlMappingBuilderFactory;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
 import com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager;
+import com.tsystemsmms.cmcc.cmccoperator.utils.ObjectMerger;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
 import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.function.BiConsumer;
 
@@ -35,6 +40,7 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 public interface TargetState {
   String DATABASE_SECRET_USERNAME_KEY = "username";
   String DATABASE_SECRET_PASSWORD_KEY = "password";
+  String DRY_RUN_ANNOTATION = "cmcc.tsystemsmms.com/dry-run";
 
   /**
    * Build all k8s resources for the desired target state.
@@ -236,6 +242,69 @@ public interface TargetState {
    */
   ResourceReconcilerManager getResourceReconcilerManager();
 
+  /**
+   * Returns the StatefulSets and Jobs of this custom resource as they are in the cluster. The snapshot is read once
+   * per reconciliation, and shared by all components to determine their state.
+   *
+   * @return the snapshot
+   */
+  ClusterSnapshot getClusterSnapshot();
+
+  /**
+   * Returns the merger for objects like security contexts. It caches the results for this reconciliation.
+   *
+   * @return the merger
+   */
+  ObjectMerger getObjectMerger();
+
+  /**
+   * Returns the memo for values components compute repeatedly during this reconciliation.
+   *
+   * @return the memo
+   */
+  ReconcileMemo getReconcileMemo();
+
+  /**
+   * Returns how many convergence loops building the resources took.
+   *
+   * @return the statistics
+   */
+  ConvergenceStats getConvergenceStats();
+
+  /**
+   * Returns the metrics to record the reconciliation in.
+   *
+   * @return the metrics
+   */
+  ReconcileMetrics getReconcileMetrics();
+
+  /**
+   * Returns the runner for operations in pods.
+   *
+   * @return the runner
+   */
+  PodTaskRunner getPodTaskRunner();
+
+  /**
+   * Record that a component is waiting for an operation in a pod, so the reconciliation has to be repeated.
+   */
+  void setPodTaskPending();
+
+  /**
+   * Request that the reconciliation is repeated after the delay, even if nothing changes in the cluster. If several
+   * delays are requested, the shortest one wins.
+   *
+   * @param delay after which to reconcile again
+   */
+  void requestReschedule(Duration delay);
+
+  /**
+   * Returns the delay after which the reconciliation has to be repeated.
+   *
+   * @return the delay, or empty if no reschedule has been requested
+   */
+  Optional<Duration> getRescheduleDelay();
+
   /**
    * Construct the Kubernetes metadata for the given name.
    *
@@ -429,6 +498,17 @@ public interface TargetState {
    */
   void reconcile();
 
+  /**
+   * Returns true if the custom resource has the dry-run annotation set. In a dry run, the reconciliation plan is
+   * computed, but no resources are changed in the cluster.
+   *
+   * @return true for a dry run
+   */
+  default boolean isDryRun() {
+    Map<String, String> annotations = getCmcc().getMetadata().getAnnotations();
+    return annotations != null && booleanOf(annotations.get(DRY_RUN_ANNOTATION), false);
+  }
+
   /**
    * Sets the named flag to the string value
    *
@@ -449,5 +529,12 @@ public interface TargetState {
     setFlag(name, value ? "true" : "false");
   }
 
-  void restartStatefulSet(String name);
+  /**
+   * Start a rollout restart of the StatefulSet. The restart does not wait for the pods; use
+   * {@link ClusterSnapshot#isRolledOut(StatefulSet, long)} with the returned generation to find out when it is done.
+   *
+   * @param name name of the StatefulSet
+   * @return the generation of the restarted StatefulSet, or 0 if nothing has been restarted
+   */
+  long restartStatefulSet(String name);
 }
\ No newline at end of file
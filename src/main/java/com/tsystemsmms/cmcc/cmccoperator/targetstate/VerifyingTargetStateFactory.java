@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudSpec;
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudStatus;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CrdCustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
+import com.tsystemsmms.cmcc.cmccoperator.resource.PodTemplateDiff;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState.DRY_RUN_ANNOTATION;
+
+/**
+ * Checks that the pod templates built for a custom resource are stable, before handing out the target state for the
+ * reconciliation. A template that differs from one build to the next rolls out new pods on every reconciliation.
+ * <p>
+ * The resources are built three times, in dry runs on copies of the custom resource: twice from the same input, and
+ * once after the custom resource has been serialized to JSON and read back. The pod templates of the second and third
+ * build are compared with those of the first, see {@link PodTemplateDiff}.
+ * <p>
+ * A custom resource is only verified again when its spec or its milestone has changed since it was last verified,
+ * since the same input would be built the same way again.
+ */
+@Slf4j
+public class VerifyingTargetStateFactory implements TargetStateFactory, DeletedResourcePruner.PerResourceState {
+    public static final String CHECK_REBUILD = "rebuild";
+    public static final String CHECK_SERIALIZATION = "serialization";
+
+    // the same serialization the Kubernetes client uses for the custom resources it receives
+    private static final KubernetesSerialization serialization = new KubernetesSerialization();
+
+    public enum Mode {
+        /**
+         * Do not verify the pod templates.
+         */
+        OFF,
+        /**
+         * Log a warning if the pod templates differ, and reconcile anyway.
+         */
+        WARN,
+        /**
+         * Fail the reconciliation if the pod templates differ. Meant for tests.
+         */
+        FAIL;
+
+        public static Mode of(String mode) {
+            return mode == null || mode.isBlank() ? OFF : valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final TargetStateFactory delegate;
+    private final TargetStateFactory verificationFactory;
+    @Getter
+    private final Mode mode;
+    private final ReconcileMetrics reconcileMetrics;
+    // hash of the input last verified, per custom resource
+    private final Map<ResourceID, Integer> verified = new ConcurrentHashMap<>();
+
+    /**
+     * Create a verifying factory.
+     *
+     * @param delegate            builds the target state for the reconciliation
+     * @param verificationFactory builds the target states to compare, should not export its metrics
+     * @param mode                what to do if the pod templates differ
+     * @param reconcileMetrics    metrics to count unstable pod templates in
+     */
+    public VerifyingTargetStateFactory(TargetStateFactory delegate, TargetStateFactory verificationFactory, Mode mode, ReconcileMetrics reconcileMetrics) {
+        this.delegate = delegate;
+        this.verificationFactory = verificationFactory;
+        this.mode = mode;
+        this.reconcileMetrics = reconcileMetrics;
+    }
+
+    @Override
+    public TargetState buildTargetState(CustomResource cmcc) {
+        if (mode != Mode.OFF) {
+            ResourceID id = new ResourceID(cmcc.getMetadata().getName(), cmcc.getMetadata().getNamespace());
+            int input = inputHash(cmcc);
+            Integer last = verified.get(id);
+            if (last == null || last != input) {
+                verify(cmcc);
+                verified.put(id, input);
+            }
+        }
+        return delegate.buildTargetState(cmcc);
+    }
+
+    @Override
+    public void retainExisting(DeletedResourcePruner.ExistingResources existing) {
+        verified.keySet().removeIf(id -> !existing.contains(id.getNamespace().orElse(null), id.getName()));
+    }
+
+    private static int inputHash(CustomResource cmcc) {
+        return Objects.hash(serialization.asJson(cmcc.getSpec()), cmcc.getStatus().getMilestone());
+    }
+
+    /**
+     * Build the resources for copies of the custom resource, and compare their pod templates.
+     *
+     * @param cmcc custom resource, will not be modified
+     * @return the differences, empty if the pod templates are stable
+     */
+    public List<String> verify(CustomResource cmcc) {
+        String context = cmcc.getMetadata().getNamespace() + "/" + cmcc.getMetadata().getName();
+        List<String> differences = new LinkedList<>();
+        try {
+            List<HasMetadata> first = build(copyOf(cmcc));
+            check(cmcc, CHECK_REBUILD, PodTemplateDiff.diff(first, build(copyOf(cmcc))), differences);
+            check(cmcc, CHECK_SERIALIZATION, PodTemplateDiff.diff(first, build(roundTripOf(cmcc))), differences);
+        } catch (RuntimeException e) {
+            if (mode == Mode.FAIL) {
+                throw e;
+            }
+            log.warn("[{}] Unable to verify the pod templates: {}", context, e.getMessage());
+            return differences;
+        }
+
+        if (!differences.isEmpty()) {
+            String message = "Pod templates differ between builds from the same input, pods would be restarted needlessly: "
+                    + String.join("; ", differences);
+            if (mode == Mode.FAIL) {
+                throw new IllegalStateException("[" + context + "] " + message);
+            }
+            log.warn("[{}] {}", context, message);
+        }
+        return differences;
+    }
+
+    private void check(CustomResource cmcc, String check, List<String> found, List<String> differences) {
+        if (!found.isEmpty()) {
+            reconcileMetrics.recordUnstablePodTemplates(cmcc, check);
+            found.forEach(d -> differences.add(check + " " + d));
+        }
+    }
+
+    private List<HasMetadata> build(CustomResource cmcc) {
+        return verificationFactory.buildTargetState(cmcc).buildResources();
+    }
+
+    private static CustomResource copyOf(CustomResource cmcc) {
+        CoreMediaContentCloud copy = new CoreMediaContentCloud(new CoreMediaContentCloudSpec(cmcc.getSpec()), new CoreMediaContentCloudStatus(cmcc.getStatus()));
+        copy.setMetadata(new ObjectMetaBuilder(cmcc.getMetadata()).build());
+        return dryRun(copy);
+    }
+
+    private static CustomResource roundTripOf(CustomResource cmcc) {
+        CoreMediaContentCloud resource = new CoreMediaContentCloud(cmcc.getSpec(), cmcc.getStatus());
+        resource.setMetadata(cmcc.getMetadata());
+        return dryRun(serialization.unmarshal(serialization.asJson(resource), CoreMediaContentCloud.class));
+    }
+
+    /**
+     * Nothing may be changed in the cluster while building the copies, see {@link TargetState#isDryRun()}.
+     */
+    private static CustomResource dryRun(CoreMediaContentCloud cmcc) {
+        Map<String, String> annotations = cmcc.getMetadata().getAnnotations() == null
+                ? new HashMap<>()
+                : new HashMap<>(cmcc.getMetadata().getAnnotations());
+        annotations.put(DRY_RUN_ANNOTATION, "true");
+        cmcc.getMetadata().setAnnotations(annotations);
+        return new CrdCustomResource(cmcc);
+    }
+}
@@ -10,11 +10,13 @@
 
 package com.tsystemsmms.cmcc.cmccoperator.targetstate;
 
+import com.tsystemsmms.cmcc.cmccoperator.components.PodTaskRunner;
 import com.tsystemsmms.cmcc.cmccoperator.components.corba.ContentServerComponent;
 import com.tsystemsmms.cmcc.cmccoperator.components.generic.SolrComponent;
 import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
 import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
 import com.tsystemsmms.cmcc.cmccoperator.ingress.UrlMappingBuilderFactory;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
 import com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager;
 import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
 import io.fabric8.kubernetes.api.model.HasMetadata;
@@ -23,6 +25,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.BeanFactory;
 
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -41,7 +44,13 @@ import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 @Slf4j
 public class VersioningTargetState extends DefaultTargetState {
 
+    /**
+     * Status flag holding the target version for which the replication has been disabled on all RLS and Solr followers.
+     */
+    public static final String REPLICATION_DISABLED_FLAG = "replication-disabled";
+
     private String versionOverride;
+    private Boolean replicationDisabled;
 
     public VersioningTargetState(BeanFactory beanFactory,
                                  KubernetesClient kubernetesClient,
@@ -49,6 +58,8 @@ public class VersioningTargetState extends DefaultTargetState {
                                  ResourceReconcilerManager resourceReconcilerManager,
                                  Map<String, UrlMappingBuilderFactory> urlMappingBuilderFactories,
                                  YamlMapper yamlMapper,
+                                 ReconcileMetrics reconcileMetrics,
+                                 PodTaskRunner podTaskRunner,
                                  CustomResource cmcc) {
         super(beanFactory,
                 kubernetesClient,
@@ -56,6 +67,8 @@ public class VersioningTargetState extends DefaultTargetState {
                 resourceReconcilerManager,
                 urlMappingBuilderFactories,
                 yamlMapper,
+                reconcileMetrics,
+                podTaskRunner,
                 cmcc);
     }
 
@@ -97,23 +110,68 @@ public class VersioningTargetState extends DefaultTargetState {
 
         var result = super.buildResources();
 
-        if (DeploymentStarted.equals(cmcc.getStatus().getMilestone()) && isNotEmpty(getCmcc().getStatus().getTargetVersion())) {
-            log.info("[{}] Trying to disable replication on all remaining Replication Live Servers", getContextForLogging());
-            componentCollection.findAllOfTypeAndKind(CONTENT_SERVER, KIND_RLS)
-                    .parallel()
-                    .map(ContentServerComponent.class::cast)
-                    .forEach(ContentServerComponent::disableRlsReplication);
-
-            log.info("[{}] Trying to disable replication on all remaining Solr followers", getContextForLogging());
-            componentCollection.findAllOfTypeAndKind(SOLR, KIND_FOLLOWER)
-                    .parallel()
-                    .map(SolrComponent.class::cast)
-                    .forEach(SolrComponent::disableReplication);
+        if (isDisablingReplication()) {
+            disableReplicationForUpgrade();
         }
 
         return result;
     }
 
+    /**
+     * The milestone DeploymentStarted of an upgrade is held until the replication has been disabled on all RLS and Solr
+     * followers.
+     */
+    @Override
+    protected boolean isMilestoneHeld() {
+        if (super.isMilestoneHeld()) {
+            return true;
+        }
+        return isDisablingReplication() && !disableReplicationForUpgrade();
+    }
+
+    private boolean isDisablingReplication() {
+        return DeploymentStarted.equals(cmcc.getStatus().getMilestone()) && isNotEmpty(getCmcc().getStatus().getTargetVersion());
+    }
+
+    /**
+     * Disable the replication on all RLS and Solr followers, in the background. The tasks are polled at most once per
+     * reconciliation, as a task is forgotten once its outcome has been returned.
+     *
+     * @return true once the replication has been disabled on all of them
+     */
+    private boolean disableReplicationForUpgrade() {
+        String targetVersion = getCmcc().getStatus().getTargetVersion();
+        if (targetVersion.equals(getFlag(REPLICATION_DISABLED_FLAG, ""))) {
+            return true;
+        }
+        if (replicationDisabled != null) {
+            return replicationDisabled;
+        }
+
+        log.info("[{}] Trying to disable replication on all remaining Replication Live Servers and Solr followers", getContextForLogging());
+        List<PodTaskRunner.Outcome> outcomes = new LinkedList<>();
+        componentCollection.findAllOfTypeAndKind(CONTENT_SERVER, KIND_RLS)
+                .map(ContentServerComponent.class::cast)
+                .map(ContentServerComponent::disableRlsReplication)
+                .forEach(outcomes::add);
+        componentCollection.findAllOfTypeAndKind(SOLR, KIND_FOLLOWER)
+                .map(SolrComponent.class::cast)
+                .map(SolrComponent::disableReplication)
+                .forEach(outcomes::add);
+
+        var failed = outcomes.stream().filter(PodTaskRunner.Outcome::isFailed).findFirst();
+        if (failed.isPresent()) {
+            throw new CustomResourceConfigError("Unable to disable replication before upgrading to " + targetVersion + ": "
+                    + failed.get().error().getMessage(), failed.get().error());
+        }
+        replicationDisabled = outcomes.stream().allMatch(PodTaskRunner.Outcome::isSucceeded);
+        if (replicationDisabled) {
+            log.info("[{}] Replication disabled on all Replication Live Servers and Solr followers", getContextForLogging());
+            setFlag(REPLICATION_DISABLED_FLAG, targetVersion);
+        }
+        return replicationDisabled;
+    }
+
     @Override
     public void onMilestoneReached(Milestone previousMilestone) {
         super.onMilestoneReached(previousMilestone);
@@ -132,6 +190,7 @@ public class VersioningTargetState extends DefaultTargetState {
             if (isNotEmpty(getCmcc().getStatus().getTargetVersion())) {
                 log.info("[{}] Also clearing target version from {}", getContextForLogging(), getCmcc().getSpec().getVersion());
                 getCmcc().getStatus().setTargetVersion("");
+                setFlag(REPLICATION_DISABLED_FLAG, "");
             }
         }
     }
@@ -25,9 +25,12 @@ import java.util.stream.Stream;
  * <p>
  * The set will ensure that no two env vars can have the same name. Adding an env var with the name of an existing one
  * will overwrite the existing entry.
+ * <p>
+ * The variables are kept sorted by name, so iterating the set and {@link #toList()} always produce the same order, and
+ * unchanged pod templates serialize to the same bytes.
  */
 public class EnvVarSet implements Set<EnvVar> {
-  private final HashMap<String, EnvVar> envVars = new HashMap<>();
+  private final TreeMap<String, EnvVar> envVars = new TreeMap<>();
 
   /**
    * Create a new empty EnvVarSet.
@@ -43,7 +46,12 @@ public class EnvVarSet implements Set<EnvVar> {
    */
   public EnvVarSet(Collection<? extends EnvVar> vars) {
     super();
-    addAll(vars);
+    if (vars instanceof EnvVarSet other) {
+      // names have already been checked, and copying a sorted map does not need to compare keys
+      envVars.putAll(other.envVars);
+    } else {
+      addAll(vars);
+    }
   }
 
   /**
@@ -52,13 +60,7 @@ public class EnvVarSet implements Set<EnvVar> {
    * @return elements sorted by name
    */
   public List<EnvVar> toList() {
-    TreeSet<String> keys = new TreeSet<>(envVars.keySet());
-    LinkedList<EnvVar> sorted = new LinkedList<>();
-
-    for (String key : keys) {
-      sorted.add(envVars.get(key));
-    }
-    return sorted;
+    return new ArrayList<>(envVars.values());
   }
 
   @Override
@@ -90,11 +92,9 @@ public class EnvVarSet implements Set<EnvVar> {
   public boolean add(EnvVar envVar) {
     if (envVar.getName() == null)
       throw new CustomResourceConfigError("env var must have a name (value \"" + envVar.getValue() + "\" / from \"" + envVar.getValueFrom() + "\")");
-    // if the element to be added is not in the set, or the element in the set differs
-    boolean changed = !envVars.containsKey(envVar.getName()) || !envVars.get(envVar.getName()).equals(envVar);
-
-    envVars.put(envVar.getName(), envVar);
-    return changed;
+    EnvVar previous = envVars.put(envVar.getName(), envVar);
+    // if the element to be added was not in the set, or the element in the set differs
+    return previous == null || !previous.equals(envVar);
   }
 
   @Override
@@ -23,7 +23,7 @@ import java.util.*;
  */
 public class KubernetesUtils {
     // see https://github.com/fabric8io/kubernetes-client/issues/887#issuecomment-940988916
-    protected static final List<Class<? extends HasMetadata>> ALL_KUBERNETES_RESOURCE_TYPES = Arrays.asList(
+    public static final List<Class<? extends HasMetadata>> ALL_KUBERNETES_RESOURCE_TYPES = Arrays.asList(
             ConfigMap.class,
             Ingress.class,
             Job.class,
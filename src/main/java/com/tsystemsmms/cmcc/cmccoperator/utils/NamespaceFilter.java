@@ -9,6 +9,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @NoArgsConstructor
@@ -18,6 +19,10 @@ public class NamespaceFilter<T extends HasMetadata> implements GenericFilter<T>
     private static Set<String> namespaceIncludes = Collections.emptySet();
     @Getter
     private static Set<String> namespaceExcludes = Collections.emptySet();
+    @Getter
+    private static String namespaceSelector = "";
+    // maintained by NamespaceWatcher: the namespaces matching namespaceSelector
+    private static volatile Set<String> selectedNamespaces = Collections.emptySet();
 
     // use spring bean logic in order to collect spring properties into STATIC field
     // see https://www.baeldung.com/spring-inject-static-field
@@ -34,8 +39,34 @@ public class NamespaceFilter<T extends HasMetadata> implements GenericFilter<T>
         NamespaceFilter.namespaceExcludes = namespaces;
     }
 
+    @SuppressWarnings("squid:S2696")
+    @Value("${cmcc.scope.namespace.selector:}")
+    public void setNamespaceSelector(String selector) {
+        NamespaceFilter.namespaceSelector = selector == null ? "" : selector.trim();
+    }
+
+    public static void setSelectedNamespaces(Set<String> namespaces) {
+        NamespaceFilter.selectedNamespaces = Set.copyOf(namespaces);
+    }
+
+    public static boolean isSelectorScoped() {
+        return !namespaceSelector.isEmpty();
+    }
+
     public static boolean isScoped() {
-        return !namespaceIncludes.isEmpty() || !namespaceExcludes.isEmpty();
+        return !namespaceIncludes.isEmpty() || !namespaceExcludes.isEmpty() || isSelectorScoped();
+    }
+
+    /**
+     * Returns the namespaces the reconcilers have to watch.
+     *
+     * @return the namespaces, or an empty set for all namespaces
+     */
+    public static Set<String> getWatchedNamespaces() {
+        if (!isSelectorScoped()) {
+            return namespaceIncludes;
+        }
+        return selectedNamespaces.stream().filter(NamespaceFilter::isListed).collect(Collectors.toSet());
     }
 
     public static String getLogMessage() {
@@ -43,13 +74,18 @@ public class NamespaceFilter<T extends HasMetadata> implements GenericFilter<T>
             return "";
         }
         return "for namespaces: " + (namespaceIncludes.isEmpty() ? "[all namespaces]" : namespaceIncludes)
-                + (namespaceExcludes.isEmpty() ? ", no excludes" : (", excludes: " + namespaceExcludes));
+                + (namespaceExcludes.isEmpty() ? ", no excludes" : (", excludes: " + namespaceExcludes))
+                + (isSelectorScoped() ? ", with labels " + namespaceSelector : "");
+    }
+
+    public static boolean isListed(String namespace) {
+        return (namespaceIncludes.isEmpty() || namespaceIncludes.stream().anyMatch(namespace::equals))
+                && namespaceExcludes.stream().noneMatch(namespace::equals);
     }
 
     @Override
     public boolean accept(T o) {
         var namespace = o.getMetadata().getNamespace();
-        return (namespaceIncludes.isEmpty() || namespaceIncludes.stream().anyMatch(namespace::equals))
-                && namespaceExcludes.stream().noneMatch(namespace::equals);
+        return isListed(namespace) && (!isSelectorScoped() || selectedNamespaces.contains(namespace));
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.utils;
+
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.ShardManager;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Informable;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.javaoperatorsdk.operator.Operator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Watches the namespaces matching cmcc.scope.namespace.selector, and changes the namespaces of the reconcilers when a
+ * namespace gains or loses the labels. The Java Operator SDK only starts the informers for namespaces that have been
+ * added, and stops those for namespaces that have been removed; the informers of all other namespaces keep running, so
+ * onboarding a namespace does not reconcile the custom resources of all others again.
+ * <p>
+ * With sharding, the reconcilers only watch the namespaces assigned to this replica by the ShardManager, and the
+ * namespaces are changed again whenever the replicas change. Without a selector or cmcc.scope.namespace.include, all
+ * namespaces are watched to learn which ones there are.
+ */
+@Slf4j
+public class NamespaceWatcher implements ApplicationListener<ApplicationReadyEvent>, AutoCloseable {
+  /**
+   * An empty set of namespaces means all namespaces to the Java Operator SDK. While no namespace matches the selector,
+   * the reconcilers watch this namespace instead, which is not expected to exist.
+   */
+  public static final String NO_NAMESPACE = "cmcc-operator-no-namespace-selected";
+
+  private final KubernetesClient kubernetesClient;
+  private final ObjectProvider<Operator> operator;
+  private final String controllerName;
+  private final ShardManager shardManager;
+  private SharedIndexInformer<Namespace> informer;
+  private volatile boolean active;
+  private volatile boolean ready;
+  private Set<String> applied = Set.of();
+
+  /**
+   * Create a watcher.
+   *
+   * @param kubernetesClient client to watch the namespaces with
+   * @param operator         the operator, used once the application has started
+   * @param controllerName   name of the controller whose namespaces are changed
+   * @param shardManager     assigns the namespaces to the replicas of the operator
+   */
+  public NamespaceWatcher(KubernetesClient kubernetesClient, ObjectProvider<Operator> operator, String controllerName, ShardManager shardManager) {
+    this.kubernetesClient = kubernetesClient;
+    this.operator = operator;
+    this.controllerName = controllerName;
+    this.shardManager = shardManager;
+  }
+
+  /**
+   * Start watching, and wait until the namespaces matching the selector are known.
+   */
+  public void start() {
+    if (NamespaceFilter.isSelectorScoped()) {
+      informer = inform(kubernetesClient.namespaces().withLabelSelector(NamespaceFilter.getNamespaceSelector()));
+    } else if (shardManager.isEnabled() && NamespaceFilter.getNamespaceIncludes().isEmpty()) {
+      informer = inform(kubernetesClient.namespaces());
+    }
+    active = informer != null || shardManager.isEnabled();
+    shardManager.addRebalanceListener(rebalance -> update());
+    update();
+    if (NamespaceFilter.isSelectorScoped()) {
+      log.info("Watching namespaces with labels {}: {}", NamespaceFilter.getNamespaceSelector(), NamespaceFilter.getWatchedNamespaces());
+    }
+  }
+
+  private SharedIndexInformer<Namespace> inform(Informable<Namespace> namespaces) {
+    return namespaces.inform(new ResourceEventHandler<>() {
+      @Override
+      public void onAdd(Namespace namespace) {
+        update();
+      }
+
+      @Override
+      public void onUpdate(Namespace oldNamespace, Namespace newNamespace) {
+        // the informer reports a namespace that no longer matches the selector as deleted
+      }
+
+      @Override
+      public void onDelete(Namespace namespace, boolean deletedFinalStateUnknown) {
+        update();
+      }
+    });
+  }
+
+  /**
+   * Returns the namespaces to configure the reconcilers with. Changes after this call are applied once the application
+   * has started.
+   *
+   * @return the namespaces
+   */
+  public synchronized Set<String> getControllerNamespaces() {
+    applied = selectNamespaces();
+    return applied;
+  }
+
+  private Set<String> selectNamespaces() {
+    Set<String> namespaces = NamespaceFilter.getWatchedNamespaces();
+    if (namespaces.isEmpty() && !NamespaceFilter.isSelectorScoped() && informer != null) {
+      namespaces = informer.getStore().list().stream()
+              .map(ns -> ns.getMetadata().getName())
+              .filter(NamespaceFilter::isListed)
+              .collect(Collectors.toSet());
+    }
+    if (shardManager.isEnabled()) {
+      namespaces = namespaces.stream().filter(shardManager::isResponsibleFor).collect(Collectors.toSet());
+    }
+    return toControllerNamespaces(namespaces);
+  }
+
+  static Set<String> toControllerNamespaces(Set<String> namespaces) {
+    return namespaces.isEmpty() ? Set.of(NO_NAMESPACE) : namespaces;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    ready = true;
+    // pick up namespaces that changed while the reconcilers were being registered
+    update();
+  }
+
+  private synchronized void update() {
+    if (!active) {
+      return;
+    }
+    if (NamespaceFilter.isSelectorScoped()) {
+      NamespaceFilter.setSelectedNamespaces(informer.getStore().list().stream()
+              .map(ns -> ns.getMetadata().getName())
+              .collect(Collectors.toSet()));
+    }
+    if (!ready) {
+      return;
+    }
+    Set<String> namespaces = selectNamespaces();
+    if (namespaces.equals(applied)) {
+      return;
+    }
+    Set<String> added = new HashSet<>(namespaces);
+    added.removeAll(applied);
+    Set<String> removed = new HashSet<>(applied);
+    removed.removeAll(namespaces);
+    log.info("Namespaces of this operator changed, starting to watch {}, stopping to watch {}", added, removed);
+    try {
+      operator.getObject().getRegisteredController(controllerName)
+              .ifPresent(controller -> controller.changeNamespaces(namespaces));
+      applied = namespaces;
+    } catch (RuntimeException e) {
+      log.warn("Unable to change the namespaces of {} to {}", controllerName, namespaces, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (informer != null) {
+      informer.close();
+    }
+  }
+}
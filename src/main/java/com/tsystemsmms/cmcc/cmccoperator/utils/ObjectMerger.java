@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.SneakyThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deep merge objects that can be serialized by Jackson, for example security contexts. Objects are merged
+ * recursively; arrays and scalar values of later objects replace those of earlier ones. Null objects are ignored.
+ * <p>
+ * An instance caches the merged results by the values of the inputs. Create one instance per reconciliation, so
+ * that the same defaults are only merged once for all components. The cache holds the inputs and the results as
+ * trees that are never handed out, so that modifying an input or a result later does not affect the cache.
+ */
+public class ObjectMerger {
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Map<List<Object>, JsonNode> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Merge the objects, reusing the merged tree if objects with the same values have been merged before. Each call
+   * returns a new object that the caller may modify.
+   *
+   * @param clazz      type of the objects
+   * @param main       base object
+   * @param additional objects to merge into the base object, in order
+   * @param <T>        type of the objects
+   * @return a new merged object
+   */
+  @SafeVarargs
+  @SneakyThrows
+  public final <T> T merge(Class<T> clazz, T main, T... additional) {
+    List<JsonNode> trees = toTrees(main, additional);
+    List<Object> key = new ArrayList<>(trees.size() + 1);
+    key.add(clazz);
+    key.addAll(trees);
+    return objectMapper.treeToValue(cache.computeIfAbsent(key, k -> mergeTrees(trees)), clazz);
+  }
+
+  /**
+   * Merge the objects. The objects are converted to trees and merged without serializing them to strings.
+   *
+   * @param clazz      type of the objects
+   * @param main       base object
+   * @param additional objects to merge into the base object, in order
+   * @param <T>        type of the objects
+   * @return a new merged object
+   */
+  @SafeVarargs
+  @SneakyThrows
+  public static <T> T mergeObjects(Class<T> clazz, T main, T... additional) {
+    return objectMapper.treeToValue(mergeTrees(toTrees(main, additional)), clazz);
+  }
+
+  @SafeVarargs
+  private static <T> List<JsonNode> toTrees(T main, T... additional) {
+    List<JsonNode> trees = new ArrayList<>(additional.length + 1);
+    trees.add(objectMapper.valueToTree(main));
+    for (T a : additional) {
+      if (a != null) {
+        trees.add(objectMapper.valueToTree(a));
+      }
+    }
+    return trees;
+  }
+
+  private static JsonNode mergeTrees(List<JsonNode> trees) {
+    JsonNode mainNode = trees.get(0) == null ? null : trees.get(0).deepCopy();
+    for (JsonNode node : trees.subList(1, trees.size())) {
+      if (mainNode instanceof ObjectNode mainObject && node instanceof ObjectNode object) {
+        mergeInto(mainObject, object);
+      } else {
+        mainNode = node.deepCopy();
+      }
+    }
+    return mainNode;
+  }
+
+  private static void mergeInto(ObjectNode into, ObjectNode from) {
+    from.fields().forEachRemaining(entry -> {
+      JsonNode existing = into.get(entry.getKey());
+      if (existing instanceof ObjectNode existingObject && entry.getValue() instanceof ObjectNode object) {
+        mergeInto(existingObject, object);
+      } else {
+        into.set(entry.getKey(), entry.getValue().deepCopy());
+      }
+    });
+  }
+}
@@ -14,7 +14,9 @@ import io.fabric8.kubernetes.client.dsl.ExecListener;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class SimpleExecListener  implements ExecListener {
@@ -49,14 +51,18 @@ public class SimpleExecListener  implements ExecListener {
         latch.await();
     }
 
-    public void awaitUninterruptable() {
-        while (true) {
-            try {
-                await();
-                return;
-            } catch (InterruptedException e) {
-                //
-            }
+    /**
+     * Wait for the process to finish.
+     *
+     * @param timeout maximum time to wait
+     * @return true if the process has finished, false if the timeout has elapsed or the thread has been interrupted
+     */
+    public boolean await(Duration timeout) {
+        try {
+            return latch.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 }
@@ -15,11 +15,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import io.fabric8.kubernetes.api.model.EnvVar;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A builder-style class to produce the appropriate value for Spring Boot property JSON.
@@ -33,7 +33,11 @@ public class SpringProperties {
         objectMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
     }
 
-    final HashMap<String, String> properties = new HashMap<>();
+    // the same few hundred property names are converted for every container on every reconciliation
+    static final int MAX_ENV_NAMES = 10000;
+    static final Map<String, String> envNames = new ConcurrentHashMap<>();
+
+    final TreeMap<String, String> properties = new TreeMap<>();
 
     public static SpringProperties builder() {
         return new SpringProperties();
@@ -79,19 +83,56 @@ public class SpringProperties {
      * See https://docs.spring.io/spring-boot/docs/current/reference/htmlsingle/#features.external-config.typesafe-configuration-properties.relaxed-binding.environment-variables
      * and https://github.com/spring-projects/spring-framework/blob/95d62658ff52837a44d88d9386841e1fa2eb8171/spring-core/src/main/java/org/springframework/core/env/SystemEnvironmentPropertySource.java
      *
-     * @return list of env vars
+     * @return list of env vars, sorted by property name
      */
     public List<EnvVar> toEnvVars() {
-        return properties.entrySet().stream().map(this::entryToEnvVar).collect(Collectors.toList());
+        List<EnvVar> envVars = new ArrayList<>(properties.size());
+        for (Map.Entry<String, String> e : properties.entrySet()) {
+            envVars.add(new EnvVar(toEnvName(e.getKey()), e.getValue(), null));
+        }
+        return envVars;
     }
 
-    private EnvVar entryToEnvVar(Map.Entry<String, String> e) {
-        EnvVar env = new EnvVar();
-        env.setName(e.getKey()
-                .replaceAll("[^A-Za-z0-9]+", "_")
-                .replaceAll("_$", "")
-                .toUpperCase(Locale.ROOT));
-        env.setValue(e.getValue());
-        return env;
+    /**
+     * Returns the name of the env var for a property: every run of characters other than ASCII letters and digits is
+     * replaced by a single underscore, a trailing underscore is removed, and letters are converted to upper case.
+     * Names are cached by property, so repeated conversions return the same String instance.
+     *
+     * @param property name of the property
+     * @return name of the env var
+     */
+    public static String toEnvName(String property) {
+        String name = envNames.get(property);
+        if (name == null) {
+            name = convertToEnvName(property);
+            if (envNames.size() < MAX_ENV_NAMES) {
+                String previous = envNames.putIfAbsent(property, name);
+                if (previous != null) {
+                    name = previous;
+                }
+            }
+        }
+        return name;
+    }
+
+    static String convertToEnvName(String property) {
+        StringBuilder name = new StringBuilder(property.length());
+        boolean separator = false;
+        for (int i = 0; i < property.length(); i++) {
+            char c = property.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c = (char) (c - 'a' + 'A');
+            } else if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                separator = true;
+                continue;
+            }
+            if (separator) {
+                name.append('_');
+                separator = false;
+            }
+            name.append(c);
+        }
+        // a separator at the start has been kept, one at the end is dropped
+        return name.toString();
     }
 }
@@ -10,10 +10,9 @@
 
 package com.tsystemsmms.cmcc.cmccoperator.utils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import io.fabric8.kubernetes.api.model.EnvVar;
 import io.fabric8.kubernetes.api.model.EnvVarSource;
 import io.fabric8.kubernetes.api.model.IntOrString;
@@ -23,6 +22,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -135,8 +135,8 @@ public class Utils {
 
   /**
    * Generate a deep clone of the object to avoid incidential modification. Under the hood, the object gets
-   * serialized with Jackson and the copy created from the JSON. It is therefor necessary for the object to be
-   * serializable by Jackson.
+   * serialized with Jackson into a token buffer and the copy created from the tokens, without building a JSON string.
+   * It is therefor necessary for the object to be serializable by Jackson.
    *
    * @param source object to be cloned
    * @param clazz  class of the object
@@ -145,18 +145,98 @@ public class Utils {
    */
   @SneakyThrows
   public static <T> T deepClone(T source, Class<T> clazz) {
-    return objectMapper
-            .readValue(objectMapper.writeValueAsString(source), clazz);
+    if (source == null) {
+      return null;
+    }
+    TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+    objectMapper.writeValue(buffer, source);
+    try (JsonParser parser = buffer.asParser()) {
+      return objectMapper.readValue(parser, clazz);
+    }
   }
 
   public static <K, V> Map<K, V> deepClone(Map<K,V> map) {
     return map.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
   }
 
+  /**
+   * Copy a list, copying each element with the copier.
+   *
+   * @param list   list to copy, may be null
+   * @param copier creates a copy of an element
+   * @param <T>    element type
+   * @return a new list, or null
+   */
+  public static <T> List<T> copyList(List<T> list, UnaryOperator<T> copier) {
+    if (list == null)
+      return null;
+    List<T> copy = new ArrayList<>(list.size());
+    list.forEach(e -> copy.add(e == null ? null : copier.apply(e)));
+    return copy;
+  }
+
+  /**
+   * Copy a list of immutable elements.
+   *
+   * @param list list to copy, may be null
+   * @param <T>  element type
+   * @return a new list, or null
+   */
+  public static <T> List<T> copyList(List<T> list) {
+    return list == null ? null : new ArrayList<>(list);
+  }
+
+  /**
+   * Copy a set of immutable elements, keeping the iteration order.
+   *
+   * @param set set to copy, may be null
+   * @param <T> element type
+   * @return a new set, or null
+   */
+  public static <T> Set<T> copySet(Set<T> set) {
+    return set == null ? null : new LinkedHashSet<>(set);
+  }
+
+  /**
+   * Copy a map with immutable keys and values.
+   *
+   * @param map map to copy, may be null
+   * @param <K> key type
+   * @param <V> value type
+   * @return a new map, or null
+   */
+  public static <K, V> Map<K, V> copyMap(Map<K, V> map) {
+    return map == null ? null : new HashMap<>(map);
+  }
+
+  /**
+   * Copy an IntOrString.
+   *
+   * @param v value to copy, may be null
+   * @return a new IntOrString, or null
+   */
+  public static IntOrString copyIntOrString(IntOrString v) {
+    return v == null ? null : new IntOrString(v.getValue());
+  }
+
+  /**
+   * Compare two objects by their Jackson representation. The objects are converted into trees, which are compared
+   * structurally, so the order of map entries does not matter. Prefer equals() for classes that implement it.
+   *
+   * @param o1 object
+   * @param o2 object
+   * @return true if both objects have the same representation
+   */
   public static boolean deepEquals(Object o1, Object o2) {
+      if (o1 == o2) {
+          return true;
+      }
+      if (o1 == null || o2 == null) {
+          return false;
+      }
       try {
-          return objectMapper.writeValueAsString(o1).equals(objectMapper.writeValueAsString(o2));
-      } catch (JsonProcessingException e) {
+          return objectMapper.valueToTree(o1).equals(objectMapper.valueToTree(o2));
+      } catch (IllegalArgumentException e) {
           log.warn("deepEquals failed", e);
           return false;
       }
@@ -226,16 +306,14 @@ public class Utils {
     from.forEach((key, value) -> into.merge(key, value, (a, b) -> b));
   }
 
+  /**
+   * Deep merge the objects.
+   *
+   * @see ObjectMerger#mergeObjects(Class, Object, Object[])
+   */
   @SafeVarargs
-  @SneakyThrows
   public static <T> T mergeObjects(Class<T> clazz, T main, T... additional) {
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.configOverride(ArrayNode.class).setMergeable(false);
-    JsonNode mainNode = mapper.valueToTree(main);
-    for (T a : additional) {
-      mainNode = mapper.readerForUpdating(mainNode).readValue(mapper.writeValueAsString(a));
-    }
-    return mapper.treeToValue(mainNode, clazz);
+    return ObjectMerger.mergeObjects(clazz, main, additional);
   }
 
   /**
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import com.tsystemsmms.cmcc.cmccoperator.utils.TestCustomResources;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceVersionWatermarkTest {
+  private final ResourceVersionWatermark watermark = new ResourceVersionWatermark();
+
+  private static CoreMediaContentCloud cmcc(String resourceVersion, long generation, Milestone milestone) {
+    CoreMediaContentCloud cmcc = TestCustomResources.cmcc();
+    cmcc.getMetadata().setResourceVersion(resourceVersion);
+    cmcc.getMetadata().setGeneration(generation);
+    cmcc.getStatus().setMilestone(milestone);
+    return cmcc;
+  }
+
+  @Test
+  public void when_older_generation_arrives_after_newer_one__then_it_is_outdated() {
+    assertTrue(watermark.advance(cmcc("a", 1, Milestone.Ready)));
+    assertTrue(watermark.advance(cmcc("b", 2, Milestone.Ready)));
+
+    assertFalse(watermark.advance(cmcc("c", 1, Milestone.Ready)));
+    assertTrue(watermark.advance(cmcc("d", 3, Milestone.Ready)));
+  }
+
+  @Test
+  public void when_superseded_status_arrives_again__then_it_is_outdated() {
+    assertTrue(watermark.advance(cmcc("a", 1, Milestone.DeploymentStarted)));
+    assertTrue(watermark.advance(cmcc("b", 1, Milestone.ContentServerReady)));
+    assertTrue(watermark.advance(cmcc("c", 1, Milestone.ContentServerReady)));
+
+    assertFalse(watermark.advance(cmcc("a", 1, Milestone.DeploymentStarted)));
+    assertTrue(watermark.advance(cmcc("d", 1, Milestone.Ready)));
+  }
+
+  @Test
+  public void when_resource_version_is_lower__then_it_is_not_compared() {
+    assertTrue(watermark.advance(cmcc("12", 1, Milestone.DeploymentStarted)));
+
+    assertTrue(watermark.advance(cmcc("11", 1, Milestone.ContentServerReady)));
+    assertTrue(watermark.advance(cmcc("opaque", 1, Milestone.Ready)));
+  }
+
+  @Test
+  public void when_custom_resource_is_deleted__then_a_new_one_with_the_same_name_is_not_outdated() {
+    assertTrue(watermark.advance(cmcc("12", 5, Milestone.Ready)));
+
+    watermark.retainExisting(new DeletedResourcePruner.ExistingResources(List.of()));
+
+    assertTrue(watermark.advance(cmcc("5", 1, Milestone.DeploymentStarted)));
+  }
+}
@@ -11,12 +11,57 @@
 package com.tsystemsmms.cmcc.cmccoperator.components;
 
 import com.tsystemsmms.cmcc.cmccoperator.crds.ComponentSpec;
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.targetstate.TargetState;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ComponentCollectionTest {
+    private final BeanFactory beanFactory = mock(BeanFactory.class);
+    private final ComponentCollection collection = new ComponentCollection(beanFactory, null, mock(TargetState.class));
+
+    private Component add(String type, ComponentDependencies dependencies) {
+        ComponentSpec spec = ComponentSpecBuilder.ofType(type).withMilestone(Milestone.DeploymentStarted).build();
+        Component component = mock(Component.class);
+        when(component.getComponentSpec()).thenReturn(spec);
+        when(component.getDependencies()).thenReturn(dependencies);
+        when(beanFactory.getBean(eq("component:" + type), any(), any(), any())).thenReturn(component);
+        collection.add(spec);
+        return component;
+    }
+
+    @Test
+    public void when_component_changes__then_only_it_and_its_dependents_request_their_resources_again() {
+        Component mysql = add("mysql", ComponentDependencies.NONE);
+        Component rls = add("content-server", ComponentDependencies.NONE.withComponents("mysql"));
+        Component cae = add("cae", ComponentDependencies.NONE.withComponents("content-server"));
+        Component mongodb = add("mongodb", ComponentDependencies.NONE);
+        Component userChanges = add("user-changes", ComponentDependencies.NONE.withComponents("mongodb"));
+
+        assertEquals(Set.of(mysql, rls, cae), collection.withDependents(List.of(mysql), false));
+        assertEquals(Set.of(mongodb, userChanges), collection.withDependents(List.of(mongodb), false));
+        assertEquals(Set.of(userChanges), collection.withDependents(List.of(userChanges), false));
+    }
+
+    @Test
+    public void when_milestone_changes__then_only_components_depending_on_it_request_their_resources_again() {
+        Component overview = add("overview", ComponentDependencies.NONE.withMilestone());
+        Component dependent = add("studio-client", ComponentDependencies.NONE.withComponents("overview"));
+        add("mysql", ComponentDependencies.NONE);
+
+        assertEquals(Set.of(overview, dependent), collection.withDependents(List.of(), true));
+        assertEquals(Set.of(), collection.withDependents(List.of(), false));
+    }
     @Test
     public void componentReferenceIdentity() {
         ComponentSpec cr = new ComponentSpec();
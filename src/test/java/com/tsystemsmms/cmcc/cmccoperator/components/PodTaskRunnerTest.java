@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.components;
+
+import com.tsystemsmms.cmcc.cmccoperator.utils.MutableClock;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+public class PodTaskRunnerTest {
+  private final MutableClock clock = new MutableClock();
+  private final List<PodResource> pods = List.of(mock(PodResource.class), mock(PodResource.class));
+  private final PodTaskRunner runner = new PodTaskRunner(2, Duration.ofSeconds(10), Duration.ofMinutes(1), 2, Duration.ZERO, Duration.ofSeconds(1), clock);
+
+  @AfterEach
+  void tearDown() {
+    runner.close();
+  }
+
+  private static PodTaskRunner.Outcome awaitOutcome(Supplier<PodTaskRunner.Outcome> poll) throws InterruptedException {
+    for (int i = 0; i < 500; i++) {
+      var outcome = poll.get();
+      if (!outcome.isRunning()) {
+        return outcome;
+      }
+      Thread.sleep(10);
+    }
+    return fail("Task did not finish");
+  }
+
+  @Test
+  public void when_task_is_started__then_it_runs_on_all_pods_in_parallel() throws Exception {
+    CyclicBarrier bothPods = new CyclicBarrier(pods.size());
+
+    assertTrue(runner.run("ns/cmcc/cae-feeder/reset", () -> pods, pod -> {
+      try {
+        bothPods.await(5, TimeUnit.SECONDS);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }).isRunning());
+
+    assertTrue(awaitOutcome(() -> runner.run("ns/cmcc/cae-feeder/reset", () -> pods, pod -> fail("must not start the task again"))).isSucceeded());
+  }
+
+  @Test
+  public void when_task_fails__then_it_is_retried_until_attempts_are_used_up() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+
+    Consumer<PodResource> failingOnFirstPod = pod -> {
+      if (pod == pods.get(0)) {
+        attempts.incrementAndGet();
+        throw new IllegalStateException("replication still enabled");
+      }
+    };
+
+    var outcome = awaitOutcome(() -> runner.run("ns/cmcc/solr-follower/disable-replication", () -> pods, failingOnFirstPod));
+
+    assertTrue(outcome.isFailed());
+    assertEquals("replication still enabled", outcome.error().getMessage());
+    assertEquals(2, attempts.get());
+  }
+
+  @Test
+  public void when_async_action_has_not_completed__then_task_is_running() throws Exception {
+    CompletableFuture<Void> response = new CompletableFuture<>();
+    Supplier<PodTaskRunner.Outcome> poll = () -> runner.runAsync("ns/cmcc/rls/disable-rls-replication", () -> pods, pod -> response);
+
+    assertTrue(poll.get().isRunning());
+    assertTrue(poll.get().isRunning());
+
+    response.complete(null);
+
+    assertTrue(awaitOutcome(poll).isSucceeded());
+  }
+
+  @Test
+  public void when_task_hangs__then_it_fails_after_the_deadline() {
+    CountDownLatch release = new CountDownLatch(1);
+    Consumer<PodResource> hanging = pod -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    Supplier<PodTaskRunner.Outcome> poll = () -> runner.run("ns/cmcc/mysql/restore-user-schemas", () -> pods, hanging);
+
+    try {
+      assertTrue(poll.get().isRunning());
+      assertTrue(poll.get().isRunning());
+
+      clock.advance(Duration.ofMinutes(2));
+
+      var outcome = poll.get();
+      assertTrue(outcome.isFailed());
+      assertInstanceOf(TimeoutException.class, outcome.error());
+    } finally {
+      release.countDown();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.crds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.IntOrString;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoreMediaContentCloudTest {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private int nextValue;
+
+  private static CoreMediaContentCloud cmcc() {
+    ComponentSpec cs = new ComponentSpec();
+    cs.setType("cae");
+    cs.setKind("live");
+    cs.setEnv(List.of(new EnvVar("foo", "bar", null)));
+    cs.setExtra(Map.of("foo", "bar"));
+
+    SiteMapping siteMapping = new SiteMapping();
+    siteMapping.setHostname("corporate");
+    siteMapping.setPrimarySegment("corporate");
+
+    CoreMediaContentCloudSpec spec = new CoreMediaContentCloudSpec();
+    spec.setVersion("1");
+    spec.setComponents(List.of(cs));
+    spec.setClientSecretRefs(Map.of("jdbc", Map.of("management", ClientSecretRef.defaultClientSecretRef("jdbc-management"))));
+    spec.setDefaults(new ComponentDefaults());
+    spec.setSiteMappings(Set.of(siteMapping));
+
+    CoreMediaContentCloudStatus status = new CoreMediaContentCloudStatus();
+    status.setMilestone(Milestone.ManagementReady);
+    status.getFlags().put("foo", "bar");
+
+    CoreMediaContentCloud cmcc = new CoreMediaContentCloud(spec, status);
+    cmcc.setMetadata(new ObjectMetaBuilder().withName("cmcc").withNamespace("default").withResourceVersion("1").build());
+    return cmcc;
+  }
+
+  @Test
+  public void copyConstructorTest() {
+    CoreMediaContentCloud cmcc = cmcc();
+
+    CoreMediaContentCloud dut = new CoreMediaContentCloud(cmcc);
+
+    assertEquals(cmcc.getMetadata(), dut.getMetadata());
+    assertEquals(cmcc.getSpec(), dut.getSpec());
+    assertEquals(cmcc.getStatus(), dut.getStatus());
+  }
+
+  @Test
+  public void copyIsIndependentTest() {
+    CoreMediaContentCloud cmcc = cmcc();
+
+    CoreMediaContentCloud dut = new CoreMediaContentCloud(cmcc);
+    dut.getStatus().getFlags().put("foo", "baz");
+    dut.getSpec().getComponents().get(0).getExtra().put("foo", "baz");
+    dut.getSpec().getClientSecretRefs().get("jdbc").get("management").setSecretName("other");
+    dut.getMetadata().setResourceVersion("2");
+
+    assertEquals("bar", cmcc.getStatus().getFlags().get("foo"));
+    assertEquals("bar", cmcc.getSpec().getComponents().get(0).getExtra().get("foo"));
+    assertEquals("jdbc-management", cmcc.getSpec().getClientSecretRefs().get("jdbc").get("management").getSecretName());
+    assertEquals("1", cmcc.getMetadata().getResourceVersion());
+    assertNotEquals(cmcc.getStatus(), dut.getStatus());
+  }
+
+  @Test
+  public void copyConstructorCopiesAllFieldsTest() throws ReflectiveOperationException {
+    CoreMediaContentCloudSpec spec = populate(new CoreMediaContentCloudSpec());
+    CoreMediaContentCloudStatus status = populate(new CoreMediaContentCloudStatus());
+    CoreMediaContentCloud cmcc = new CoreMediaContentCloud(spec, status);
+    cmcc.setMetadata(populate(new ObjectMeta()));
+
+    assertNotEquals(MAPPER.valueToTree(new CoreMediaContentCloudSpec()), MAPPER.valueToTree(spec));
+    assertEquals(MAPPER.valueToTree(spec), MAPPER.valueToTree(new CoreMediaContentCloudSpec(spec)));
+    assertEquals(MAPPER.valueToTree(status), MAPPER.valueToTree(new CoreMediaContentCloudStatus(status)));
+    assertEquals(MAPPER.valueToTree(cmcc), MAPPER.valueToTree(new CoreMediaContentCloud(cmcc)));
+  }
+
+  @Test
+  public void copySharesNoNestedObjectsTest() throws ReflectiveOperationException {
+    CoreMediaContentCloudSpec spec = populate(new CoreMediaContentCloudSpec());
+
+    CoreMediaContentCloudSpec dut = new CoreMediaContentCloudSpec(spec);
+
+    ComponentSpec component = spec.getComponents().get(0);
+    ComponentSpec componentCopy = dut.getComponents().get(0);
+    assertNotSame(component, componentCopy);
+    assertNotSame(component.getImage(), componentCopy.getImage());
+    assertNotSame(component.getResources(), componentCopy.getResources());
+    assertNotSame(component.getVolumeSize(), componentCopy.getVolumeSize());
+    assertNotSame(component.getTimeouts(), componentCopy.getTimeouts());
+    assertNotSame(component.getEnv().get(0), componentCopy.getEnv().get(0));
+    assertNotSame(spec.getDefaults(), dut.getDefaults());
+    assertNotSame(spec.getDefaults().getImage(), dut.getDefaults().getImage());
+    assertNotSame(spec.getDefaults().getServletNames(), dut.getDefaults().getServletNames());
+    assertNotSame(spec.getSiteMappings().iterator().next(), dut.getSiteMappings().iterator().next());
+    assertNotSame(spec.getSiteMappings().iterator().next().getTls(), dut.getSiteMappings().iterator().next().getTls());
+    assertNotSame(spec.getWith(), dut.getWith());
+    assertNotSame(spec.getWith().getDelivery(), dut.getWith().getDelivery());
+    assertNotSame(spec.getWith().getHandlerPrefixes(), dut.getWith().getHandlerPrefixes());
+  }
+
+  /**
+   * Set every field of an object to a value that differs from its default, so that a copy constructor that misses a
+   * field fails the comparison. Objects of this package are populated recursively, other Kubernetes models are left
+   * empty, as they are copied as a whole.
+   */
+  private <T> T populate(T object) throws ReflectiveOperationException {
+    for (Class<?> c = object.getClass(); c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+          continue;
+        }
+        field.setAccessible(true);
+        field.set(object, valueFor(field.getGenericType(), field.get(object)));
+      }
+    }
+    return object;
+  }
+
+  private Object valueFor(Type type, Object current) throws ReflectiveOperationException {
+    if (type instanceof ParameterizedType pt) {
+      Class<?> raw = (Class<?>) pt.getRawType();
+      Type[] args = pt.getActualTypeArguments();
+      if (Map.class.isAssignableFrom(raw)) {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(valueFor(args[0], null), valueFor(args[1], null));
+        return map;
+      }
+      if (Set.class.isAssignableFrom(raw)) {
+        Set<Object> set = new LinkedHashSet<>();
+        set.add(valueFor(args[0], null));
+        return set;
+      }
+      if (List.class.isAssignableFrom(raw)) {
+        List<Object> list = new ArrayList<>();
+        list.add(valueFor(args[0], null));
+        return list;
+      }
+      throw new IllegalArgumentException("Unsupported type " + type);
+    }
+    Class<?> clazz = (Class<?>) type;
+    int value = ++nextValue;
+    if (clazz == String.class || clazz == Object.class) {
+      return "value-" + value;
+    } else if (clazz == boolean.class || clazz == Boolean.class) {
+      return !Boolean.TRUE.equals(current);
+    } else if (clazz == int.class || clazz == Integer.class) {
+      return 1000 + value;
+    } else if (clazz == long.class || clazz == Long.class) {
+      return 1000L + value;
+    } else if (clazz == IntOrString.class) {
+      return new IntOrString(1000 + value);
+    } else if (clazz.isEnum()) {
+      Object[] constants = clazz.getEnumConstants();
+      return constants[0] == current ? constants[constants.length - 1] : constants[0];
+    } else if (clazz.getPackageName().startsWith(CoreMediaContentCloud.class.getPackageName())) {
+      return populate(clazz.getDeclaredConstructor().newInstance());
+    }
+    return clazz.getDeclaredConstructor().newInstance();
+  }
+}
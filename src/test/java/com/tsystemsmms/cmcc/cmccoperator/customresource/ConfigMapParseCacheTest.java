@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.customresource;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.utils.YamlMapper;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConfigMapParseCacheTest {
+  private static final String SPEC = """
+          comment: a comment.
+          with:
+            databases: true
+          defaults:
+            ingressDomain: 127.0.0.1.nip.io
+          """;
+
+  private final ConfigMapParseCache parseCache = new ConfigMapParseCache(new YamlMapper());
+
+  private static ConfigMap configMap(String resourceVersion, Map<String, String> data) {
+    return new ConfigMapBuilder()
+            .withNewMetadata().withNamespace("ns").withName("obiwan").withResourceVersion(resourceVersion).endMetadata()
+            .withData(new HashMap<>(data))
+            .build();
+  }
+
+  @Test
+  public void when_configmap_is_unchanged__then_spec_is_not_parsed_again() {
+    var first = new ConfigMapCustomResource(configMap("1", Map.of("spec", SPEC)), parseCache);
+    first.getSpec().setComment("changed during reconciliation");
+    var second = new ConfigMapCustomResource(configMap("1", Map.of("spec", SPEC)), parseCache);
+
+    assertEquals(1, parseCache.getMisses());
+    assertEquals(1, parseCache.getHits());
+    assertEquals("a comment.", second.getSpec().getComment());
+  }
+
+  @Test
+  public void when_status_is_unchanged__then_configmap_is_not_written() {
+    var cm = configMap("1", Map.of("spec", SPEC));
+    var cmcc = new ConfigMapCustomResource(cm, parseCache);
+    cmcc.getStatus().setMilestone(Milestone.DatabasesReady);
+    assertTrue(cmcc.updateResourceIfChanged());
+    assertEquals(SPEC, cm.getData().get("spec"));
+
+    var written = configMap("2", cm.getData());
+    cmcc = new ConfigMapCustomResource(written, parseCache);
+    assertEquals(Milestone.DatabasesReady, cmcc.getStatus().getMilestone());
+    cmcc.getStatus().setMilestone(Milestone.DatabasesReady);
+
+    assertFalse(cmcc.updateResourceIfChanged());
+  }
+}
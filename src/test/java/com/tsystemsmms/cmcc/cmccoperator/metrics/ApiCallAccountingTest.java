@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ApiCallAccountingTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final ApiCallAccounting accounting = new ApiCallAccounting(registry);
+
+  @Test
+  public void when_classifying_requests__then_verb_and_kind_are_derived_from_the_url() {
+    assertEquals(new ApiCall("get", "secrets", "x"),
+            ApiCall.of("GET", URI.create("https://k8s/api/v1/namespaces/default/secrets/db"), "x"));
+    assertEquals(new ApiCall("list", "statefulsets", "x"),
+            ApiCall.of("GET", URI.create("https://k8s/apis/apps/v1/namespaces/default/statefulsets?labelSelector=a%3Db"), "x"));
+    assertEquals(new ApiCall("watch", "configmaps", "x"),
+            ApiCall.of("GET", URI.create("https://k8s/api/v1/configmaps?watch=true"), "x"));
+    assertEquals(new ApiCall("patch", "statefulsets/status", "x"),
+            ApiCall.of("PATCH", URI.create("https://k8s/apis/apps/v1/namespaces/default/statefulsets/cae/status"), "x"));
+    assertEquals(new ApiCall("get", "pods/exec", "x"),
+            ApiCall.of("GET", URI.create("https://k8s/api/v1/namespaces/default/pods/cae-0/exec?command=sh"), "x"));
+    assertEquals(new ApiCall("deletecollection", "pods", "x"),
+            ApiCall.of("DELETE", URI.create("https://k8s/api/v1/namespaces/default/pods?labelSelector=a%3Db"), "x"));
+    assertEquals(new ApiCall("get", "namespaces", "x"),
+            ApiCall.of("GET", URI.create("https://k8s/api/v1/namespaces/default"), "x"));
+  }
+
+  @Test
+  public void when_request_is_sent_during_reconcile__then_it_is_attributed_to_the_custom_resource_and_caller() {
+    ApiCalls calls = accounting.begin("default", "cmcc");
+    accounting.record("GET", URI.create("https://k8s/api/v1/namespaces/default/secrets/db"));
+    accounting.end(calls);
+    accounting.record("GET", URI.create("https://k8s/api/v1/namespaces/default/secrets/db"));
+
+    assertEquals(1, calls.getTotal());
+    assertEquals(1, calls.count(c -> c.caller().equals("ApiCallAccountingTest")));
+    assertEquals(calls, accounting.getLastReconciliation("default", "cmcc").orElseThrow());
+    assertEquals(1, registry.get("cmcc.api.requests").tags("verb", "get", "kind", "secrets", "caller", "ApiCallAccountingTest").counter().count());
+    assertEquals(1, registry.get("cmcc.api.requests").tags("caller", ApiCall.FRAMEWORK).counter().count());
+    assertTrue(registry.find("cmcc.api.requests").tagKeys("cmcc").meters().isEmpty());
+  }
+
+  @Test
+  public void when_task_is_propagated__then_requests_on_other_threads_are_attributed() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ApiCalls calls = accounting.begin("default", "cmcc");
+      CompletableFuture.runAsync(ApiCallAccounting.propagate(() ->
+              accounting.record("POST", URI.create("https://k8s/api/v1/namespaces/default/configmaps"))), executor).join();
+      accounting.end(calls);
+
+      assertEquals(1, calls.count(c -> c.verb().equals("create")));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
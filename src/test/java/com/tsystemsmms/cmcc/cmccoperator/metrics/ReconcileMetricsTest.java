@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.metrics;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.resource.ReconcilePlan;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static com.tsystemsmms.cmcc.cmccoperator.utils.TestCustomResources.customResource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReconcileMetricsTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final ReconcileMetrics metrics = new ReconcileMetrics(registry);
+
+  private static ConfigMap configMap(String name, String type) {
+    return new ConfigMapBuilder()
+            .withNewMetadata().withName(name).withLabels(Map.of("cmcc.tsystemsmms.com/type", type)).endMetadata()
+            .build();
+  }
+
+  @Test
+  public void when_plan_is_recorded__then_resources_are_counted_by_operation_and_component() {
+    ReconcilePlan plan = ReconcilePlan.compute("default", "cmcc", List.of(),
+            List.of(configMap("a", "cae"), configMap("b", "cae"), configMap("c", "solr")), r -> true, false);
+
+    metrics.recordPlan(customResource(), plan);
+
+    assertEquals(2, registry.get("cmcc.resources")
+            .tags("namespace", "default", "cmcc", "cmcc", "operation", "create", "component", "cae").counter().count());
+    assertEquals(1, registry.get("cmcc.resources")
+            .tags("operation", "create", "component", "solr").counter().count());
+  }
+
+  @Test
+  public void when_reconcile_fails__then_error_is_counted_by_exception_class() {
+    metrics.startReconcile("default", "cmcc").stop(new IllegalStateException("test"));
+    metrics.startReconcile("default", "cmcc").stop(null);
+
+    assertEquals(1, registry.get("cmcc.reconcile.errors").tag("exception", "IllegalStateException").counter().count());
+    assertEquals(1, registry.get("cmcc.reconcile").tag("outcome", "success").timer().count());
+    assertEquals(1, registry.get("cmcc.reconcile").tag("outcome", "error").timer().count());
+  }
+
+  @Test
+  public void when_phase_is_timed__then_result_is_returned() {
+    CustomResource cmcc = customResource();
+
+    assertEquals("done", metrics.timePhase(cmcc, ReconcileMetrics.PHASE_DIFF, () -> "done"));
+    metrics.recordMilestoneTransition(cmcc, Milestone.DeploymentStarted, Milestone.DatabasesReady);
+
+    assertEquals(1, registry.get("cmcc.reconcile.phase").tag("phase", ReconcileMetrics.PHASE_DIFF).timer().count());
+    assertEquals(1, registry.get("cmcc.milestone.transitions").tag("to", "DatabasesReady").counter().count());
+  }
+
+  @Test
+  public void when_secrets_are_looked_up__then_cache_hits_and_generated_secrets_are_counted() {
+    CustomResource cmcc = customResource();
+
+    metrics.recordSecretLookup(cmcc, ReconcileMetrics.SECRET_SOURCE_CACHE);
+    metrics.recordSecretLookup(cmcc, ReconcileMetrics.SECRET_SOURCE_CACHE);
+    metrics.recordSecretLookup(cmcc, ReconcileMetrics.SECRET_SOURCE_API);
+    metrics.recordSecretsGenerated(cmcc, 3);
+
+    assertEquals(2, registry.get("cmcc.secrets.lookups").tag("source", "cache").counter().count());
+    assertEquals(1, registry.get("cmcc.secrets.lookups").tag("source", "api").counter().count());
+    assertEquals(3, registry.get("cmcc.secrets.generated").counter().count());
+  }
+
+  @Test
+  public void when_custom_resource_is_deleted__then_only_its_meters_are_removed() {
+    for (String name : List.of("cmcc", "other")) {
+      ReconcileMetrics.Reconciliation reconciliation = metrics.startReconcile("default", name);
+      metrics.getApiCallAccounting().record("GET", URI.create("https://kubernetes/api/v1/namespaces/default/configmaps/" + name));
+      reconciliation.stop(null);
+    }
+    metrics.recordSecretsGenerated(customResource(), 1);
+
+    metrics.retainExisting(new DeletedResourcePruner.ExistingResources(List.of(new ResourceID("other", "default"))));
+
+    assertTrue(registry.find("cmcc.reconcile").tag("cmcc", "cmcc").meters().isEmpty());
+    assertTrue(registry.find("cmcc.secrets.generated").meters().isEmpty());
+    assertTrue(metrics.getApiCallAccounting().getLastReconciliation("default", "cmcc").isEmpty());
+    assertEquals(1, registry.get("cmcc.reconcile").tag("cmcc", "other").timer().count());
+    assertTrue(metrics.getApiCallAccounting().getLastReconciliation("default", "other").isPresent());
+  }
+}
@@ -2,6 +2,10 @@ package com.tsystemsmms.cmcc.cmccoperator.reconciler;
 
 import com.tsystemsmms.cmcc.cmccoperator.CoreMediaContentCloudReconciler;
 import com.tsystemsmms.cmcc.cmccoperator.crds.*;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ApiCall;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ApiCallInterceptor;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ApiCalls;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
 import com.tsystemsmms.cmcc.cmccoperator.utils.HttpResponseAdapter;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.api.model.apps.StatefulSet;
@@ -59,6 +63,8 @@ public abstract class AbstractCMCCReconcilerTest {
     protected Context<?> context;
     @MockitoSpyBean
     protected KubernetesClient kubernetesClient;
+    @Autowired
+    protected ReconcileMetrics reconcileMetrics;
 
     protected String namespace = "default";
 
@@ -118,7 +124,8 @@ public abstract class AbstractCMCCReconcilerTest {
         doAnswer(invocationOnMock -> {
             var orgResult = invocationOnMock.callRealMethod();
             if (orgResult instanceof HttpClient httpClient) {
-                httpClient = spy(httpClient);
+                // count the requests, so tests can check the API call budget of a reconciliation
+                httpClient = spy(new ApiCallInterceptor(reconcileMetrics.getApiCallAccounting()).instrument(httpClient));
                 doAnswer(i -> {
                     if (!httpRequestOverrides.isEmpty()) {
                         var request = (StandardHttpRequest) i.getArgument(0);
@@ -232,6 +239,31 @@ public abstract class AbstractCMCCReconcilerTest {
         return result.getResource().orElse(null);
     }
 
+    /**
+     * Returns the requests to the Kubernetes API server of the latest reconciliation of the custom resource. Requests
+     * are only counted after {@link #setupHttpClientOverrides()}.
+     */
+    protected ApiCalls getApiCallsOfLastReconcile() {
+        var metadata = getCmcc().getMetadata();
+        return reconcileMetrics.getApiCallAccounting()
+                .getLastReconciliation(metadata.getNamespace(), metadata.getName())
+                .orElseThrow(() -> new AssertionError("custom resource has not been reconciled"));
+    }
+
+    /**
+     * Fail if the latest reconciliation sent more matching requests to the Kubernetes API server than allowed.
+     *
+     * @param filter selects the requests
+     * @param budget maximum number of requests
+     */
+    protected void assertApiCallBudget(Predicate<ApiCall> filter, long budget) {
+        var calls = getApiCallsOfLastReconcile();
+        var count = calls.count(filter);
+        if (count > budget) {
+            throw new AssertionError("Reconciliation sent " + count + " requests, budget is " + budget + ": " + calls);
+        }
+    }
+
     protected void createPod(String nameOfSts) {
         var rlsMetadata = findStsWithName(nameOfSts).getMetadata();
         rlsMetadata.setName(nameOfSts + "-0");
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.reconciler;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.resource.OwnedResourceCache;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.javaoperatorsdk.operator.springboot.starter.test.EnableMockOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs the reconciler with the informer cache enabled, as in production: once the informers have seen the resources
+ * created by the first reconciliation, the next one reads them from the cache.
+ */
+@SpringBootTest(properties = {"cmcc.useInformerCache=true"})
+@EnableMockOperator
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class InformerCacheCMCCReconcilerTest extends AbstractCMCCReconcilerTest {
+  private static final Set<String> CACHED_KINDS = Set.of("configmaps", "services", "statefulsets");
+  private static final long TIMEOUT_MILLIS = 20_000;
+
+  @Autowired
+  private OwnedResourceCache ownedResourceCache;
+
+  private CoreMediaContentCloud cmcc;
+
+  public InformerCacheCMCCReconcilerTest() {
+    super("informer-cache");
+  }
+
+  @Override
+  public CoreMediaContentCloud getCmcc() {
+    return cmcc;
+  }
+
+  @Test
+  void testReconcileReadsOwnedResourcesFromInformers() throws InterruptedException {
+    setupHttpClientOverrides();
+    assertThat(ownedResourceCache.isEnabled(), is(true));
+
+    cmcc = createCoreMediaContentCloud();
+    cmcc.getMetadata().setName("informer-cache");
+    this.reconcile();
+    assertThat(getCmcc().getStatus().getMilestone(), is(Milestone.DeploymentStarted));
+
+    // the informers receive the resources created by the first reconciliation in the background
+    waitForInformer("mongodb");
+    waitForInformer("mysql");
+    this.reconcile();
+
+    assertThat(getCmcc().getStatus().getMilestone(), is(Milestone.DeploymentStarted));
+    assertApiCallBudget(call -> (call.verb().equals("get") || call.verb().equals("list")) && CACHED_KINDS.contains(call.kind()), 0);
+  }
+
+  private void waitForInformer(String statefulSet) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (ownedResourceCache.getCached(StatefulSet.class, namespace, statefulSet).isEmpty()) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new AssertionError("Informer has not received StatefulSet " + statefulSet);
+      }
+      Thread.sleep(100);
+    }
+  }
+}
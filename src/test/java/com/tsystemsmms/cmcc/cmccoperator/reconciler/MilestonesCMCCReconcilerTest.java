@@ -73,6 +73,10 @@ public class MilestonesCMCCReconcilerTest extends AbstractCMCCReconcilerTest {
     assertThat(getCmcc().getStatus().getMilestone(), is(Milestone.Ready));
     assertThat(getCmcc().getStatus().getCurrentVersion(), is("2025.1"));
     assertThat(getCmcc().getStatus().getTargetVersion(), is(emptyOrNullString()));
+
+    // once ready, the components take the state of the cluster from the snapshot, and do not read resources themselves
+    this.reconcile();
+    assertApiCallBudget(call -> call.verb().equals("get") && call.caller().endsWith("Component"), 0);
   }
 
   @Test
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DesiredStateHashTest {
+
+  private static ConfigMap configMap(Map<String, String> data) {
+    return new ConfigMapBuilder()
+            .withNewMetadata().withName("test").withNamespace("default").endMetadata()
+            .withData(data)
+            .build();
+  }
+
+  @Test
+  public void when_map_order_differs__then_hash_is_equal() {
+    Map<String, String> a = new LinkedHashMap<>();
+    a.put("a", "1");
+    a.put("b", "2");
+    Map<String, String> b = new LinkedHashMap<>();
+    b.put("b", "2");
+    b.put("a", "1");
+
+    assertEquals(DesiredStateHash.compute(configMap(a)), DesiredStateHash.compute(configMap(b)));
+  }
+
+  @Test
+  public void when_server_managed_fields_differ__then_hash_is_equal() {
+    ConfigMap live = configMap(Map.of("a", "1"));
+    live.getMetadata().setResourceVersion("4711");
+    live.getMetadata().setUid("0815");
+
+    assertEquals(DesiredStateHash.compute(configMap(Map.of("a", "1"))), DesiredStateHash.compute(live));
+  }
+
+  @Test
+  public void when_content_differs__then_hash_differs() {
+    assertNotEquals(DesiredStateHash.compute(configMap(Map.of("a", "1"))), DesiredStateHash.compute(configMap(Map.of("a", "2"))));
+  }
+
+  @Test
+  public void when_annotated_twice__then_hash_is_unchanged() {
+    ConfigMap desired = DesiredStateHash.annotate(configMap(Map.of("a", "1")));
+    String hash = DesiredStateHash.get(desired);
+
+    assertNotNull(hash);
+    assertEquals(hash, DesiredStateHash.get(DesiredStateHash.annotate(desired)));
+    assertTrue(DesiredStateHash.isUnchanged(desired, DesiredStateHash.annotate(configMap(Map.of("a", "1")))));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.javaoperatorsdk.operator.processing.event.source.informer.InformerEventSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class OwnedResourceCacheTest {
+  private static final String NAMESPACE = "test";
+
+  private final KubernetesClient kubernetesClient = mock(KubernetesClient.class, RETURNS_DEEP_STUBS);
+
+  private static StatefulSet statefulSet(String name, Map<String, String> labels) {
+    return new StatefulSetBuilder().withNewMetadata().withName(name).withNamespace(NAMESPACE).withLabels(labels).endMetadata().build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static InformerEventSource<StatefulSet, ?> informer(StatefulSet... statefulSets) {
+    InformerEventSource<StatefulSet, ?> informer = mock(InformerEventSource.class);
+    when(informer.get(any())).thenReturn(Optional.empty());
+    for (StatefulSet sts : statefulSets) {
+      when(informer.get(ResourceID.fromResource(sts))).thenReturn(Optional.of(sts));
+    }
+    when(informer.list(eq(NAMESPACE), any())).thenAnswer(i -> List.of(statefulSets).stream().filter(i.<Predicate<StatefulSet>>getArgument(1)));
+    return informer;
+  }
+
+  @Test
+  public void when_informer_is_registered__then_lookups_are_served_from_it() {
+    StatefulSet sts = statefulSet("cae-live", Map.of("cmcc.tsystemsmms.com/cmcc", "one"));
+    OwnedResourceCache cache = new OwnedResourceCache(kubernetesClient, true);
+    cache.register(StatefulSet.class, informer(sts, statefulSet("cae-preview", Map.of("cmcc.tsystemsmms.com/cmcc", "two"))));
+
+    assertSame(sts, cache.get(StatefulSet.class, NAMESPACE, "cae-live").orElseThrow());
+    assertTrue(cache.get(StatefulSet.class, NAMESPACE, "missing").isEmpty());
+    assertEquals(List.of(sts), cache.list(StatefulSet.class, NAMESPACE, Map.of("cmcc.tsystemsmms.com/cmcc", "one")));
+    verifyNoInteractions(kubernetesClient);
+  }
+
+  @Test
+  public void when_both_reconcilers_register_informers__then_the_first_one_serves_the_lookups() {
+    StatefulSet sts = statefulSet("cae-live", Map.of());
+    InformerEventSource<StatefulSet, ?> first = informer(sts);
+    InformerEventSource<StatefulSet, ?> second = informer(sts);
+    OwnedResourceCache cache = new OwnedResourceCache(kubernetesClient, true);
+    cache.register(StatefulSet.class, first);
+    cache.register(StatefulSet.class, second);
+
+    assertSame(sts, cache.get(StatefulSet.class, NAMESPACE, "cae-live").orElseThrow());
+    verify(first).get(ResourceID.fromResource(sts));
+    verify(second, never()).get(any());
+  }
+
+  @Test
+  public void when_kind_has_no_informer__then_lookups_go_to_the_api_server() {
+    ConfigMap configMap = new ConfigMapBuilder().withNewMetadata().withName("settings").withNamespace(NAMESPACE).endMetadata().build();
+    when(kubernetesClient.resources(ConfigMap.class).inNamespace(NAMESPACE).withName("settings").get()).thenReturn(configMap);
+    OwnedResourceCache cache = new OwnedResourceCache(kubernetesClient, true);
+    cache.register(StatefulSet.class, informer());
+
+    assertSame(configMap, cache.get(ConfigMap.class, NAMESPACE, "settings").orElseThrow());
+    assertTrue(cache.getCached(ConfigMap.class, NAMESPACE, "settings").isEmpty());
+  }
+
+  @Test
+  public void when_cache_is_disabled__then_lookups_go_to_the_api_server() {
+    StatefulSet sts = statefulSet("cae-live", Map.of());
+    when(kubernetesClient.resources(StatefulSet.class).inNamespace(NAMESPACE).withName("cae-live").get()).thenReturn(sts);
+    InformerEventSource<StatefulSet, ?> informer = informer(sts);
+    OwnedResourceCache cache = new OwnedResourceCache(kubernetesClient, false);
+    cache.register(StatefulSet.class, informer);
+
+    assertSame(sts, cache.get(StatefulSet.class, NAMESPACE, "cae-live").orElseThrow());
+    verifyNoInteractions(informer);
+  }
+}
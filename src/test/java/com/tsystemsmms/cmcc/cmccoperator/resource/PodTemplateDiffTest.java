@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PodTemplateDiffTest {
+
+  private static StatefulSet statefulSet(Map<String, String> annotations, EnvVar... env) {
+    return new StatefulSetBuilder()
+            .withNewMetadata().withName("cae-live").withNamespace("default").endMetadata()
+            .withNewSpec()
+            .withNewTemplate()
+            .withNewMetadata().withAnnotations(annotations).endMetadata()
+            .withNewSpec().addNewContainer().withName("cae").withEnv(env).endContainer().endSpec()
+            .endTemplate()
+            .endSpec()
+            .build();
+  }
+
+  private static Map<String, String> annotations(String... keys) {
+    Map<String, String> annotations = new LinkedHashMap<>();
+    for (String key : keys) {
+      annotations.put(key, "value-" + key);
+    }
+    return annotations;
+  }
+
+  @Test
+  public void when_only_map_order_differs__then_templates_are_equal() {
+    List<HasMetadata> first = List.of(statefulSet(annotations("a", "b"), new EnvVar("A", "1", null)),
+            new ConfigMapBuilder().withNewMetadata().withName("password").endMetadata().addToData("password", "one").build());
+    List<HasMetadata> second = List.of(statefulSet(annotations("b", "a"), new EnvVar("A", "1", null)),
+            new ConfigMapBuilder().withNewMetadata().withName("password").endMetadata().addToData("password", "two").build());
+
+    assertTrue(PodTemplateDiff.diff(first, second).isEmpty());
+  }
+
+  @Test
+  public void when_env_order_differs__then_difference_is_reported_with_path() {
+    List<HasMetadata> first = List.of(statefulSet(Map.of(), new EnvVar("A", "1", null), new EnvVar("B", "2", null)));
+    List<HasMetadata> second = List.of(statefulSet(Map.of(), new EnvVar("B", "2", null), new EnvVar("A", "1", null)));
+
+    List<String> differences = PodTemplateDiff.diff(first, second);
+
+    assertEquals("StatefulSet/cae-live:spec.template.spec.containers[0].env[0].name: \"A\" != \"B\"", differences.get(0));
+    assertEquals(4, differences.size());
+  }
+
+  @Test
+  public void when_template_is_missing__then_difference_is_reported() {
+    List<String> differences = PodTemplateDiff.diff(List.of(statefulSet(Map.of())), List.of());
+
+    assertEquals(List.of("StatefulSet/cae-live: missing in second build"), differences);
+  }
+}
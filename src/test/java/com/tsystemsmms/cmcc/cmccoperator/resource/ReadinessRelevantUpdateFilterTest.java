@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.batch.v1.JobBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReadinessRelevantUpdateFilterTest {
+  private final ReadinessRelevantUpdateFilter<StatefulSet> stsFilter = new ReadinessRelevantUpdateFilter<>();
+  private final ReadinessRelevantUpdateFilter<Job> jobFilter = new ReadinessRelevantUpdateFilter<>();
+
+  private static StatefulSet sts(int specReplicas, int readyReplicas, String revision) {
+    return new StatefulSetBuilder()
+            .withNewMetadata().withName("cae").withLabels(Map.of("cmcc.tsystemsmms.com/type", "cae")).endMetadata()
+            .withNewSpec().withReplicas(specReplicas).endSpec()
+            .withNewStatus()
+            .withReplicas(specReplicas)
+            .withReadyReplicas(readyReplicas)
+            .withUpdatedReplicas(readyReplicas)
+            .withCurrentRevision(revision)
+            .withObservedGeneration(1L)
+            .endStatus()
+            .build();
+  }
+
+  private static Job job(Integer succeeded, int active) {
+    return new JobBuilder()
+            .withNewMetadata().withName("import").endMetadata()
+            .withNewStatus().withSucceeded(succeeded).withActive(active).endStatus()
+            .build();
+  }
+
+  @Test
+  public void when_only_rollout_status_changes__then_statefulset_update_is_dropped() {
+    assertFalse(stsFilter.accept(sts(2, 2, "rev-2"), sts(2, 2, "rev-1")));
+  }
+
+  @Test
+  public void when_ready_or_spec_replicas_change__then_statefulset_update_is_passed() {
+    assertTrue(stsFilter.accept(sts(2, 1, "rev-1"), sts(2, 2, "rev-1")));
+    assertTrue(stsFilter.accept(sts(3, 2, "rev-1"), sts(2, 2, "rev-1")));
+  }
+
+  @Test
+  public void when_labels_change__then_statefulset_update_is_passed() {
+    StatefulSet changed = sts(2, 2, "rev-1");
+    changed.getMetadata().setLabels(Map.of("cmcc.tsystemsmms.com/type", "headless"));
+
+    assertTrue(stsFilter.accept(changed, sts(2, 2, "rev-1")));
+  }
+
+  @Test
+  public void when_job_succeeds__then_job_update_is_passed() {
+    assertFalse(jobFilter.accept(job(null, 0), job(null, 1)));
+    assertTrue(jobFilter.accept(job(1, 0), job(null, 0)));
+  }
+}
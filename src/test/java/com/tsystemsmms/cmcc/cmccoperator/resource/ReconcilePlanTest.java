@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReconcilePlanTest {
+
+  private static ConfigMap configMap(String name, Map<String, String> labels, String value) {
+    return DesiredStateHash.annotate(new ConfigMapBuilder()
+            .withNewMetadata().withName(name).withNamespace("default").withLabels(labels).endMetadata()
+            .withData(Map.of("key", value))
+            .build());
+  }
+
+  @Test
+  public void when_comparing_resources__then_plan_lists_creates_updates_unchanged_and_deletes() {
+    Map<String, String> labels = Map.of("app", "test");
+    List<ConfigMap> existing = List.of(
+            configMap("same", labels, "1"),
+            configMap("changed", labels, "1"),
+            configMap("relabeled", labels, "1"),
+            configMap("abandoned", labels, "1"));
+    List<ConfigMap> built = List.of(
+            configMap("same", labels, "1"),
+            configMap("changed", labels, "2"),
+            configMap("relabeled", Map.of("app", "other"), "1"),
+            configMap("new", labels, "1"));
+
+    ReconcilePlan plan = ReconcilePlan.compute("default", "cmcc", existing, built, r -> true, false);
+
+    assertEquals(List.of("ConfigMap/new", "ConfigMap/relabeled"), plan.describe().get("create"));
+    assertEquals(List.of("ConfigMap/changed"), plan.describe().get("update"));
+    assertEquals(List.of("ConfigMap/same"), plan.describe().get("unchanged"));
+    assertEquals(List.of("ConfigMap/abandoned", "ConfigMap/relabeled"), plan.describe().get("delete"));
+  }
+
+  @Test
+  public void when_resource_may_not_be_removed__then_it_is_not_deleted() {
+    PersistentVolumeClaim pvc = new PersistentVolumeClaimBuilder()
+            .withNewMetadata().withName("data-cms-0").withNamespace("default").endMetadata()
+            .build();
+
+    ReconcilePlan plan = ReconcilePlan.compute("default", "cmcc", List.of(pvc), List.of(), r -> false, true);
+
+    assertTrue(plan.getDeletes().isEmpty());
+    assertTrue(plan.isDryRun());
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.batch.v1.CronJob;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.tsystemsmms.cmcc.cmccoperator.resource.ResourceReconcilerManager.getApplyWave;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ResourceReconcilerManagerTest {
+  private static final String NAMESPACE = "test";
+  private static final int PARALLELISM = 4;
+
+  /**
+   * Records the resources it is asked to write, and fails for those whose name starts with "fail".
+   */
+  private static class StubReconciler implements Reconciler {
+    final Set<String> applied = ConcurrentHashMap.newKeySet();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final CountDownLatch allThreadsBusy = new CountDownLatch(PARALLELISM);
+
+    @Override
+    public void reconcile(KubernetesClient kubernetesClient, OwnedResourceCache resourceCache, String namespace, HasMetadata resource) {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        // hold the first resources until all threads are busy, so the test sees them run at the same time
+        allThreadsBusy.countDown();
+        allThreadsBusy.await(5, TimeUnit.SECONDS);
+        if (resource.getMetadata().getName().startsWith("fail")) {
+          throw new IllegalStateException("failed to write " + resource.getMetadata().getName());
+        }
+        applied.add(resource.getKind() + "/" + resource.getMetadata().getName());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+  }
+
+  private static ResourceReconcilerManager manager(StubReconciler stub) {
+    ResourceReconcilerManager manager = new ResourceReconcilerManager(mock(KubernetesClient.class), mock(OwnedResourceCache.class), null, PARALLELISM);
+    manager.reconcilers.clear();
+    manager.reconcilers.put(HasMetadata.class, stub);
+    return manager;
+  }
+
+  private static ConfigMap configMap(String name) {
+    return new ConfigMapBuilder().withNewMetadata().withName(name).endMetadata().build();
+  }
+
+  @Test
+  public void configuration_is_applied_before_workloads_and_ingresses_last() {
+    assertEquals(getApplyWave(new Secret()), getApplyWave(new ConfigMap()));
+    assertEquals(getApplyWave(new Service()), getApplyWave(new PersistentVolumeClaim()));
+    assertEquals(getApplyWave(new StatefulSet()), getApplyWave(new Job()));
+
+    assertTrue(getApplyWave(new ConfigMap()) < getApplyWave(new Service()));
+    assertTrue(getApplyWave(new Service()) < getApplyWave(new StatefulSet()));
+    assertTrue(getApplyWave(new StatefulSet()) < getApplyWave(new Ingress()));
+  }
+
+  @Test
+  public void unknown_kinds_are_applied_with_the_workloads() {
+    assertEquals(getApplyWave(new StatefulSet()), getApplyWave(new CronJob()));
+  }
+
+  @Test
+  public void when_resource_fails__then_its_wave_is_completed_and_later_waves_are_skipped() {
+    StubReconciler stub = new StubReconciler();
+    KubernetesList resources = new KubernetesListBuilder().addToItems(
+            configMap("first"),
+            configMap("fail-config"),
+            configMap("second"),
+            new SecretBuilder().withNewMetadata().withName("fail-secret").endMetadata().build(),
+            new ServiceBuilder().withNewMetadata().withName("service").endMetadata().build())
+            .build();
+
+    ResourceApplyException e = assertThrows(ResourceApplyException.class, () -> manager(stub).createPatchUpdate(NAMESPACE, resources));
+
+    assertEquals(Set.of("ConfigMap/fail-config", "Secret/fail-secret"), e.getFailures().keySet());
+    assertEquals("failed to write fail-config", e.getFailures().get("ConfigMap/fail-config").getMessage());
+    assertEquals(Set.of("ConfigMap/first", "ConfigMap/second"), stub.applied);
+  }
+
+  @Test
+  public void resources_of_a_wave_are_written_in_parallel_up_to_the_parallelism() {
+    StubReconciler stub = new StubReconciler();
+    KubernetesList resources = new KubernetesListBuilder()
+            .addAllToItems(IntStream.range(0, 3 * PARALLELISM).mapToObj(i -> (HasMetadata) configMap("config-" + i)).toList())
+            .build();
+
+    manager(stub).createPatchUpdate(NAMESPACE, resources);
+
+    assertEquals(3 * PARALLELISM, stub.applied.size());
+    assertEquals(PARALLELISM, stub.maxRunning.get());
+  }
+
+  @Test
+  public void when_custom_resource_is_deleted__then_its_plan_is_forgotten() {
+    ResourceReconcilerManager manager = manager(new StubReconciler());
+    manager.recordPlan(ReconcilePlan.compute(NAMESPACE, "cmcc", List.of(), List.of(configMap("config")), r -> true, false));
+    manager.recordPlan(ReconcilePlan.compute(NAMESPACE, "other", List.of(), List.of(), r -> true, false));
+
+    manager.retainExisting(new DeletedResourcePruner.ExistingResources(List.of(new ResourceID("other", NAMESPACE))));
+
+    assertEquals(Set.of(NAMESPACE + "/other"), manager.getReconcilePlans().keySet());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import io.fabric8.kubernetes.api.model.autoscaling.v2.HorizontalPodAutoscalerBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerSideApplierTest {
+  private static final String NAMESPACE = "test";
+
+  private final KubernetesClient kubernetesClient = mock(KubernetesClient.class, RETURNS_DEEP_STUBS);
+  private final OwnedResourceCache resourceCache = mock(OwnedResourceCache.class);
+
+  private static StatefulSet statefulSet(String serviceName, String pvcName, Integer replicas, String image) {
+    return new StatefulSetBuilder()
+            .withNewMetadata().withName("cae-live").withNamespace(NAMESPACE).endMetadata()
+            .withNewSpec()
+            .withReplicas(replicas)
+            .withServiceName(serviceName)
+            .withPodManagementPolicy(serviceName.equals("live") ? "Parallel" : "OrderedReady")
+            .withNewSelector().withMatchLabels(Map.of("service", serviceName)).endSelector()
+            .withVolumeClaimTemplates(new PersistentVolumeClaimBuilder().withNewMetadata().withName(pvcName).endMetadata().build())
+            .withNewTemplate()
+            .withNewSpec().addNewContainer().withName("cae").withImage(image).endContainer().endSpec()
+            .endTemplate()
+            .endSpec()
+            .build();
+  }
+
+  private StatefulSet applied() {
+    ArgumentCaptor<HasMetadata> captor = ArgumentCaptor.forClass(HasMetadata.class);
+    verify(kubernetesClient).resource(captor.capture());
+    return (StatefulSet) captor.getValue();
+  }
+
+  @Test
+  public void when_statefulset_exists__then_immutable_fields_are_kept() {
+    when(resourceCache.get(StatefulSet.class, NAMESPACE, "cae-live")).thenReturn(Optional.of(statefulSet("live", "live-data", 1, "cae:1")));
+    ServerSideApplier applier = new ServerSideApplier(kubernetesClient, resourceCache, ServerSideApplier.DEFAULT_FIELD_MANAGER, false);
+
+    applier.apply(NAMESPACE, statefulSet("desired", "desired-data", 3, "cae:2"), ServerSideApplier.Autoscaled.NONE);
+
+    StatefulSet applied = applied();
+    assertEquals("live", applied.getSpec().getServiceName());
+    assertEquals("Parallel", applied.getSpec().getPodManagementPolicy());
+    assertEquals(Map.of("service", "live"), applied.getSpec().getSelector().getMatchLabels());
+    assertEquals("live-data", applied.getSpec().getVolumeClaimTemplates().get(0).getMetadata().getName());
+    assertEquals(3, applied.getSpec().getReplicas());
+    assertEquals("cae:2", applied.getSpec().getTemplate().getSpec().getContainers().get(0).getImage());
+  }
+
+  @Test
+  public void when_statefulset_is_new__then_it_is_applied_as_built() {
+    ServerSideApplier applier = new ServerSideApplier(kubernetesClient, resourceCache, ServerSideApplier.DEFAULT_FIELD_MANAGER, false);
+    StatefulSet desired = statefulSet("desired", "desired-data", 3, "cae:2");
+
+    applier.apply(NAMESPACE, desired, ServerSideApplier.Autoscaled.NONE);
+
+    assertEquals(desired, applied());
+  }
+
+  @Test
+  public void when_autoscaler_targets_statefulset__then_replicas_are_left_out() {
+    when(kubernetesClient.autoscaling().v2().horizontalPodAutoscalers().inNamespace(NAMESPACE).list().getItems())
+            .thenReturn(List.of(new HorizontalPodAutoscalerBuilder()
+                    .withNewMetadata().withName("cae-live").endMetadata()
+                    .withNewSpec().withNewScaleTargetRef().withApiVersion("apps/v1").withKind("StatefulSet").withName("cae-live").endScaleTargetRef().endSpec()
+                    .build()));
+    ServerSideApplier applier = new ServerSideApplier(kubernetesClient, resourceCache, ServerSideApplier.DEFAULT_FIELD_MANAGER, false);
+
+    applier.apply(NAMESPACE, statefulSet("desired", "desired-data", 3, "cae:2"), applier.findAutoscaled(NAMESPACE));
+
+    assertNull(applied().getSpec().getReplicas());
+  }
+
+  @Test
+  public void when_autoscalers_cannot_be_listed__then_replicas_are_left_out() {
+    when(kubernetesClient.autoscaling().v2().horizontalPodAutoscalers().inNamespace(NAMESPACE).list())
+            .thenThrow(new KubernetesClientException("forbidden"));
+    ServerSideApplier applier = new ServerSideApplier(kubernetesClient, resourceCache, ServerSideApplier.DEFAULT_FIELD_MANAGER, false);
+
+    applier.apply(NAMESPACE, statefulSet("desired", "desired-data", 3, "cae:2"), applier.findAutoscaled(NAMESPACE));
+
+    assertNull(applied().getSpec().getReplicas());
+  }
+
+  @Test
+  public void when_conflicts_are_not_forced__then_apply_does_not_force() {
+    ServerSideApplier applier = new ServerSideApplier(kubernetesClient, resourceCache, ServerSideApplier.DEFAULT_FIELD_MANAGER, false);
+    StatefulSet desired = statefulSet("desired", "desired-data", 3, "cae:2");
+
+    applier.apply(NAMESPACE, desired, ServerSideApplier.Autoscaled.NONE);
+
+    var applicable = kubernetesClient.resource((HasMetadata) desired).inNamespace(NAMESPACE).fieldManager(ServerSideApplier.DEFAULT_FIELD_MANAGER);
+    verify(applicable).serverSideApply();
+    verify(applicable, never()).forceConflicts();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.resource;
+
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatefulSetReconcilerTest {
+  private static final String NAMESPACE = "test";
+
+  private final KubernetesClient kubernetesClient = mock(KubernetesClient.class, RETURNS_DEEP_STUBS);
+  private final OwnedResourceCache resourceCache = mock(OwnedResourceCache.class);
+  private final StatefulSet sts = new StatefulSetBuilder()
+          .withNewMetadata().withName("cae-live").withNamespace(NAMESPACE).endMetadata()
+          .withNewSpec().withReplicas(1).endSpec()
+          .build();
+
+  @SuppressWarnings("unchecked")
+  private void editFails(int code) {
+    when(resourceCache.get(StatefulSet.class, NAMESPACE, "cae-live")).thenReturn(Optional.of(sts));
+    when(kubernetesClient.apps().statefulSets().inNamespace(NAMESPACE).withName("cae-live").edit(any(UnaryOperator.class)))
+            .thenThrow(new KubernetesClientException("failed", code, null));
+  }
+
+  @Test
+  public void when_cache_still_holds_a_deleted_statefulset__then_it_is_created() {
+    editFails(404);
+
+    new StatefulSetReconciler().reconcile(kubernetesClient, resourceCache, NAMESPACE, sts);
+
+    verify(kubernetesClient.resource(sts).inNamespace(NAMESPACE).unlock()).createOr(any());
+  }
+
+  @Test
+  public void when_edit_fails_otherwise__then_the_error_is_reported() {
+    editFails(409);
+
+    var e = assertThrows(KubernetesClientException.class,
+            () -> new StatefulSetReconciler().reconcile(kubernetesClient, resourceCache, NAMESPACE, sts));
+
+    assertEquals(409, e.getCode());
+    verify(kubernetesClient.resource(sts).inNamespace(NAMESPACE).unlock(), never()).createOr(any());
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.scheduling;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.utils.MutableClock;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReconcileSchedulerTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final MutableClock clock = new MutableClock();
+  private final ReconcileScheduler scheduler = new ReconcileScheduler(3, 2, 1, Duration.ofSeconds(10), Duration.ofMinutes(2), registry, clock);
+
+  @Test
+  public void when_namespace_holds_its_permits__then_other_namespaces_are_still_reconciled() {
+    assertTrue(scheduler.tryAcquire("a", "one", Milestone.DeploymentStarted).isPresent());
+    assertTrue(scheduler.tryAcquire("a", "two", Milestone.DeploymentStarted).isPresent());
+
+    assertFalse(scheduler.tryAcquire("a", "three", Milestone.DeploymentStarted).isPresent());
+    assertTrue(scheduler.tryAcquire("b", "one", Milestone.DeploymentStarted).isPresent());
+    assertEquals(1, registry.get("cmcc.scheduler.deferred").tags("namespace", "a").counter().count());
+  }
+
+  @Test
+  public void when_permits_are_scarce__then_ready_resources_leave_the_reserve_to_others() {
+    var permit = scheduler.tryAcquire("a", "one", Milestone.Ready).orElseThrow();
+    assertTrue(scheduler.tryAcquire("b", "one", Milestone.Ready).isPresent());
+
+    assertFalse(scheduler.tryAcquire("c", "one", Milestone.Ready).isPresent());
+    assertTrue(scheduler.tryAcquire("d", "one", Milestone.Healing).isPresent());
+
+    permit.close();
+    permit.close();
+    assertEquals(2, scheduler.getActive());
+  }
+
+  @Test
+  public void when_ready_resource_is_deferred_too_long__then_it_may_use_the_reserve() {
+    scheduler.tryAcquire("a", "one", Milestone.Ready).orElseThrow();
+    scheduler.tryAcquire("b", "one", Milestone.Ready).orElseThrow();
+    assertFalse(scheduler.tryAcquire("c", "one", Milestone.Ready).isPresent());
+
+    clock.advance(Duration.ofMinutes(3));
+
+    assertTrue(scheduler.tryAcquire("c", "one", Milestone.Ready).isPresent());
+  }
+
+  @Test
+  public void when_deferred_resource_is_deleted__then_it_is_forgotten() {
+    scheduler.tryAcquire("a", "one", Milestone.Ready).orElseThrow();
+    scheduler.tryAcquire("b", "one", Milestone.Ready).orElseThrow();
+    assertFalse(scheduler.tryAcquire("c", "one", Milestone.Ready).isPresent());
+
+    scheduler.retainExisting(new DeletedResourcePruner.ExistingResources(List.of(new ResourceID("one", "a"), new ResourceID("one", "b"))));
+    assertNull(registry.find("cmcc.scheduler.deferred").tags("namespace", "c").counter());
+
+    // a new custom resource with the same name does not inherit the deferral of the deleted one
+    clock.advance(Duration.ofMinutes(3));
+    assertFalse(scheduler.tryAcquire("c", "one", Milestone.Ready).isPresent());
+  }
+
+  @Test
+  public void when_unlimited__then_nothing_is_deferred() {
+    ReconcileScheduler unlimited = ReconcileScheduler.unlimited();
+    for (int i = 0; i < 100; i++) {
+      assertTrue(unlimited.tryAcquire("a", "cmcc" + i, Milestone.Ready).isPresent());
+    }
+  }
+}
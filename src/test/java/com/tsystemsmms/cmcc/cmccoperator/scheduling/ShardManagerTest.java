@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.scheduling;
+
+import com.tsystemsmms.cmcc.cmccoperator.utils.MutableClock;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardManagerTest {
+  private static final List<String> REPLICAS = List.of("cmcc-operator-0", "cmcc-operator-1", "cmcc-operator-2");
+
+  private static ShardManager replica(KubernetesClient client, String identity, Clock clock) {
+    return new ShardManager(client, "operator", identity, ShardManager.DEFAULT_GROUP,
+            Duration.ofSeconds(30), Duration.ofSeconds(10), null, clock);
+  }
+
+  private static ShardManager replica(String identity, List<String> members) {
+    ShardManager shardManager = replica(mock(KubernetesClient.class), identity, new MutableClock());
+    shardManager.updateMembers(members);
+    return shardManager;
+  }
+
+  @Test
+  public void when_sharding_is_disabled__then_replica_is_responsible_for_everything() {
+    ShardManager disabled = ShardManager.disabled();
+
+    assertTrue(disabled.hasJoined());
+    assertTrue(disabled.isResponsibleFor("any"));
+  }
+
+  @Test
+  public void when_replicas_share_the_group__then_each_namespace_has_exactly_one_owner() {
+    List<ShardManager> replicas = REPLICAS.stream().map(r -> replica(r, REPLICAS)).toList();
+    int[] owned = new int[replicas.size()];
+
+    for (int i = 0; i < 300; i++) {
+      int owners = 0;
+      for (int r = 0; r < replicas.size(); r++) {
+        if (replicas.get(r).isResponsibleFor("ns" + i)) {
+          owners++;
+          owned[r]++;
+        }
+      }
+      assertEquals(1, owners);
+    }
+    for (int count : owned) {
+      assertTrue(count > 50, "namespaces are spread over all replicas");
+    }
+  }
+
+  @Test
+  public void when_replica_dies__then_only_its_namespaces_move() {
+    List<String> survivors = REPLICAS.subList(0, 2);
+    List<ShardManager.Rebalance> rebalances = new ArrayList<>();
+    ShardManager replica = replica(REPLICAS.get(0), REPLICAS);
+    replica.addRebalanceListener(rebalances::add);
+
+    List<String> before = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      before.add(ShardManager.owner("ns" + i, REPLICAS));
+    }
+    replica.updateMembers(survivors);
+
+    assertEquals(1, rebalances.size());
+    for (int i = 0; i < 100; i++) {
+      String after = ShardManager.owner("ns" + i, survivors);
+      if (!before.get(i).equals(REPLICAS.get(2))) {
+        assertEquals(before.get(i), after);
+        assertFalse(rebalances.get(0).acquired("ns" + i));
+      } else {
+        assertEquals(after.equals(REPLICAS.get(0)), rebalances.get(0).acquired("ns" + i));
+      }
+    }
+  }
+
+  @Test
+  public void when_members_are_unknown__then_replica_is_not_responsible() {
+    ShardManager replica = replica(REPLICAS.get(0), List.of());
+
+    assertFalse(replica.hasJoined());
+    assertFalse(replica.isResponsibleFor("ns"));
+  }
+
+  @Test
+  public void when_lease_cannot_be_renewed__then_replica_gives_up_its_namespaces_after_lease_duration() {
+    MutableClock clock = new MutableClock();
+    KubernetesClient client = mock(KubernetesClient.class, RETURNS_DEEP_STUBS);
+    List<Lease> leases = REPLICAS.stream().map(r -> lease(r, clock.instant())).toList();
+    when(client.resources(Lease.class).inNamespace("operator").withLabels(anyMap()).list().getItems()).thenReturn(leases);
+    ShardManager replica = replica(client, REPLICAS.get(0), clock);
+
+    replica.refresh();
+    assertEquals(REPLICAS, replica.getMembers());
+
+    when(client.resource(any(Lease.class))).thenThrow(new KubernetesClientException("API server unreachable"));
+    clock.advance(Duration.ofSeconds(20));
+    replica.refresh();
+    assertEquals(REPLICAS, replica.getMembers());
+
+    clock.advance(Duration.ofSeconds(10));
+    replica.refresh();
+    assertFalse(replica.hasJoined());
+    for (int i = 0; i < 100; i++) {
+      assertFalse(replica.isResponsibleFor("ns" + i));
+    }
+  }
+
+  private static Lease lease(String identity, Instant renewed) {
+    return new LeaseBuilder()
+            .withNewMetadata().withName(ShardManager.DEFAULT_GROUP + "-" + identity).endMetadata()
+            .withNewSpec()
+            .withHolderIdentity(identity)
+            .withLeaseDurationSeconds(30)
+            .withRenewTime(ZonedDateTime.ofInstant(renewed, ZoneOffset.UTC))
+            .endSpec()
+            .build();
+  }
+}
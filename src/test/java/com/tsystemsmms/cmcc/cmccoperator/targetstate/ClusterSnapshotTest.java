@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import io.fabric8.kubernetes.api.model.apps.StatefulSet;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import io.fabric8.kubernetes.api.model.batch.v1.JobBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterSnapshotTest {
+
+  private static StatefulSet sts(String name, String component) {
+    return new StatefulSetBuilder()
+            .withNewMetadata().withName(name).withLabels(Map.of("cmcc.tsystemsmms.com/name", component)).endMetadata()
+            .build();
+  }
+
+  @Test
+  public void when_looking_up_resources__then_snapshot_returns_them_by_name_and_label() {
+    var snapshot = new ClusterSnapshot(
+            List.of(sts("cae-live-0", "cae-live"), sts("cae-live-1", "cae-live"), sts("cms", "cms")),
+            List.of(new JobBuilder().withNewMetadata().withName("mgmt").endMetadata().build()));
+
+    assertTrue(snapshot.getStatefulSet("cms").isPresent());
+    assertTrue(snapshot.getStatefulSet("mls").isEmpty());
+    assertEquals(2, snapshot.getStatefulSetsWithLabel("cmcc.tsystemsmms.com/name", "cae-live").size());
+    assertTrue(snapshot.getStatefulSetsWithLabel("cmcc.tsystemsmms.com/name", "cae-preview").isEmpty());
+    assertTrue(snapshot.getJob("mgmt").isPresent());
+    assertTrue(snapshot.getJob("other").isEmpty());
+  }
+
+  private static StatefulSet restarted(long observedGeneration, String currentRevision, int updated, int ready) {
+    return new StatefulSetBuilder()
+            .withNewMetadata().withName("cms").withGeneration(3L).endMetadata()
+            .withNewSpec().withReplicas(1).endSpec()
+            .withNewStatus()
+            .withObservedGeneration(observedGeneration)
+            .withCurrentRevision(currentRevision)
+            .withUpdateRevision("cms-new")
+            .withUpdatedReplicas(updated)
+            .withReadyReplicas(ready)
+            .endStatus()
+            .build();
+  }
+
+  @Test
+  public void when_restart_is_rolling_out__then_statefulset_is_not_rolled_out_until_new_pods_are_ready() {
+    assertFalse(ClusterSnapshot.isRolledOut(restarted(2, "cms-old", 0, 1), 3));
+    assertFalse(ClusterSnapshot.isRolledOut(restarted(3, "cms-old", 0, 1), 3));
+    assertFalse(ClusterSnapshot.isRolledOut(restarted(3, "cms-new", 1, 0), 3));
+    assertTrue(ClusterSnapshot.isRolledOut(restarted(3, "cms-new", 1, 1), 3));
+    assertFalse(ClusterSnapshot.isRolledOut(sts("cms", "cms"), 3));
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.tsystemsmms.cmcc.cmccoperator.utils.TestCustomResources.customResource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReconcileMemoTest {
+
+  @Test
+  public void when_value_is_requested_twice__then_it_is_computed_once() {
+    ReconcileMemo memo = new ReconcileMemo(customResource());
+    AtomicInteger computed = new AtomicInteger();
+    Object owner = new Object();
+
+    assertEquals("a1", memo.get(owner, List.of("name"), () -> "a" + computed.incrementAndGet()));
+    assertEquals("a1", memo.get(owner, List.of("name"), () -> "a" + computed.incrementAndGet()));
+
+    assertEquals(1, computed.get());
+    assertEquals(1, memo.getHits());
+    assertEquals(1, memo.getMisses());
+  }
+
+  @Test
+  public void when_milestone_changes__then_values_are_recomputed() {
+    CustomResource cmcc = customResource();
+    ReconcileMemo memo = new ReconcileMemo(cmcc);
+    Object owner = new Object();
+
+    assertEquals("before", memo.get(owner, List.of("name"), () -> "before"));
+    cmcc.getStatus().setMilestone(Milestone.ManagementReady);
+    assertEquals("after", memo.get(owner, List.of("name"), () -> "after"));
+
+    assertEquals(0, memo.getHits());
+    assertEquals(1, memo.getInvalidations());
+  }
+
+  @Test
+  public void when_owner_is_invalidated__then_only_its_values_are_recomputed() {
+    ReconcileMemo memo = new ReconcileMemo(customResource());
+    Object owner = new Object();
+    Object other = new Object();
+
+    memo.get(owner, List.of("name"), () -> "owner");
+    memo.get(other, List.of("name"), () -> "other");
+    memo.invalidate(owner);
+
+    assertEquals("changed", memo.get(owner, List.of("name"), () -> "changed"));
+    assertEquals("other", memo.get(other, List.of("name"), () -> "changed"));
+  }
+}
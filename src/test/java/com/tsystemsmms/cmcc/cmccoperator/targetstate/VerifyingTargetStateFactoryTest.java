@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.targetstate;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
+import com.tsystemsmms.cmcc.cmccoperator.crds.Milestone;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CrdCustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.metrics.ReconcileMetrics;
+import com.tsystemsmms.cmcc.cmccoperator.scheduling.DeletedResourcePruner;
+import com.tsystemsmms.cmcc.cmccoperator.utils.TestCustomResources;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class VerifyingTargetStateFactoryTest {
+  private final TargetStateFactory delegate = mock(TargetStateFactory.class);
+  private final TargetStateFactory verificationFactory = mock(TargetStateFactory.class);
+  private final VerifyingTargetStateFactory factory = new VerifyingTargetStateFactory(delegate, verificationFactory,
+          VerifyingTargetStateFactory.Mode.FAIL, ReconcileMetrics.unexported());
+
+  @BeforeEach
+  void setUp() {
+    TargetState verification = mock(TargetState.class);
+    when(verification.buildResources()).thenReturn(List.of());
+    when(verificationFactory.buildTargetState(any())).thenReturn(verification);
+  }
+
+  private static CustomResource cmcc(String version, Milestone milestone) {
+    CoreMediaContentCloud cmcc = TestCustomResources.cmcc();
+    cmcc.getSpec().setVersion(version);
+    cmcc.getStatus().setMilestone(milestone);
+    return new CrdCustomResource(cmcc);
+  }
+
+  @Test
+  public void when_input_is_unchanged__then_it_is_verified_only_once() {
+    factory.buildTargetState(cmcc("2025.1", Milestone.Ready));
+    factory.buildTargetState(cmcc("2025.1", Milestone.Ready));
+
+    verify(verificationFactory, times(3)).buildTargetState(any());
+    verify(delegate, times(2)).buildTargetState(any());
+  }
+
+  @Test
+  public void when_spec_or_milestone_changes__then_it_is_verified_again() {
+    factory.buildTargetState(cmcc("2025.1", Milestone.Ready));
+    factory.buildTargetState(cmcc("2025.2", Milestone.Ready));
+    factory.buildTargetState(cmcc("2025.2", Milestone.DeploymentStarted));
+
+    verify(verificationFactory, times(9)).buildTargetState(any());
+  }
+
+  @Test
+  public void when_custom_resource_is_deleted__then_a_new_one_with_the_same_name_is_verified() {
+    factory.buildTargetState(cmcc("2025.1", Milestone.Ready));
+    factory.retainExisting(new DeletedResourcePruner.ExistingResources(List.of()));
+    factory.buildTargetState(cmcc("2025.1", Milestone.Ready));
+
+    verify(verificationFactory, times(6)).buildTargetState(any());
+  }
+}
@@ -50,4 +50,17 @@ public class EnvVarSetTest {
       dut.add(EnvVarSimple(null, "456"))
     );
   }
+
+  @Test
+  public void when_vars_are_added_in_any_order__then_list_is_sorted_by_name() {
+    EnvVarSet one = new EnvVarSet();
+    one.add(EnvVarSimple("foo", "1"));
+    one.add(EnvVarSimple("bar", "2"));
+    one.add(EnvVarSimple("baz", "3"));
+    EnvVarSet other = new EnvVarSet(List.of(EnvVarSimple("baz", "3"), EnvVarSimple("foo", "1"), EnvVarSimple("bar", "2")));
+
+    assertEquals(List.of("bar", "baz", "foo"), one.toList().stream().map(EnvVar::getName).toList());
+    assertEquals(one.toList(), other.toList());
+    assertEquals(one.toList(), new EnvVarSet(one).toList());
+  }
 }
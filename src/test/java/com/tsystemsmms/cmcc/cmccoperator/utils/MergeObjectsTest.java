@@ -17,6 +17,7 @@ import io.fabric8.kubernetes.api.model.SecurityContextBuilder;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class MergeObjectsTest {
@@ -48,4 +49,42 @@ public class MergeObjectsTest {
     assertEquals(main.getCapabilities().getAdd().size(), 2, "capabilities.add has been replaced");
     assertEquals(main.getCapabilities().getAdd().get(0).equals("foo"), true, "capabilities.add has been replaced");
   }
+
+  @Test
+  public void cachedMergeTest() {
+    ObjectMerger merger = new ObjectMerger();
+
+    SecurityContext first = merger.merge(SecurityContext.class,
+            new SecurityContextBuilder().withReadOnlyRootFilesystem(true).build(),
+            null,
+            new SecurityContextBuilder().withRunAsUser(1000L).build());
+    SecurityContext second = merger.merge(SecurityContext.class,
+            new SecurityContextBuilder().withReadOnlyRootFilesystem(true).build(),
+            null,
+            new SecurityContextBuilder().withRunAsUser(1000L).build());
+    SecurityContext other = merger.merge(SecurityContext.class,
+            new SecurityContextBuilder().withReadOnlyRootFilesystem(true).build(),
+            null,
+            new SecurityContextBuilder().withRunAsUser(2000L).build());
+
+    assertEquals(true, first.getReadOnlyRootFilesystem(), "null objects are ignored");
+    assertEquals(1000L, first.getRunAsUser());
+    assertEquals(first, second);
+    assertNotSame(first, second, "each caller gets its own copy");
+    assertEquals(2000L, other.getRunAsUser());
+  }
+
+  @Test
+  public void when_inputs_or_results_are_modified__then_the_cache_is_not_affected() {
+    ObjectMerger merger = new ObjectMerger();
+    SecurityContext defaults = new SecurityContextBuilder().withRunAsUser(1000L).build();
+
+    SecurityContext first = merger.merge(SecurityContext.class, defaults, null);
+    first.setRunAsUser(3000L);
+    defaults.setRunAsGroup(2000L);
+    SecurityContext second = merger.merge(SecurityContext.class, new SecurityContextBuilder().withRunAsUser(1000L).build(), null);
+
+    assertEquals(1000L, second.getRunAsUser());
+    assertNull(second.getRunAsGroup());
+  }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.utils;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NamespaceFilterTest {
+  private final NamespaceFilter<HasMetadata> filter = new NamespaceFilter<>();
+
+  private static ConfigMap in(String namespace) {
+    return new ConfigMapBuilder().withNewMetadata().withNamespace(namespace).withName("cmcc").endMetadata().build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    filter.setNamespaceIncludes(Set.of());
+    filter.setNamespaceExcludes(Set.of());
+    filter.setNamespaceSelector("");
+    NamespaceFilter.setSelectedNamespaces(Set.of());
+  }
+
+  @Test
+  public void when_namespace_gains_the_labels__then_it_is_watched_without_restart() {
+    filter.setNamespaceSelector("cmcc.tsystemsmms.com/managed=true");
+    filter.setNamespaceExcludes(Set.of("customer-b"));
+    NamespaceFilter.setSelectedNamespaces(Set.of("customer-a"));
+
+    assertTrue(filter.accept(in("customer-a")));
+    assertFalse(filter.accept(in("customer-c")));
+
+    NamespaceFilter.setSelectedNamespaces(Set.of("customer-a", "customer-b", "customer-c"));
+
+    assertTrue(filter.accept(in("customer-c")));
+    assertFalse(filter.accept(in("customer-b")));
+    assertEquals(Set.of("customer-a", "customer-c"), NamespaceFilter.getWatchedNamespaces());
+  }
+
+  @Test
+  public void when_no_namespace_has_the_labels__then_reconcilers_do_not_watch_all_namespaces() {
+    filter.setNamespaceSelector("cmcc.tsystemsmms.com/managed=true");
+
+    assertEquals(Set.of(NamespaceWatcher.NO_NAMESPACE), NamespaceWatcher.toControllerNamespaces(NamespaceFilter.getWatchedNamespaces()));
+  }
+
+  @Test
+  public void when_no_selector_is_configured__then_static_lists_apply() {
+    filter.setNamespaceIncludes(Set.of("customer-a"));
+
+    assertTrue(filter.accept(in("customer-a")));
+    assertFalse(filter.accept(in("customer-b")));
+    assertEquals(Set.of("customer-a"), NamespaceFilter.getWatchedNamespaces());
+  }
+}
@@ -14,6 +14,7 @@ import io.fabric8.kubernetes.api.model.EnvVar;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -65,4 +66,26 @@ class SpringPropertiesTest {
         assertEquals("B", env.get(1).getName());
         assertEquals("2", env.get(1).getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void envNamesMatchRelaxedBinding() {
+        for (String property : List.of("a.b", "a..b", ".leading", "trailing.", "list[0].x-y", "__x__", "...", "", "CamelCase.Ü")) {
+            String expected = property
+                    .replaceAll("[^A-Za-z0-9]+", "_")
+                    .replaceAll("_$", "")
+                    .toUpperCase(Locale.ROOT);
+            assertEquals(expected, SpringProperties.toEnvName(property), property);
+        }
+    }
+
+    @Test
+    public void envSortedByProperty() {
+        List<EnvVar> env = SpringProperties
+                .builder()
+                .property("z.last", "1")
+                .property("a.first", "2")
+                .property("m.middle", "3")
+                .toEnvVars();
+        assertEquals(List.of("A_FIRST", "M_MIDDLE", "Z_LAST"), env.stream().map(EnvVar::getName).toList());
+    }
+}
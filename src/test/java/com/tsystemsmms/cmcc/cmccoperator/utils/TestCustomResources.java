@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2022. T-Systems Multimedia Solutions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.tsystemsmms.cmcc.cmccoperator.utils;
+
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloud;
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudSpec;
+import com.tsystemsmms.cmcc.cmccoperator.crds.CoreMediaContentCloudStatus;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CrdCustomResource;
+import com.tsystemsmms.cmcc.cmccoperator.customresource.CustomResource;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+/**
+ * Custom resources for tests, with the default spec and status.
+ */
+public class TestCustomResources {
+  public static final String NAMESPACE = "default";
+  public static final String NAME = "cmcc";
+
+  private TestCustomResources() {
+  }
+
+  /**
+   * Returns a new custom resource named {@value #NAME} in namespace {@value #NAMESPACE}.
+   *
+   * @return the custom resource
+   */
+  public static CoreMediaContentCloud cmcc() {
+    CoreMediaContentCloud cmcc = new CoreMediaContentCloud(new CoreMediaContentCloudSpec(), new CoreMediaContentCloudStatus());
+    cmcc.setMetadata(new ObjectMetaBuilder().withName(NAME).withNamespace(NAMESPACE).build());
+    return cmcc;
+  }
+
+  /**
+   * Returns {@link #cmcc()} wrapped as a CustomResource.
+   *
+   * @return the custom resource
+   */
+  public static CustomResource customResource() {
+    return new CrdCustomResource(cmcc());
+  }
+}